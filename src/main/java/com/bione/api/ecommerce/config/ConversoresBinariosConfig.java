@@ -0,0 +1,30 @@
+package com.bione.api.ecommerce.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Conversores CBOR ({@code application/cbor}) e Smile ({@code application/x-jackson-smile}), escolhidos
+ * pelo cabeçalho {@code Accept} em qualquer endpoint que devolva DTOs (inclusive os erros, em
+ * {@code ErroPadraoDTO}). Usam o builder do Spring Boot, com as mesmas configurações do JSON
+ * ({@code spring.jackson.*}, datas ISO-8601); substituem os conversores padrão do Spring MVC no mesmo
+ * lugar da lista, depois do JSON, que continua sendo o formato para {@code Accept: *}{@code /*}.
+ */
+@Configuration
+public class ConversoresBinariosConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter conversorSmile(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,42 @@
+package com.bione.api.ecommerce.config;
+
+import com.bione.api.ecommerce.model.GeradorIds;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Alinha os geradores de ID em tabela com os IDs já existentes (criados quando as tabelas usavam
+ * AUTO_INCREMENT), para que as novas faixas nunca repitam um ID. Executado na inicialização,
+ * depois que o Hibernate atualizou o schema e antes de a aplicação receber requisições.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GeradorIdsInicializador {
+
+    private static final List<String> TABELAS = List.of("pedidos", "pedido_produto");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory; // Garante que o schema já foi atualizado
+
+    @PostConstruct
+    public void alinharGeradores() {
+        for (String tabela : TABELAS) {
+            // Com o otimizador pooled o primeiro ID de uma faixa é (valor - TAMANHO_FAIXA + 1),
+            // então o valor gravado precisa ficar uma faixa inteira acima do maior ID existente
+            jdbcTemplate.update(
+                    "INSERT INTO " + GeradorIds.TABELA + " (" + GeradorIds.COLUNA_NOME + ", " + GeradorIds.COLUNA_VALOR + ") " +
+                    "SELECT ?, COALESCE(MAX(id), 0) + ? FROM " + tabela + " " +
+                    "ON DUPLICATE KEY UPDATE " + GeradorIds.COLUNA_VALOR + " = " +
+                    "GREATEST(" + GeradorIds.COLUNA_VALOR + ", VALUES(" + GeradorIds.COLUNA_VALOR + "))",
+                    tabela, GeradorIds.TAMANHO_FAIXA + 1);
+        }
+        log.info("Geradores de ID alinhados para {}", TABELAS);
+    }
+}
@@ -4,12 +4,14 @@ import com.bione.api.ecommerce.dto.ClienteDTO;
 import com.bione.api.ecommerce.exception.ClienteNotFoundException;
 import com.bione.api.ecommerce.exception.ClienteInvalidException;
 import com.bione.api.ecommerce.exception.ErroPadraoDTO;
+import com.bione.api.ecommerce.exception.ServicoSobrecarregadoException;
 import com.bione.api.ecommerce.service.ClienteService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -17,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j // Adiciona logs para facilitar debug
 @CrossOrigin("*")
@@ -52,28 +55,28 @@ public class ClienteController {
     }
 
     /**
-     * Salva um novo cliente.
+     * Salva um novo cliente (resposta assíncrona: a senha é criptografada fora da thread da requisição).
      */
     @PostMapping
-    public ResponseEntity<ClienteDTO> salvarCliente(@RequestBody @Valid ClienteDTO clienteDTO) {
+    public CompletableFuture<ResponseEntity<ClienteDTO>> salvarCliente(@RequestBody @Valid ClienteDTO clienteDTO) {
         log.info("Salvando novo cliente: {}", clienteDTO.getNome());
-        ClienteDTO savedCliente = clienteService.salvarCliente(clienteDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedCliente);
+        return clienteService.salvarCliente(clienteDTO)
+                .thenApply(savedCliente -> ResponseEntity.status(HttpStatus.CREATED).body(savedCliente));
     }
 
     /**
      * Atualiza um cliente existente.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<ClienteDTO> atualizarCliente(@PathVariable Long id, @RequestBody @Valid ClienteDTO clienteDTO) {
+    public CompletableFuture<ResponseEntity<ClienteDTO>> atualizarCliente(@PathVariable Long id, @RequestBody @Valid ClienteDTO clienteDTO) {
         log.info("Atualizando cliente com ID: {}", id);
 
         if (clienteDTO.getSenha() != null && clienteDTO.getSenha().isBlank()) {
             clienteDTO.setSenha(null);
         }
 
-        ClienteDTO updatedCliente = clienteService.atualizarCliente(id, clienteDTO);
-        return ResponseEntity.ok(updatedCliente);
+        return clienteService.atualizarCliente(id, clienteDTO)
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -87,13 +90,13 @@ public class ClienteController {
     }
 
     /**
-     * Exporta clientes para CSV.
+     * Exporta clientes para CSV em streaming (opcionalmente compactado com gzip).
      */
     @GetMapping("/exportar/csv")
-    public void exportarClientesParaCSV(HttpServletResponse response) throws IOException {
-        log.info("Exportando clientes para CSV...");
-        List<ClienteDTO> clientes = clienteService.listarClientes();
-        clienteService.exportarClientesParaCSV(clientes, response);
+    public void exportarClientesParaCSV(@RequestParam(defaultValue = "false") boolean gzip,
+                                        HttpServletResponse response) throws IOException {
+        log.info("Exportando clientes para CSV (gzip: {})...", gzip);
+        clienteService.exportarClientesParaCSV(response, gzip);
     }
 
     /**
@@ -124,6 +127,22 @@ public class ClienteController {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(erro);
     }
 
+    /**
+     * Tratamento para ServicoSobrecarregadoException (fila de criptografia de senhas cheia).
+     */
+    @ExceptionHandler(ServicoSobrecarregadoException.class)
+    public ResponseEntity<ErroPadraoDTO> handleServicoSobrecarregadoException(ServicoSobrecarregadoException ex) {
+        log.warn("Serviço sobrecarregado: {}", ex.getMessage());
+        ErroPadraoDTO erro = new ErroPadraoDTO(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Serviço temporariamente sobrecarregado",
+                "Tente novamente em " + ex.getRetryAfterSegundos() + " segundos."
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSegundos()))
+                .body(erro);
+    }
+
     /**
      * Tratamento genérico de erros.
      */
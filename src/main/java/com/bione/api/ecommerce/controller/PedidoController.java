@@ -1,21 +1,44 @@
 package com.bione.api.ecommerce.controller;
 
+import com.bione.api.ecommerce.dto.ContagemStatusDTO;
+import com.bione.api.ecommerce.dto.PaginaCursorDTO;
 import com.bione.api.ecommerce.dto.PedidoDTO;
 import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.PedidoResumoDTO;
+import com.bione.api.ecommerce.dto.RastreamentoPedidoDTO;
+import com.bione.api.ecommerce.dto.ResultadoPedidoLoteDTO;
 import com.bione.api.ecommerce.dto.StatusHistoryDTO;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.exception.ChaveIdempotenciaReutilizadaException;
+import com.bione.api.ecommerce.exception.ConflitoConcorrenciaException;
+import com.bione.api.ecommerce.exception.EstoqueInsuficienteException;
+import com.bione.api.ecommerce.exception.PedidoEmProcessamentoException;
 import com.bione.api.ecommerce.exception.ResourceNotFoundException;
+import com.bione.api.ecommerce.exception.TransicaoStatusInvalidaException;
+import com.bione.api.ecommerce.service.PedidoResumoService;
 import com.bione.api.ecommerce.service.PedidoService;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas.Tabela;
+import com.bione.api.ecommerce.service.contagem.ContadoresStatusPedido;
+import com.bione.api.ecommerce.service.eventos.TransmissorEventosPedido;
+import com.bione.api.ecommerce.service.idempotencia.IdempotenciaPedidos;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -28,35 +51,88 @@ import java.util.List;
 public class PedidoController {
 
     private final PedidoService pedidoService;
+    private final PedidoResumoService pedidoResumoService;
+    private final TransmissorEventosPedido transmissorEventos;
+    private final ContadoresStatusPedido contadoresStatus;
+    private final VersoesTabelas versoes;
+    private final IdempotenciaPedidos idempotencia;
+
+    // Quantidade máxima de pedidos aceitos em uma chamada de criação em lote
+    private static final int TAMANHO_MAXIMO_LOTE = 1000;
 
     /**
-     * Lista todos os pedidos.
+     * Lista os pedidos paginados por cursor ({@code after} = ID do último pedido recebido).
+     * Aceita GET condicional: se nenhum pedido ou produto mudou desde a ETag / data informada, responde 304.
      */
     @GetMapping
-    public ResponseEntity<List<PedidoDTO>> listarPedidos() {
-        log.info("Listando todos os pedidos...");
-        List<PedidoDTO> pedidos = pedidoService.listarPedidos(); // ✅ Método corrigido
-        return pedidos.isEmpty()
+    public ResponseEntity<PaginaCursorDTO<PedidoDTO>> listarPedidos(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + PedidoService.LIMITE_PADRAO) int limit,
+            WebRequest request) {
+        // Os itens dos pedidos trazem nome, preço e estoque dos produtos
+        if (versoes.naoModificado(request, Tabela.PEDIDOS, Tabela.PRODUTOS)) {
+            return null;
+        }
+        log.info("Listando pedidos após o ID {} (limite {})...", after, limit);
+        PaginaCursorDTO<PedidoDTO> pagina = pedidoService.listarPedidos(after, limit);
+        return pagina.getItens().isEmpty()
                 ? ResponseEntity.noContent().build()
-                : ResponseEntity.ok(pedidos);
+                : ResponseEntity.ok(pagina);
     }
 
 
     /**
-     * Cria um novo pedido.
+     * Cria um novo pedido. Com o cabeçalho {@code Idempotency-Key}, retentativas com a mesma chave
+     * devolvem o pedido já criado (com {@code Idempotent-Replayed: true}) em vez de criar outro.
      */
     @PostMapping
-    public ResponseEntity<PedidoDTO> criarPedido(@Valid @RequestBody PedidoRequestDTO pedidoRequestDTO) {
+    public ResponseEntity<PedidoDTO> criarPedido(@Valid @RequestBody PedidoRequestDTO pedidoRequestDTO,
+                                                 @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
         log.info("Criando novo pedido para o cliente ID: {}", pedidoRequestDTO.getClienteId());
         try {
-            PedidoDTO novoPedido = pedidoService.criarPedido(pedidoRequestDTO);
-            return ResponseEntity.status(HttpStatus.CREATED).body(novoPedido);
+            if (chaveIdempotencia == null) {
+                PedidoDTO novoPedido = pedidoService.criarPedido(pedidoRequestDTO);
+                return ResponseEntity.status(HttpStatus.CREATED).body(novoPedido);
+            }
+            IdempotenciaPedidos.Resultado resultado = idempotencia.executar(chaveIdempotencia, pedidoRequestDTO,
+                    () -> pedidoService.criarPedido(pedidoRequestDTO));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", String.valueOf(resultado.repetido()))
+                    .body(resultado.pedido());
+        } catch (EstoqueInsuficienteException e) {
+            log.warn("Pedido recusado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null); // Retorna 409 quando falta estoque
+        } catch (ChaveIdempotenciaReutilizadaException e) {
+            log.warn("Pedido recusado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(null); // Retorna 422 para chave reutilizada com outro pedido
+        } catch (PedidoEmProcessamentoException e) {
+            log.warn("Pedido repetido em processamento: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT) // Retorna 409: a primeira requisição com a chave ainda não terminou
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSegundos()))
+                    .body(null);
         } catch (Exception e) {
             log.error("Erro ao criar pedido: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
     }
 
+    /**
+     * Cria vários pedidos de uma vez, retornando o resultado de cada um.
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<List<ResultadoPedidoLoteDTO>> criarPedidosEmLote(@RequestBody List<PedidoRequestDTO> pedidos) {
+        log.info("Criando lote com {} pedidos", pedidos.size());
+        if (pedidos.isEmpty() || pedidos.size() > TAMANHO_MAXIMO_LOTE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null); // Lote vazio ou acima do limite
+        }
+        try {
+            return ResponseEntity.ok(pedidoService.criarPedidosEmLote(pedidos));
+        } catch (Exception e) {
+            log.error("Erro ao criar lote de pedidos: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     /**
      * Atualiza o status de um pedido.
      */
@@ -69,6 +145,9 @@ public class PedidoController {
         } catch (ResourceNotFoundException e) {
             log.error("Pedido não encontrado: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null); // Retorna 404 se o pedido não for encontrado
+        } catch (TransicaoStatusInvalidaException | ConflitoConcorrenciaException e) {
+            log.warn("Status do pedido não atualizado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null); // Retorna 409 para transição inválida ou conflito
         } catch (IllegalArgumentException e) {
             log.error("Erro ao atualizar status, status inválido: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null); // Retorna 400 para status inválido
@@ -79,22 +158,108 @@ public class PedidoController {
     }
 
     /**
-     * Lista pedidos por status.
+     * Lista pedidos por status, paginados por cursor (com GET condicional, como a listagem geral).
      */
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<PedidoDTO>> listarPedidosPorStatus(@PathVariable String status) {
-        log.info("Listando pedidos com status: {}", status);
+    public ResponseEntity<PaginaCursorDTO<PedidoDTO>> listarPedidosPorStatus(
+            @PathVariable StatusPedido status,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + PedidoService.LIMITE_PADRAO) int limit,
+            WebRequest request) {
+        if (versoes.naoModificado(request, Tabela.PEDIDOS, Tabela.PRODUTOS)) {
+            return null;
+        }
+        log.info("Listando pedidos com status: {} após o ID {} (limite {})", status, after, limit);
         try {
-            List<PedidoDTO> pedidos = pedidoService.listarPedidosPorStatus(status); // ✅ Método corrigido
-            return pedidos.isEmpty()
+            PaginaCursorDTO<PedidoDTO> pagina = pedidoService.listarPedidosPorStatus(status, after, limit);
+            return pagina.getItens().isEmpty()
                     ? ResponseEntity.noContent().build()
-                    : ResponseEntity.ok(pedidos);
+                    : ResponseEntity.ok(pagina);
         } catch (Exception e) {
             log.error("Erro ao listar pedidos por status '{}': {}", status, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null); // Retorna 500 em caso de erro
         }
     }
 
+    /**
+     * Quantidade de pedidos e soma dos totais por status, servidas de contadores em memória.
+     */
+    @GetMapping("/contagem")
+    public ResponseEntity<List<ContagemStatusDTO>> contarPedidosPorStatus() {
+        return ResponseEntity.ok(contadoresStatus.contagem());
+    }
+
+    /**
+     * Stream (Server-Sent Events) de pedidos criados e mudanças de status, com filtros opcionais
+     * por status e cliente. Na reconexão, o cabeçalho {@code Last-Event-ID} reenvia os eventos perdidos.
+     */
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter assinarEventos(
+            @RequestParam(required = false) StatusPedido status,
+            @RequestParam(required = false) Long clienteId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+        log.info("Nova assinatura de eventos de pedidos (status {}, cliente {})", status, clienteId);
+        return transmissorEventos.assinar(status, clienteId, ultimoEventoId);
+    }
+
+    /**
+     * Lista resumos de pedidos (tabela desnormalizada, sem junções) paginados por cursor,
+     * com filtros opcionais por status e cliente. Aceita GET condicional (304 se nenhum pedido mudou).
+     */
+    @GetMapping("/resumos")
+    public ResponseEntity<PaginaCursorDTO<PedidoResumoDTO>> listarResumos(
+            @RequestParam(required = false) StatusPedido status,
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + PedidoService.LIMITE_PADRAO) int limit,
+            WebRequest request) {
+        if (versoes.naoModificado(request, Tabela.PEDIDOS)) {
+            return null;
+        }
+        log.info("Listando resumos de pedidos (status {}, cliente {}) após o ID {} (limite {})", status, clienteId, after, limit);
+        try {
+            PaginaCursorDTO<PedidoResumoDTO> pagina = pedidoResumoService.listar(status, clienteId, after, limit);
+            return pagina.getItens().isEmpty()
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            log.error("Erro ao listar resumos de pedidos: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null); // Retorna 500 em caso de erro
+        }
+    }
+
+    /**
+     * Reconstrói a tabela de resumos de pedidos a partir dos pedidos existentes.
+     * @return Quantidade de resumos gravados
+     */
+    @PostMapping("/resumos/reconstruir")
+    public ResponseEntity<Long> reconstruirResumos() {
+        log.info("Reconstruindo resumos de pedidos...");
+        try {
+            return ResponseEntity.ok(pedidoResumoService.reconstruir());
+        } catch (Exception e) {
+            log.error("Erro ao reconstruir resumos de pedidos: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null); // Retorna 500 em caso de erro
+        }
+    }
+
+    /**
+     * Consulta a situação de um pedido pelo número de rastreamento.
+     */
+    @GetMapping("/rastreamento/{codigo}")
+    public ResponseEntity<RastreamentoPedidoDTO> buscarPorRastreamento(@PathVariable String codigo) {
+        log.info("Consultando pedido pelo rastreamento: {}", codigo);
+        try {
+            return ResponseEntity.ok(pedidoService.buscarPorRastreamento(codigo));
+        } catch (ResourceNotFoundException e) {
+            log.info("Rastreamento não encontrado: {}", codigo);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null); // Retorna 404 se nenhum pedido tiver o código
+        } catch (Exception e) {
+            log.error("Erro ao consultar rastreamento '{}': {}", codigo, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null); // Retorna 500 em caso de erro
+        }
+    }
+
     /**
      * Atualiza o número de rastreamento de um pedido.
      */
@@ -104,6 +269,9 @@ public class PedidoController {
         try {
             PedidoDTO pedidoDTO = pedidoService.atualizarRastreamentoPedido(id, numeroRastreamento); // ✅ Método corrigido
             return ResponseEntity.ok(pedidoDTO);
+        } catch (ConflitoConcorrenciaException e) {
+            log.warn("Rastreamento do pedido não atualizado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null); // Retorna 409 se o pedido continuar sendo alterado
         } catch (Exception e) {
             log.error("Erro ao atualizar rastreamento do pedido: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null); // Retorna 400 em caso de erro
@@ -111,14 +279,30 @@ public class PedidoController {
     }
 
     /**
-     * Exporta pedidos para CSV.
+     * Exporta pedidos para CSV em streaming, filtrando por status e período ({@code de} e {@code ate} inclusivos).
+     * Use {@code status=TODOS} para exportar pedidos de qualquer status.
      */
     @GetMapping("/exportar/csv")
-    public void exportarPedidosParaCSV(HttpServletResponse response) throws IOException {
-        log.info("Exportando pedidos para CSV...");
+    public void exportarPedidosParaCSV(
+            @RequestParam(defaultValue = "EM_ANDAMENTO") String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            HttpServletResponse response) throws IOException {
+        log.info("Exportando pedidos para CSV (status {}, de {} até {})...", status, de, ate);
+        StatusPedido filtroStatus;
+        try {
+            filtroStatus = "TODOS".equalsIgnoreCase(status) ? null : StatusPedido.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Status inválido: " + status); // Retorna 400
+            return;
+        }
+
         try {
-            List<PedidoDTO> pedidos = pedidoService.listarPedidosPorStatus("EM_ANDAMENTO"); // ✅ Método corrigido
-            pedidoService.exportarPedidosParaCSV(pedidos, response);
+            pedidoService.exportarPedidosParaCSV(
+                    filtroStatus,
+                    de != null ? de.atStartOfDay() : null,
+                    ate != null ? ate.plusDays(1).atStartOfDay() : null,
+                    response);
         } catch (IOException e) {
             log.error("Erro ao exportar os pedidos para CSV: {}", e.getMessage(), e);
             throw new IOException("Erro ao exportar os pedidos para CSV.", e); // Retorna o erro de I/O
@@ -1,14 +1,27 @@
 package com.bione.api.ecommerce.controller;
 
+import com.bione.api.ecommerce.dto.PaginaDTO;
 import com.bione.api.ecommerce.dto.ProdutoDTO;
+import com.bione.api.ecommerce.dto.ProdutoVendidoDTO;
+import com.bione.api.ecommerce.enums.FormatoResposta;
+import com.bione.api.ecommerce.enums.JanelaVendas;
 import com.bione.api.ecommerce.service.ProdutoService;
+import com.bione.api.ecommerce.service.cache.CatalogoSerializado;
+import com.bione.api.ecommerce.service.cache.CatalogoSerializado.Codificacao;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas.Tabela;
+import com.bione.api.ecommerce.service.ranking.MaisVendidos;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,19 +34,69 @@ import java.util.List;
 public class ProdutoController {
 
     private final ProdutoService produtoService;
+    private final MaisVendidos maisVendidos;
+    private final VersoesTabelas versoes;
+    private final CatalogoSerializado catalogoSerializado;
 
-    // ✅ Listar todos os produtos
+    // ✅ Listar todos os produtos: em JSON, bytes já serializados (e comprimidos conforme o Accept-Encoding);
+    // em CBOR/Smile, serializados a partir do cache do catálogo. GET condicional: If-None-Match /
+    // If-Modified-Since respondem 304
     @GetMapping
-    public ResponseEntity<List<ProdutoDTO>> listarProdutos() {
-        List<ProdutoDTO> produtos = produtoService.listarProdutos();
-        return produtos.isEmpty()
-                ? ResponseEntity.noContent().build()
-                : ResponseEntity.ok(produtos);
+    public ResponseEntity<?> listarProdutos(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            ServletWebRequest request) {
+        if (FormatoResposta.negociar(accept) != FormatoResposta.JSON) {
+            if (versoes.naoModificado(request, Tabela.PRODUTOS)) {
+                return null;
+            }
+            List<ProdutoDTO> produtos = produtoService.listarProdutos();
+            return produtos.isEmpty()
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.ok(produtos);
+        }
+
+        CatalogoSerializado.Instantaneo catalogo = catalogoSerializado.atual();
+        Codificacao codificacao = Codificacao.escolher(acceptEncoding);
+        request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING); // Também no 304
+        if (request.checkNotModified(catalogo.etag(codificacao), catalogo.ultimaAlteracao())) {
+            return null;
+        }
+        if (catalogo.quantidade() == 0) {
+            return ResponseEntity.noContent().build();
+        }
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (codificacao != Codificacao.IDENTIDADE) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, codificacao.getNome());
+        }
+        return resposta.body(catalogo.corpo(codificacao));
+    }
+
+    // Buscar produtos pelo nome (busca aproximada, ignora acentos e maiúsculas)
+    @GetMapping("/busca")
+    public ResponseEntity<PaginaDTO<ProdutoDTO>> buscarProdutos(@RequestParam("q") String consulta,
+                                                                @RequestParam(defaultValue = "0") int pagina,
+                                                                @RequestParam(defaultValue = "20") int tamanho) {
+        return ResponseEntity.ok(produtoService.buscarProdutos(consulta, pagina, tamanho));
+    }
+
+    // Produtos mais vendidos na janela (1h, 24h ou 7d), a partir de contagens aproximadas em memória
+    @GetMapping("/mais-vendidos")
+    public ResponseEntity<List<ProdutoVendidoDTO>> listarMaisVendidos(@RequestParam(defaultValue = "24h") String janela,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(maisVendidos.maisVendidos(JanelaVendas.doCodigo(janela), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     // ✅ Buscar um produto por ID
     @GetMapping("/{id}")
-    public ResponseEntity<ProdutoDTO> buscarProduto(@PathVariable Long id) {
+    public ResponseEntity<ProdutoDTO> buscarProduto(@PathVariable Long id, WebRequest request) {
+        if (versoes.naoModificado(request, Tabela.PRODUTOS)) {
+            return null;
+        }
         try {
             ProdutoDTO produto = produtoService.buscarProdutoPorId(id);
             return ResponseEntity.ok(produto);
@@ -0,0 +1,77 @@
+package com.bione.api.ecommerce.controller;
+
+import com.bione.api.ecommerce.dto.VendasPeriodoDTO;
+import com.bione.api.ecommerce.dto.VendasProdutoDTO;
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.service.relatorios.AgregadorVendas;
+import com.bione.api.ecommerce.service.relatorios.RelatorioVendasService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Slf4j
+@CrossOrigin("*")
+@Tag(name = "Relatórios", description = "Relatórios de vendas a partir das tabelas agregadas")
+@RestController
+@RequestMapping("/api/relatorios")
+@Validated
+@RequiredArgsConstructor
+public class RelatorioController {
+
+    private final RelatorioVendasService relatorioVendasService;
+    private final AgregadorVendas agregadorVendas;
+
+    /**
+     * Pedidos e receita por hora ou dia e por status, de {@code de} até {@code ate} (inclusive).
+     */
+    @GetMapping("/vendas")
+    public ResponseEntity<List<VendasPeriodoDTO>> vendasPorPeriodo(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(defaultValue = "DIA") Granularidade granularidade,
+            @RequestParam(required = false) StatusPedido status) {
+        log.info("Relatório de vendas por {} de {} até {} (status {})", granularidade, de, ate, status);
+        try {
+            return ResponseEntity.ok(relatorioVendasService.vendasPorPeriodo(de, ate, granularidade, status));
+        } catch (IllegalArgumentException e) {
+            log.warn("Relatório de vendas recusado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null); // Retorna 400 para intervalo inválido
+        }
+    }
+
+    /**
+     * Produtos mais vendidos (unidades e receita) de {@code de} até {@code ate} (inclusive).
+     */
+    @GetMapping("/vendas/produtos")
+    public ResponseEntity<List<VendasProdutoDTO>> vendasPorProduto(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(required = false) StatusPedido status,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("Relatório de vendas por produto de {} até {} (status {})", de, ate, status);
+        try {
+            return ResponseEntity.ok(relatorioVendasService.vendasPorProduto(de, ate, status, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Relatório de vendas por produto recusado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null); // Retorna 400 para intervalo inválido
+        }
+    }
+
+    /**
+     * Executa a agregação incremental imediatamente, sem esperar o agendamento.
+     */
+    @PostMapping("/vendas/agregar")
+    public ResponseEntity<Integer> agregarVendas() {
+        log.info("Agregação de vendas solicitada");
+        return ResponseEntity.ok(agregadorVendas.processar());
+    }
+}
@@ -0,0 +1,23 @@
+package com.bione.api.ecommerce.dto;
+
+import lombok.*;
+
+/**
+ * Projeção somente com as colunas exportadas de um cliente.
+ * Preenchida diretamente pela consulta, sem carregar a entidade (e sem a senha).
+ */
+@Getter
+@AllArgsConstructor
+public class ClienteExportacaoDTO {
+    private Long id;
+    private String nome;
+    private String email;
+    private String telefone;
+    private String estado;
+    private String cidade;
+    private String bairro;
+    private String complemento;
+    private String rua;
+    private String cep;
+    private String numero;
+}
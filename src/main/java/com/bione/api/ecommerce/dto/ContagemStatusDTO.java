@@ -0,0 +1,17 @@
+package com.bione.api.ecommerce.dto;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContagemStatusDTO {
+    private StatusPedido status;
+    private long quantidade;
+    private BigDecimal total;   // Soma de Pedido.total dos pedidos com este status
+}
@@ -0,0 +1,26 @@
+package com.bione.api.ecommerce.dto;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class EventoPedidoDTO {
+    public static final String PEDIDO_CRIADO = "pedido-criado";
+    public static final String STATUS_ALTERADO = "status-alterado";
+
+    private long id;                       // Sequência do evento (o id do SSE / Last-Event-ID é "<época>-<sequência>")
+    private String tipo;
+    private Long pedidoId;
+    private Long clienteId;
+    private StatusPedido statusAnterior;   // Nulo em pedido-criado
+    private StatusPedido status;
+    private BigDecimal total;
+    private LocalDateTime data;
+}
@@ -0,0 +1,24 @@
+package com.bione.api.ecommerce.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Projeção de um item de pedido com os dados do produto.
+ * Preenchida diretamente pela consulta, sem carregar PedidoProduto nem Produto.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemPedidoDTO {
+    private Long pedidoId;
+    private Long produtoId;
+    private String nome;
+    private BigDecimal preco;
+    private Integer estoque;
+    private Integer quantidade;
+
+    public ProdutoDTO toProdutoDTO() {
+        return new ProdutoDTO(produtoId, nome, preco, estoque);
+    }
+}
@@ -0,0 +1,21 @@
+package com.bione.api.ecommerce.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Página de resultados navegada por cursor (keyset).
+ * O próximo lote é obtido repetindo a consulta com {@code after=proximoCursor};
+ * {@code proximoCursor} nulo indica que não há mais resultados.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaCursorDTO<T> {
+    private List<T> itens;
+    private Long proximoCursor;
+    private int limite;
+}
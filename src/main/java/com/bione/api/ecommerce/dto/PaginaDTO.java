@@ -0,0 +1,20 @@
+package com.bione.api.ecommerce.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Página de resultados numerada (a primeira página é 0).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaDTO<T> {
+    private List<T> itens;
+    private int pagina;
+    private int tamanho;
+    private long total;
+}
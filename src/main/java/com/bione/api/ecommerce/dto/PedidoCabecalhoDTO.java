@@ -0,0 +1,38 @@
+package com.bione.api.ecommerce.dto;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projeção com os dados de cabeçalho de um pedido (sem itens).
+ * Preenchida diretamente pela consulta, sem entidades gerenciadas pelo contexto de persistência.
+ */
+@Getter
+@AllArgsConstructor
+public class PedidoCabecalhoDTO {
+    private Long id;
+    private Long clienteId;
+    private BigDecimal total;
+    private LocalDateTime dataPedido;
+    private StatusPedido status;
+    private String rua;
+    private String numero;
+    private String bairro;
+    private String cidade;
+    private String estado;
+    private String cep;
+
+    // Mesmo formato de Pedido.getEnderecoEntrega()
+    public String getEnderecoEntrega() {
+        return String.format("%s, %s, %s, %s, %s, %s",
+                rua != null ? rua : "",
+                numero != null ? numero : "",
+                bairro != null ? bairro : "",
+                cidade != null ? cidade : "",
+                estado != null ? estado : "",
+                cep != null ? cep : "").trim();
+    }
+}
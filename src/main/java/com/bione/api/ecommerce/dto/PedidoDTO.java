@@ -36,18 +36,39 @@ public class PedidoDTO {
 
     // ✅ Método para converter Pedido -> PedidoDTO
     public static PedidoDTO fromEntity(Pedido pedido) {
-        // Garantindo a conversão do status para StatusPedido (enum)
-        StatusPedido statusEnum = StatusPedido.valueOf(pedido.getStatus());  // Converte de String para StatusPedido (enum)
+        return fromEntity(pedido, pedido.getItensPedido());
+    }
+
+    // Monta o PedidoDTO a partir das projeções de cabeçalho e itens (leituras sem entidades)
+    public static PedidoDTO fromProjecao(PedidoCabecalhoDTO cabecalho, List<ProdutoDTO> produtos) {
+        return PedidoDTO.builder()
+                .id(cabecalho.getId())
+                .clienteId(cabecalho.getClienteId())
+                .produtos(produtos)
+                .total(cabecalho.getTotal())
+                .dataPedido(cabecalho.getDataPedido())
+                .status(cabecalho.getStatus())
+                .enderecoEntrega(cabecalho.getEnderecoEntrega())
+                .rua(cabecalho.getRua())
+                .numero(cabecalho.getNumero())
+                .bairro(cabecalho.getBairro())
+                .cidade(cabecalho.getCidade())
+                .estado(cabecalho.getEstado())
+                .cep(cabecalho.getCep())
+                .build();
+    }
 
+    // Converte Pedido -> PedidoDTO usando itens já carregados separadamente
+    public static PedidoDTO fromEntity(Pedido pedido, List<PedidoProduto> itensPedido) {
         return PedidoDTO.builder()
                 .id(pedido.getId())
                 .clienteId(pedido.getCliente().getId())
-                .produtos(pedido.getItensPedido().stream()  // ✅ Usa 'getItensPedido()' corretamente
+                .produtos(itensPedido.stream()
                         .map(PedidoProduto::toProdutoDTO)  // ✅ Agora esse método existe e funciona!
                         .collect(Collectors.toList()))
                 .total(pedido.getTotal())
                 .dataPedido(pedido.getDataPedido())
-                .status(statusEnum)  // Usa o status convertido como enum
+                .status(pedido.getStatus())
                 .enderecoEntrega(pedido.getEnderecoEntrega())
                 .rua(pedido.getRua())
                 .numero(pedido.getNumero())
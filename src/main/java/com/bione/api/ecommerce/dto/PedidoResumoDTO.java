@@ -0,0 +1,39 @@
+package com.bione.api.ecommerce.dto;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.PedidoResumo;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PedidoResumoDTO {
+    private Long pedidoId;
+    private Long clienteId;
+    private String clienteNome;
+    private StatusPedido status;
+    private BigDecimal total;
+    private int quantidadeItens;
+    private String primeirosItens;
+    private String numeroRastreamento;
+    private LocalDateTime dataPedido;
+
+    public static PedidoResumoDTO fromEntity(PedidoResumo resumo) {
+        return PedidoResumoDTO.builder()
+                .pedidoId(resumo.getPedidoId())
+                .clienteId(resumo.getClienteId())
+                .clienteNome(resumo.getClienteNome())
+                .status(resumo.getStatus())
+                .total(resumo.getTotal())
+                .quantidadeItens(resumo.getQuantidadeItens())
+                .primeirosItens(resumo.getPrimeirosItens())
+                .numeroRastreamento(resumo.getNumeroRastreamento())
+                .dataPedido(resumo.getDataPedido())
+                .build();
+    }
+}
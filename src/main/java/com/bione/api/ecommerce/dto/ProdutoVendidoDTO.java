@@ -0,0 +1,14 @@
+package com.bione.api.ecommerce.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProdutoVendidoDTO {
+    private Long produtoId;
+    private String nome;
+    private long quantidade;   // Unidades vendidas na janela (estimativa: nunca abaixo do valor real)
+}
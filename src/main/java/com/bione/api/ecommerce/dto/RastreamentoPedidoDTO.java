@@ -0,0 +1,22 @@
+package com.bione.api.ecommerce.dto;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção pública da consulta por número de rastreamento: situação do pedido e cidade de destino,
+ * sem itens, valores nem dados pessoais do cliente.
+ */
+@Getter
+@AllArgsConstructor
+public class RastreamentoPedidoDTO {
+    private Long pedidoId;
+    private String numeroRastreamento;
+    private StatusPedido status;
+    private LocalDateTime dataPedido;
+    private LocalDateTime dataAtualizacao;
+    private String cidade;
+    private String estado;
+}
@@ -0,0 +1,28 @@
+package com.bione.api.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+/**
+ * Resultado da criação de um pedido dentro de um lote.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoPedidoLoteDTO {
+    private int indice;        // Posição do pedido na lista enviada
+    private boolean sucesso;
+    private PedidoDTO pedido;  // Pedido criado (quando sucesso)
+    private String erro;       // Motivo da recusa (quando falha)
+
+    public static ResultadoPedidoLoteDTO sucesso(int indice, PedidoDTO pedido) {
+        return new ResultadoPedidoLoteDTO(indice, true, pedido, null);
+    }
+
+    public static ResultadoPedidoLoteDTO falha(int indice, String erro) {
+        return new ResultadoPedidoLoteDTO(indice, false, null, erro);
+    }
+}
@@ -0,0 +1,21 @@
+package com.bione.api.ecommerce.dto;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Item de pedido projetado com apenas os campos usados na agregação de vendas por produto.
+ */
+@Getter
+@AllArgsConstructor
+public class VendaItemDTO {
+    private LocalDateTime dataPedido;
+    private StatusPedido status;
+    private Long produtoId;
+    private Integer quantidade;
+    private BigDecimal precoUnitario;
+}
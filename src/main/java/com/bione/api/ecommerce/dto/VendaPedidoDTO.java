@@ -0,0 +1,19 @@
+package com.bione.api.ecommerce.dto;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pedido projetado com apenas os campos usados na agregação de vendas.
+ */
+@Getter
+@AllArgsConstructor
+public class VendaPedidoDTO {
+    private LocalDateTime dataPedido;
+    private StatusPedido status;
+    private BigDecimal total;
+}
@@ -0,0 +1,29 @@
+package com.bione.api.ecommerce.dto;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.VendasPeriodo;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VendasPeriodoDTO {
+    private LocalDateTime inicio;
+    private StatusPedido status;
+    private long quantidadePedidos;
+    private BigDecimal receita;
+
+    public static VendasPeriodoDTO fromEntity(VendasPeriodo vendas) {
+        return VendasPeriodoDTO.builder()
+                .inicio(vendas.getInicio())
+                .status(vendas.getStatus())
+                .quantidadePedidos(vendas.getQuantidadePedidos())
+                .receita(vendas.getReceita())
+                .build();
+    }
+}
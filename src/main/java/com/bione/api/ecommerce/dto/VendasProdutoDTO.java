@@ -0,0 +1,22 @@
+package com.bione.api.ecommerce.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VendasProdutoDTO {
+    private Long produtoId;
+    private String nome;
+    private long unidades;
+    private BigDecimal receita;
+
+    // Usado pela consulta agregada (o nome vem depois, do cache de produtos)
+    public VendasProdutoDTO(Long produtoId, Long unidades, BigDecimal receita) {
+        this(produtoId, null, unidades, receita);
+    }
+}
@@ -0,0 +1,64 @@
+package com.bione.api.ecommerce.enums;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+/**
+ * Formatos de corpo aceitos pela API, negociados pelo cabeçalho {@code Accept}.
+ * JSON é o padrão; CBOR e Smile são as versões binárias, mais compactas e mais baratas de gerar e ler.
+ */
+public enum FormatoResposta {
+    JSON(MediaType.APPLICATION_JSON, null),
+    CBOR(MediaType.APPLICATION_CBOR, "cbor"),
+    SMILE(MediaType.parseMediaType("application/x-jackson-smile"), "smile");
+
+    private final MediaType tipo;
+    private final String sufixoEtag;
+
+    FormatoResposta(MediaType tipo, String sufixoEtag) {
+        this.tipo = tipo;
+        this.sufixoEtag = sufixoEtag;
+    }
+
+    public MediaType getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Sufixo que diferencia a ETag deste formato da ETag do JSON (null para o JSON).
+     */
+    public String getSufixoEtag() {
+        return sufixoEtag;
+    }
+
+    /**
+     * Formato que o Spring escolherá para o {@code Accept} informado: o tipo de maior qualidade que
+     * inclua um dos formatos, com JSON para curingas ({@code *}/{@code *}) e na falta de cabeçalho.
+     */
+    public static FormatoResposta negociar(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        try {
+            List<MediaType> tipos = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(tipos);
+            for (MediaType aceito : tipos) {
+                if (aceito.getQualityValue() == 0) {
+                    continue;
+                }
+                for (FormatoResposta formato : values()) {
+                    if (aceito.includes(formato.tipo)) {
+                        return formato;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            return JSON;
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bione.api.ecommerce.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Tamanho dos períodos das tabelas de agregação de vendas.
+ */
+public enum Granularidade {
+    HORA(ChronoUnit.HOURS),
+    DIA(ChronoUnit.DAYS);
+
+    private final ChronoUnit unidade;
+
+    Granularidade(ChronoUnit unidade) {
+        this.unidade = unidade;
+    }
+
+    // Início do período que contém o instante informado
+    public LocalDateTime inicio(LocalDateTime instante) {
+        return instante.truncatedTo(unidade);
+    }
+
+    // Início do período seguinte
+    public LocalDateTime proximo(LocalDateTime inicio) {
+        return inicio.plus(1, unidade);
+    }
+}
@@ -0,0 +1,51 @@
+package com.bione.api.ecommerce.enums;
+
+import java.time.Duration;
+
+/**
+ * Janelas do ranking de produtos mais vendidos. Cada janela é dividida em baldes de tempo:
+ * a janela desliza de balde em balde, então cobre entre (baldes - 1) e baldes vezes a duração do balde.
+ */
+public enum JanelaVendas {
+    UMA_HORA("1h", Duration.ofMinutes(5), 12),
+    UM_DIA("24h", Duration.ofHours(1), 24),
+    SETE_DIAS("7d", Duration.ofHours(6), 28);
+
+    private final String codigo;
+    private final Duration duracaoBalde;
+    private final int baldes;
+
+    JanelaVendas(String codigo, Duration duracaoBalde, int baldes) {
+        this.codigo = codigo;
+        this.duracaoBalde = duracaoBalde;
+        this.baldes = baldes;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public Duration getDuracaoBalde() {
+        return duracaoBalde;
+    }
+
+    public int getBaldes() {
+        return baldes;
+    }
+
+    public Duration getDuracao() {
+        return duracaoBalde.multipliedBy(baldes);
+    }
+
+    /**
+     * @throws IllegalArgumentException se o código não for 1h, 24h ou 7d
+     */
+    public static JanelaVendas doCodigo(String codigo) {
+        for (JanelaVendas janela : values()) {
+            if (janela.codigo.equalsIgnoreCase(codigo)) {
+                return janela;
+            }
+        }
+        throw new IllegalArgumentException("Janela inválida: " + codigo);
+    }
+}
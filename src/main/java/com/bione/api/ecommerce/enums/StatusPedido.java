@@ -2,12 +2,35 @@ package com.bione.api.ecommerce.enums;
 
 import com.fasterxml.jackson.annotation.JsonValue;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum StatusPedido {
     EM_ANDAMENTO,
     FINALIZADO,
     CANCELADO,
     PENDENTE;
 
+    // Transições permitidas a partir de cada status (FINALIZADO e CANCELADO são finais)
+    private static final Map<StatusPedido, Set<StatusPedido>> TRANSICOES = new EnumMap<>(StatusPedido.class);
+
+    static {
+        TRANSICOES.put(PENDENTE, EnumSet.of(EM_ANDAMENTO, CANCELADO));
+        TRANSICOES.put(EM_ANDAMENTO, EnumSet.of(PENDENTE, FINALIZADO, CANCELADO));
+        TRANSICOES.put(FINALIZADO, EnumSet.noneOf(StatusPedido.class));
+        TRANSICOES.put(CANCELADO, EnumSet.noneOf(StatusPedido.class));
+    }
+
+    /**
+     * Indica se um pedido neste status pode passar para o status informado.
+     * Repetir o status atual não é uma transição (a atualização não tem efeito).
+     */
+    public boolean podeMudarPara(StatusPedido destino) {
+        return TRANSICOES.get(this).contains(destino);
+    }
+
     @JsonValue
     public String toValue() {
         return this.name();  // Retorna o nome do enum em formato string
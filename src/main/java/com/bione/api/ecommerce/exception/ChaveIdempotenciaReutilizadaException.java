@@ -0,0 +1,14 @@
+package com.bione.api.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY) // Retorna 422: a chave de idempotência já foi usada com outra requisição
+public class ChaveIdempotenciaReutilizadaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ChaveIdempotenciaReutilizadaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.bione.api.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT) // Retorna 409 Conflict: o registro foi alterado por outra requisição
+public class ConflitoConcorrenciaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConflitoConcorrenciaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
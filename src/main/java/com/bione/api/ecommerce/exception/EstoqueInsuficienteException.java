@@ -0,0 +1,21 @@
+package com.bione.api.ecommerce.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+
+@Getter
+@ResponseStatus(HttpStatus.CONFLICT) // Retorna 409 Conflict: o estoque mudou ou não é suficiente
+public class EstoqueInsuficienteException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Long> produtoIds; // Produtos sem estoque suficiente
+
+    public EstoqueInsuficienteException(String message, List<Long> produtoIds) {
+        super(message);
+        this.produtoIds = produtoIds;
+    }
+}
@@ -1,11 +1,13 @@
 package com.bione.api.ecommerce.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.stream.Collectors;
 
@@ -62,6 +64,36 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(erroPadraoDTO);
     }
 
+    // 🟠 Tratamento para parâmetros de URL com tipo inválido (exemplo: status de pedido inexistente)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErroPadraoDTO> handleTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        log.warn("Parâmetro inválido '{}': {}", ex.getName(), ex.getValue());
+
+        ErroPadraoDTO erroPadraoDTO = ErroPadraoDTO.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .mensagem("Parâmetro inválido")
+                .detalhes(ex.getName() + ": " + ex.getValue())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(erroPadraoDTO);
+    }
+
+    // 🟣 Tratamento para ServicoSobrecarregadoException (capacidade esgotada, 503 + Retry-After)
+    @ExceptionHandler(ServicoSobrecarregadoException.class)
+    public ResponseEntity<ErroPadraoDTO> handleServicoSobrecarregadoException(ServicoSobrecarregadoException ex) {
+        log.warn("Serviço sobrecarregado: {}", ex.getMessage());
+
+        ErroPadraoDTO erroPadraoDTO = ErroPadraoDTO.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .mensagem("Serviço temporariamente sobrecarregado")
+                .detalhes("Tente novamente em " + ex.getRetryAfterSegundos() + " segundos.")
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSegundos()))
+                .body(erroPadraoDTO);
+    }
+
     // 🔵 Tratamento de exceção genérica (Erros inesperados)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErroPadraoDTO> handleGenericException(Exception ex) {
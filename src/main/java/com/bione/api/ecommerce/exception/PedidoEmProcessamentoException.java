@@ -0,0 +1,19 @@
+package com.bione.api.ecommerce.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(HttpStatus.CONFLICT) // Retorna 409: a requisição com a mesma chave de idempotência ainda está em processamento
+public class PedidoEmProcessamentoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int retryAfterSegundos; // Valor sugerido para o cabeçalho Retry-After
+
+    public PedidoEmProcessamentoException(String message, int retryAfterSegundos) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+}
@@ -0,0 +1,19 @@
+package com.bione.api.ecommerce.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE) // Retorna 503: capacidade esgotada, tente novamente mais tarde
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int retryAfterSegundos; // Valor sugerido para o cabeçalho Retry-After
+
+    public ServicoSobrecarregadoException(String message, int retryAfterSegundos) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bione.api.ecommerce.exception;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(HttpStatus.CONFLICT) // Retorna 409 Conflict: a mudança não é permitida no status atual do pedido
+public class TransicaoStatusInvalidaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final StatusPedido atual;
+    private final StatusPedido destino;
+
+    public TransicaoStatusInvalidaException(StatusPedido atual, StatusPedido destino) {
+        super("Não é permitido mudar o status do pedido de " + atual + " para " + destino);
+        this.atual = atual;
+        this.destino = destino;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bione.api.ecommerce.model;
+
+/**
+ * Configuração compartilhada dos geradores de ID em tabela (pooled) usados pelas entidades
+ * inseridas em lote. Cada entidade tem uma linha em {@link #TABELA}, identificada pelo nome da sua tabela.
+ */
+public final class GeradorIds {
+
+    public static final String TABELA = "id_geradores";
+    public static final String COLUNA_NOME = "nome";
+    public static final String COLUNA_VALOR = "proximo_valor";
+
+    // Quantidade de IDs reservados por ida ao banco; deve ser igual ou maior que hibernate.jdbc.batch_size
+    public static final int TAMANHO_FAIXA = 50;
+
+    private GeradorIds() {
+    }
+}
@@ -0,0 +1,65 @@
+package com.bione.api.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resposta de uma criação de pedido já concluída, pela chave {@code Idempotency-Key} enviada pelo cliente.
+ * Gravada na mesma transação do pedido: ou os dois existem, ou nenhum.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotencia_pedido", indexes = @Index(name = "idx_idempotencia_data", columnList = "dataCriacao"))
+public class IdempotenciaPedido implements Persistable<String> {
+
+    @Id
+    @Column(length = 128)
+    private String chave;
+
+    // SHA-256 (hex) do corpo da requisição, para recusar a mesma chave com outro pedido
+    @Column(nullable = false, length = 64)
+    private String impressao;
+
+    @Column(nullable = false)
+    private Long pedidoId;
+
+    // PedidoDTO devolvido na primeira execução, em JSON
+    @Lob
+    @Column(nullable = false)
+    private String resposta;
+
+    @Column(nullable = false)
+    private LocalDateTime dataCriacao;
+
+    // Registros só são inseridos: o save vira sempre INSERT, e uma chave repetida viola a chave primária
+    @Transient
+    private boolean novo = true;
+
+    public IdempotenciaPedido(String chave, String impressao, Long pedidoId, String resposta, LocalDateTime dataCriacao) {
+        this.chave = chave;
+        this.impressao = impressao;
+        this.pedidoId = pedidoId;
+        this.resposta = resposta;
+        this.dataCriacao = dataCriacao;
+    }
+
+    @Override
+    public String getId() {
+        return chave;
+    }
+
+    @Override
+    public boolean isNew() {
+        return novo;
+    }
+
+    @PostLoad
+    void aoCarregar() {
+        novo = false;
+    }
+}
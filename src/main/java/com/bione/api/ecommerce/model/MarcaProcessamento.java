@@ -0,0 +1,25 @@
+package com.bione.api.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Até onde uma tarefa incremental já processou (watermark), por nome da tarefa.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "marca_processamento")
+public class MarcaProcessamento {
+
+    @Id
+    @Column(length = 50)
+    private String nome;
+
+    @Column(nullable = false)
+    private LocalDateTime valor;
+}
@@ -1,7 +1,9 @@
 package com.bione.api.ecommerce.model;
 
+import com.bione.api.ecommerce.enums.StatusPedido;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,14 +15,22 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+        @Index(name = "idx_pedidos_data_pedido", columnList = "dataPedido"),
+        @Index(name = "idx_pedidos_data_atualizacao", columnList = "data_atualizacao")
+})
 public class Pedido {
 
+    // IDs reservados em faixas (pooled) em vez de IDENTITY, que impede o Hibernate de agrupar INSERTs em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pedidos_id")
+    @TableGenerator(name = "pedidos_id", table = GeradorIds.TABELA, pkColumnName = GeradorIds.COLUNA_NOME,
+            valueColumnName = GeradorIds.COLUNA_VALOR, pkColumnValue = "pedidos",
+            allocationSize = GeradorIds.TAMANHO_FAIXA)
     private Long id;
 
-    @ManyToOne
+    // LAZY: as leituras de pedido só precisam do ID do cliente (disponível no proxy sem consulta)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cliente_id", nullable = false)
     private Cliente cliente;
 
@@ -33,7 +43,18 @@ public class Pedido {
     private BigDecimal total;
 
     private LocalDateTime dataPedido;  // Data do pedido
-    private String status;  // Status do pedido (ex: "Em andamento", "Finalizado")
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusPedido status;  // Status do pedido; mudanças seguem StatusPedido#podeMudarPara
+
+    // Criação ou última mudança de status: marca d'água da agregação incremental de vendas
+    @Column(name = "data_atualizacao")
+    private LocalDateTime dataAtualizacao;
+
+    // Controle de concorrência otimista: uma atualização feita sobre uma versão antiga falha em vez de sobrescrever
+    @Version
+    private long versao;
 
     // Campos de endereço do pedido
     private String rua;
@@ -79,12 +100,13 @@ public class Pedido {
 
     /**
      * Método para calcular o total do pedido com base nos produtos e quantidades.
-     * Executado antes de salvar (`@PrePersist`) e antes de atualizar (`@PreUpdate`).
+     * Executado apenas antes de salvar (`@PrePersist`), e só quando os itens já estão em memória:
+     * o total é o valor fechado na compra, e recalculá-lo a cada atualização carregaria
+     * todos os itens e produtos (com os preços atuais) a cada mudança de status.
      */
     @PrePersist
-    @PreUpdate
     public void calcularTotal() {
-        if (itensPedido != null && !itensPedido.isEmpty()) {
+        if (itensPedido != null && Hibernate.isInitialized(itensPedido) && !itensPedido.isEmpty()) {
             total = BigDecimal.ZERO;
             for (PedidoProduto item : itensPedido) {
                 total = total.add(item.getProduto().getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())));
@@ -4,6 +4,8 @@ import com.bione.api.ecommerce.dto.ProdutoDTO;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.math.BigDecimal;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -13,20 +15,29 @@ import lombok.*;
 @Table(name = "pedido_produto")
 public class PedidoProduto {
 
+    // IDs reservados em faixas (pooled) em vez de IDENTITY, que impede o Hibernate de agrupar INSERTs em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pedido_produto_id")
+    @TableGenerator(name = "pedido_produto_id", table = GeradorIds.TABELA, pkColumnName = GeradorIds.COLUNA_NOME,
+            valueColumnName = GeradorIds.COLUNA_VALOR, pkColumnValue = "pedido_produto",
+            allocationSize = GeradorIds.TAMANHO_FAIXA)
     private Long id;
 
-    @ManyToOne
+    // LAZY: quem precisa do produto o carrega junto na consulta (JOIN FETCH / grafo de entidade)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pedido_id", nullable = false)
     private Pedido pedido;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "produto_id", nullable = false)
     private Produto produto;
 
     private Integer quantidade;
 
+    // Preço do produto no momento da compra (nulo em itens anteriores a esta coluna)
+    @Column(name = "preco_unitario", precision = 10, scale = 2)
+    private BigDecimal precoUnitario;
+
     // ✅ Construtor necessário para corrigir o erro
     public PedidoProduto(Pedido pedido, Produto produto, Integer quantidade) {
         this.pedido = pedido;
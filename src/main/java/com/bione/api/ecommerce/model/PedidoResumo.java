@@ -0,0 +1,71 @@
+package com.bione.api.ecommerce.model;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resumo desnormalizado de um pedido (lado de leitura das telas de listagem).
+ * Mantido na mesma transação das escritas em pedidos, para que as listagens leiam
+ * uma única tabela indexada, sem junções com clientes, itens e produtos.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "pedido_resumo", indexes = {
+        @Index(name = "idx_pedido_resumo_status", columnList = "status, pedido_id"),
+        @Index(name = "idx_pedido_resumo_cliente", columnList = "cliente_id, pedido_id"),
+        @Index(name = "idx_pedido_resumo_cliente_status", columnList = "cliente_id, status, pedido_id")
+})
+public class PedidoResumo {
+
+    // Quantos nomes de produtos são guardados em primeirosItens
+    public static final int MAXIMO_NOMES_ITENS = 3;
+
+    @Id
+    @Column(name = "pedido_id")
+    private Long pedidoId;  // Mesmo ID do pedido (não gerado)
+
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    @Column(name = "cliente_nome", nullable = false)
+    private String clienteNome;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusPedido status;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal total;
+
+    @Column(name = "quantidade_itens", nullable = false)
+    private int quantidadeItens;  // Soma das quantidades de todos os itens
+
+    @Column(name = "primeiros_itens")
+    private String primeirosItens;  // Nomes dos primeiros produtos do pedido, separados por vírgula
+
+    @Column(name = "numero_rastreamento")
+    private String numeroRastreamento;
+
+    @Column(name = "data_pedido")
+    private LocalDateTime dataPedido;
+
+    // Usado pela consulta de reconstrução (os dados dos itens são preenchidos em seguida)
+    public PedidoResumo(Long pedidoId, Long clienteId, String clienteNome, StatusPedido status, BigDecimal total,
+                        String numeroRastreamento, LocalDateTime dataPedido) {
+        this.pedidoId = pedidoId;
+        this.clienteId = clienteId;
+        this.clienteNome = clienteNome;
+        this.status = status;
+        this.total = total;
+        this.numeroRastreamento = numeroRastreamento;
+        this.dataPedido = dataPedido;
+    }
+}
@@ -0,0 +1,58 @@
+package com.bione.api.ecommerce.model;
+
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Vendas agregadas por período (hora ou dia) e status atual dos pedidos: quantidade de pedidos e receita.
+ * Mantida pelo AgregadorVendas; os relatórios leem apenas esta tabela.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "vendas_periodo")
+@IdClass(VendasPeriodo.Chave.class)
+public class VendasPeriodo {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Granularidade granularidade;
+
+    @Id
+    private LocalDateTime inicio;  // Início da hora ou do dia
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private StatusPedido status;
+
+    @Column(name = "quantidade_pedidos", nullable = false)
+    private long quantidadePedidos;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal receita;
+
+    public void somar(long quantidadePedidos, BigDecimal receita) {
+        this.quantidadePedidos += quantidadePedidos;
+        this.receita = this.receita.add(receita);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private Granularidade granularidade;
+        private LocalDateTime inicio;
+        private StatusPedido status;
+    }
+}
@@ -0,0 +1,65 @@
+package com.bione.api.ecommerce.model;
+
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Unidades vendidas e receita por produto, período (hora ou dia) e status atual dos pedidos.
+ * Mantida pelo AgregadorVendas; os relatórios leem apenas esta tabela.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "vendas_produto_periodo", indexes = {
+        @Index(name = "idx_vendas_produto_periodo_inicio", columnList = "granularidade, inicio")
+})
+@IdClass(VendasProdutoPeriodo.Chave.class)
+public class VendasProdutoPeriodo {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Granularidade granularidade;
+
+    @Id
+    private LocalDateTime inicio;  // Início da hora ou do dia
+
+    @Id
+    @Column(name = "produto_id")
+    private Long produtoId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private StatusPedido status;
+
+    @Column(nullable = false)
+    private long unidades;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal receita;
+
+    public void somar(long unidades, BigDecimal receita) {
+        this.unidades += unidades;
+        this.receita = this.receita.add(receita);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private Granularidade granularidade;
+        private LocalDateTime inicio;
+        private Long produtoId;
+        private StatusPedido status;
+    }
+}
@@ -1,10 +1,13 @@
 package com.bione.api.ecommerce.repository;
 
+import com.bione.api.ecommerce.dto.ClienteExportacaoDTO;
 import com.bione.api.ecommerce.model.Cliente;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -21,4 +24,10 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     // Verifica se um telefone já está cadastrado
     @Query("SELECT COUNT(c) > 0 FROM Cliente c WHERE c.telefone = :telefone")
     boolean existsByTelefone(String telefone);
+
+    // Bloco de clientes para exportação: apenas as colunas exportadas (sem senha), ordenado por ID
+    @Query("SELECT new com.bione.api.ecommerce.dto.ClienteExportacaoDTO(" +
+            "c.id, c.nome, c.email, c.telefone, c.estado, c.cidade, c.bairro, c.complemento, c.rua, c.cep, c.numero) " +
+            "FROM Cliente c WHERE (:after IS NULL OR c.id > :after) ORDER BY c.id")
+    List<ClienteExportacaoDTO> findBlocoExportacao(Long after, Limit limit);
 }
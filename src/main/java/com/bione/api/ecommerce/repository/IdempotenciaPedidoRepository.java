@@ -0,0 +1,19 @@
+package com.bione.api.ecommerce.repository;
+
+import com.bione.api.ecommerce.model.IdempotenciaPedido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotenciaPedidoRepository extends JpaRepository<IdempotenciaPedido, String> {
+
+    // Remove as chaves mais antigas que o limite em um único DELETE (pelo índice de data_criacao)
+    @Modifying
+    @Query("DELETE FROM IdempotenciaPedido i WHERE i.dataCriacao < :limite")
+    int excluirAnterioresA(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,20 @@
+package com.bione.api.ecommerce.repository;
+
+import com.bione.api.ecommerce.model.MarcaProcessamento;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MarcaProcessamentoRepository extends JpaRepository<MarcaProcessamento, String> {
+
+    // SELECT ... FOR UPDATE: a marca fica bloqueada até o fim da transação (uma execução por vez entre instâncias)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MarcaProcessamento m WHERE m.nome = :nome")
+    Optional<MarcaProcessamento> findParaAtualizar(@Param("nome") String nome);
+}
@@ -1,9 +1,32 @@
 package com.bione.api.ecommerce.repository;
 
+import com.bione.api.ecommerce.dto.ItemPedidoDTO;
+import com.bione.api.ecommerce.dto.VendaItemDTO;
 import com.bione.api.ecommerce.model.PedidoProduto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PedidoProdutoRepository extends JpaRepository<PedidoProduto, Long> {
+
+    // Carrega, em uma única consulta, os itens (com os dados do produto) de um conjunto de pedidos,
+    // projetados direto em DTO, sem entidades gerenciadas
+    @Query("SELECT new com.bione.api.ecommerce.dto.ItemPedidoDTO(" +
+            "i.pedido.id, pr.id, pr.nome, pr.preco, pr.estoque, i.quantidade) " +
+            "FROM PedidoProduto i JOIN i.produto pr WHERE i.pedido.id IN :pedidoIds ORDER BY i.pedido.id, i.id")
+    List<ItemPedidoDTO> findItensDosPedidos(@Param("pedidoIds") Collection<Long> pedidoIds);
+
+    // Itens dos pedidos criados no intervalo [de, ate), para a agregação de vendas por produto.
+    // Itens gravados antes de preco_unitario existir usam o preço atual do produto
+    @Query("SELECT new com.bione.api.ecommerce.dto.VendaItemDTO(" +
+            "p.dataPedido, p.status, pr.id, i.quantidade, COALESCE(i.precoUnitario, pr.preco)) " +
+            "FROM PedidoProduto i JOIN i.pedido p JOIN i.produto pr " +
+            "WHERE p.dataPedido >= :de AND p.dataPedido < :ate")
+    List<VendaItemDTO> findVendasItensNoPeriodo(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
 }
@@ -1,23 +1,79 @@
 package com.bione.api.ecommerce.repository;
 
+import com.bione.api.ecommerce.dto.ContagemStatusDTO;
+import com.bione.api.ecommerce.dto.PedidoCabecalhoDTO;
+import com.bione.api.ecommerce.dto.RastreamentoPedidoDTO;
+import com.bione.api.ecommerce.dto.VendaPedidoDTO;
+import com.bione.api.ecommerce.enums.StatusPedido;
 import com.bione.api.ecommerce.model.Pedido;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Arrays;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
 
-    // Consulta para buscar pedidos com o status e seus itens carregados
-    @Query("SELECT p FROM Pedido p LEFT JOIN FETCH p.itensPedido WHERE (:status IS NULL OR p.status = :status)")
-    List<Pedido> findAllWithItens(@Param("status") String status);
+    // Quantidade de linhas trazidas do banco por ida ao servidor nas consultas em streaming
+    int TAMANHO_FETCH_EXPORTACAO = 500;
 
+    // Pedido com seus itens e os produtos dos itens em uma única consulta
+    @EntityGraph(attributePaths = {"itensPedido", "itensPedido.produto"})
+    Optional<Pedido> findComItensById(Long id);
 
-    // Consulta simples para buscar pedidos pelo status
-    @Query("SELECT p FROM Pedido p LEFT JOIN FETCH p.itensPedido WHERE p.status = :status")
-    List<Pedido> findByStatusWithItens(String status);
+    // Página de pedidos por cursor (keyset): apenas pedidos com ID maior que "after", sem os itens.
+    // Projeção direta em DTO: nenhuma entidade é criada nem fica sujeita a dirty checking
+    @Query("SELECT new com.bione.api.ecommerce.dto.PedidoCabecalhoDTO(" +
+            "p.id, p.cliente.id, p.total, p.dataPedido, p.status, p.rua, p.numero, p.bairro, p.cidade, p.estado, p.cep) " +
+            "FROM Pedido p " +
+            "WHERE (:status IS NULL OR p.status = :status) AND (:after IS NULL OR p.id > :after) " +
+            "ORDER BY p.id")
+    List<PedidoCabecalhoDTO> findPagina(@Param("status") StatusPedido status, @Param("after") Long after, Limit limit);
+
+    // Busca pelo índice único de numero_rastreamento, lendo só as colunas da projeção
+    @Query("SELECT new com.bione.api.ecommerce.dto.RastreamentoPedidoDTO(" +
+            "p.id, p.numeroRastreamento, p.status, p.dataPedido, p.dataAtualizacao, p.cidade, p.estado) " +
+            "FROM Pedido p WHERE p.numeroRastreamento = :codigo")
+    Optional<RastreamentoPedidoDTO> findRastreamento(@Param("codigo") String codigo);
+
+    // Quantidade e soma dos totais por status (base dos contadores em memória)
+    @Query("SELECT new com.bione.api.ecommerce.dto.ContagemStatusDTO(p.status, COUNT(p), COALESCE(SUM(p.total), 0)) " +
+            "FROM Pedido p GROUP BY p.status")
+    List<ContagemStatusDTO> contarPorStatus();
+
+    // Pedidos criados no intervalo [de, ate), com os campos usados na agregação de vendas
+    @Query("SELECT new com.bione.api.ecommerce.dto.VendaPedidoDTO(p.dataPedido, p.status, p.total) " +
+            "FROM Pedido p WHERE p.dataPedido >= :de AND p.dataPedido < :ate")
+    List<VendaPedidoDTO> findVendasNoPeriodo(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
+
+    // Horas (data de criação truncada) dos pedidos criados ou com status alterado após a marca (períodos a reagregar)
+    @Query("SELECT DISTINCT truncate(p.dataPedido, hour) FROM Pedido p WHERE p.dataAtualizacao > :marca")
+    List<LocalDateTime> findHorasPedidoAtualizadosApos(@Param("marca") LocalDateTime marca);
+
+    @Query("SELECT MIN(p.dataPedido) FROM Pedido p")
+    LocalDateTime findMenorDataPedido();
+
+    // Cursor somente-leitura, percorrido para frente, com fetch size fixo (exportação sem carregar tudo em memória)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TAMANHO_FETCH_EXPORTACAO),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Pedido p " +
+            "WHERE (:status IS NULL OR p.status = :status) " +
+            "AND (:de IS NULL OR p.dataPedido >= :de) AND (:ate IS NULL OR p.dataPedido < :ate) " +
+            "ORDER BY p.id")
+    Stream<Pedido> streamParaExportacao(@Param("status") StatusPedido status,
+                                        @Param("de") LocalDateTime de,
+                                        @Param("ate") LocalDateTime ate);
 }
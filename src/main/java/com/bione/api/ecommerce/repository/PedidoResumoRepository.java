@@ -0,0 +1,58 @@
+package com.bione.api.ecommerce.repository;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.PedidoResumo;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PedidoResumoRepository extends JpaRepository<PedidoResumo, Long> {
+
+    // Listagens por cursor: uma consulta por combinação de filtros, cada uma coberta por um índice
+    List<PedidoResumo> findByPedidoIdGreaterThanOrderByPedidoId(Long after, Limit limit);
+
+    List<PedidoResumo> findByStatusAndPedidoIdGreaterThanOrderByPedidoId(StatusPedido status, Long after, Limit limit);
+
+    List<PedidoResumo> findByClienteIdAndPedidoIdGreaterThanOrderByPedidoId(Long clienteId, Long after, Limit limit);
+
+    List<PedidoResumo> findByClienteIdAndStatusAndPedidoIdGreaterThanOrderByPedidoId(Long clienteId, StatusPedido status,
+                                                                                     Long after, Limit limit);
+
+    @Modifying
+    @Query("UPDATE PedidoResumo r SET r.status = :status WHERE r.pedidoId = :pedidoId")
+    int atualizarStatus(@Param("pedidoId") Long pedidoId, @Param("status") StatusPedido status);
+
+    @Modifying
+    @Query("UPDATE PedidoResumo r SET r.numeroRastreamento = :numeroRastreamento WHERE r.pedidoId = :pedidoId")
+    int atualizarRastreamento(@Param("pedidoId") Long pedidoId, @Param("numeroRastreamento") String numeroRastreamento);
+
+    @Modifying
+    @Query("DELETE FROM PedidoResumo r WHERE r.pedidoId > :after AND r.pedidoId <= :ate")
+    int removerFaixa(@Param("after") Long after, @Param("ate") Long ate);
+
+    // Resumos de pedidos que não existem mais, entre os IDs "after" (exclusivo) e "ate" (inclusivo)
+    @Modifying
+    @Query("DELETE FROM PedidoResumo r WHERE r.pedidoId > :after AND r.pedidoId <= :ate " +
+            "AND NOT EXISTS (SELECT p.id FROM Pedido p WHERE p.id = r.pedidoId)")
+    int removerOrfaos(@Param("after") Long after, @Param("ate") Long ate);
+
+    // Bloco de pedidos (com o nome do cliente) para a reconstrução, entre os IDs "after" (exclusivo) e "ate" (inclusivo).
+    // Lido com bloqueio compartilhado (FOR SHARE): mudanças de status e rastreamento nesses pedidos esperam
+    // o bloco ser regravado, em vez de serem sobrescritas com os valores lidos antes delas
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT new com.bione.api.ecommerce.model.PedidoResumo(" +
+            "p.id, c.id, c.nome, p.status, p.total, p.numeroRastreamento, p.dataPedido) " +
+            "FROM Pedido p JOIN p.cliente c WHERE p.id > :after AND p.id <= :ate ORDER BY p.id")
+    List<PedidoResumo> findBlocoReconstrucao(@Param("after") Long after, @Param("ate") Long ate, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Pedido p")
+    Long findMaiorIdPedido();
+}
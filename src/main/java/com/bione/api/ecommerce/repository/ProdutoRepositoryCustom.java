@@ -0,0 +1,21 @@
+package com.bione.api.ecommerce.repository;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProdutoRepositoryCustom {
+
+    /**
+     * Debita o estoque de vários produtos em um único lote de comandos, de forma atômica por linha
+     * ({@code UPDATE ... SET estoque = estoque - :q WHERE id = :id AND estoque >= :q}).
+     * @param quantidadesPorProduto Quantidade a debitar por ID de produto
+     * @return IDs dos produtos que não foram debitados (estoque insuficiente ou produto inexistente)
+     */
+    List<Long> debitarEstoque(Map<Long, Integer> quantidadesPorProduto);
+
+    /**
+     * Devolve ao estoque as quantidades informadas, em um único lote de comandos.
+     * @param quantidadesPorProduto Quantidade a creditar por ID de produto
+     */
+    void creditarEstoque(Map<Long, Integer> quantidadesPorProduto);
+}
@@ -0,0 +1,50 @@
+package com.bione.api.ecommerce.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class ProdutoRepositoryCustomImpl implements ProdutoRepositoryCustom {
+
+    private static final String SQL_DEBITAR_ESTOQUE =
+            "UPDATE produtos SET estoque = estoque - ? WHERE id = ? AND estoque >= ?";
+    private static final String SQL_CREDITAR_ESTOQUE =
+            "UPDATE produtos SET estoque = estoque + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> debitarEstoque(Map<Long, Integer> quantidadesPorProduto) {
+        // Ordena por ID para que transações concorrentes travem as linhas sempre na mesma ordem (evita deadlock)
+        List<Map.Entry<Long, Integer>> itens = new ArrayList<>(new TreeMap<>(quantidadesPorProduto).entrySet());
+
+        int[][] linhasAfetadas = jdbcTemplate.batchUpdate(SQL_DEBITAR_ESTOQUE, itens, itens.size(), (ps, item) -> {
+            ps.setInt(1, item.getValue());
+            ps.setLong(2, item.getKey());
+            ps.setInt(3, item.getValue());
+        });
+
+        List<Long> naoDebitados = new ArrayList<>();
+        for (int i = 0; i < itens.size(); i++) {
+            if (linhasAfetadas[0][i] == 0) {
+                naoDebitados.add(itens.get(i).getKey());
+            }
+        }
+        return naoDebitados;
+    }
+
+    @Override
+    public void creditarEstoque(Map<Long, Integer> quantidadesPorProduto) {
+        List<Map.Entry<Long, Integer>> itens = new ArrayList<>(new TreeMap<>(quantidadesPorProduto).entrySet());
+
+        jdbcTemplate.batchUpdate(SQL_CREDITAR_ESTOQUE, itens, itens.size(), (ps, item) -> {
+            ps.setInt(1, item.getValue());
+            ps.setLong(2, item.getKey());
+        });
+    }
+}
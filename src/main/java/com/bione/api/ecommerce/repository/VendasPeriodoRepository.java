@@ -0,0 +1,33 @@
+package com.bione.api.ecommerce.repository;
+
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.VendasPeriodo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VendasPeriodoRepository extends JpaRepository<VendasPeriodo, VendasPeriodo.Chave> {
+
+    // Períodos entre "de" (inclusivo) e "ate" (exclusivo), opcionalmente de um único status
+    @Query("SELECT v FROM VendasPeriodo v " +
+            "WHERE v.granularidade = :granularidade AND v.inicio >= :de AND v.inicio < :ate " +
+            "AND (:status IS NULL OR v.status = :status) " +
+            "ORDER BY v.inicio, v.status")
+    List<VendasPeriodo> findPeriodo(@Param("granularidade") Granularidade granularidade,
+                                    @Param("de") LocalDateTime de,
+                                    @Param("ate") LocalDateTime ate,
+                                    @Param("status") StatusPedido status);
+
+    @Modifying
+    @Query("DELETE FROM VendasPeriodo v WHERE v.granularidade = :granularidade AND v.inicio >= :de AND v.inicio < :ate")
+    int removerFaixa(@Param("granularidade") Granularidade granularidade,
+                     @Param("de") LocalDateTime de,
+                     @Param("ate") LocalDateTime ate);
+}
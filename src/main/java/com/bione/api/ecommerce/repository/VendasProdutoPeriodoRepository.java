@@ -0,0 +1,43 @@
+package com.bione.api.ecommerce.repository;
+
+import com.bione.api.ecommerce.dto.VendasProdutoDTO;
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.VendasProdutoPeriodo;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VendasProdutoPeriodoRepository extends JpaRepository<VendasProdutoPeriodo, VendasProdutoPeriodo.Chave> {
+
+    @Query("SELECT v FROM VendasProdutoPeriodo v " +
+            "WHERE v.granularidade = :granularidade AND v.inicio >= :de AND v.inicio < :ate")
+    List<VendasProdutoPeriodo> findPeriodo(@Param("granularidade") Granularidade granularidade,
+                                           @Param("de") LocalDateTime de,
+                                           @Param("ate") LocalDateTime ate);
+
+    // Unidades e receita por produto no intervalo, dos mais vendidos para os menos vendidos
+    @Query("SELECT new com.bione.api.ecommerce.dto.VendasProdutoDTO(v.produtoId, SUM(v.unidades), SUM(v.receita)) " +
+            "FROM VendasProdutoPeriodo v " +
+            "WHERE v.granularidade = :granularidade AND v.inicio >= :de AND v.inicio < :ate " +
+            "AND (:status IS NULL OR v.status = :status) " +
+            "GROUP BY v.produtoId ORDER BY SUM(v.unidades) DESC, v.produtoId")
+    List<VendasProdutoDTO> somarPorProduto(@Param("granularidade") Granularidade granularidade,
+                                           @Param("de") LocalDateTime de,
+                                           @Param("ate") LocalDateTime ate,
+                                           @Param("status") StatusPedido status,
+                                           Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM VendasProdutoPeriodo v WHERE v.granularidade = :granularidade AND v.inicio >= :de AND v.inicio < :ate")
+    int removerFaixa(@Param("granularidade") Granularidade granularidade,
+                     @Param("de") LocalDateTime de,
+                     @Param("ate") LocalDateTime ate);
+}
@@ -1,34 +1,56 @@
 package com.bione.api.ecommerce.service;
 
 import com.bione.api.ecommerce.dto.ClienteDTO;
+import com.bione.api.ecommerce.dto.ClienteExportacaoDTO;
 import com.bione.api.ecommerce.exception.ClienteNotFoundException;
 import com.bione.api.ecommerce.exception.ClienteInvalidException;
 import com.bione.api.ecommerce.model.Cliente;
 import com.bione.api.ecommerce.repository.ClienteRepository;
+import com.bione.api.ecommerce.service.metricas.MetricasOperacoes;
+import com.bione.api.ecommerce.service.senha.HashSenhaExecutor;
 import com.opencsv.CSVWriter;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class ClienteService {
 
+    // Quantidade de clientes lidos do banco e escritos no CSV por vez
+    private static final int TAMANHO_BLOCO_EXPORTACAO = 1000;
+
     @Autowired
     private ClienteRepository clienteRepository;
 
-    private final BCryptPasswordEncoder passwordEncoder;
+    @Autowired
+    private HashSenhaExecutor hashSenhaExecutor;
 
-    public ClienteService() {
-        this.passwordEncoder = new BCryptPasswordEncoder();
-    }
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Gravação no banco depois do hash: fora do pool do BCrypt, que tem uma thread por núcleo
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor executorGravacao;
+
+    @Autowired
+    private MetricasOperacoes metricas;
 
     // Método para listar todos os clientes
     public List<ClienteDTO> listarClientes() {
@@ -46,29 +68,61 @@ public class ClienteService {
     }
 
     // Método para salvar um novo cliente (incluindo criptografia de senha)
-    // ✅ Método para salvar um novo cliente
-    public ClienteDTO salvarCliente(ClienteDTO clienteDTO) {
-        validarCampos(clienteDTO);
-        verificarUnicidade(clienteDTO, null);
-
-        // ✅ Criptografando a senha antes de salvar no banco
-        if (clienteDTO.getSenha() != null) {
-            clienteDTO.setSenha(passwordEncoder.encode(clienteDTO.getSenha()));
+    // A validação roda na thread da requisição, a criptografia no executor de senhas
+    // e a gravação no executor de tarefas da aplicação
+    public CompletableFuture<ClienteDTO> salvarCliente(ClienteDTO clienteDTO) {
+        Timer.Sample amostra = metricas.iniciar();
+        CompletableFuture<String> senhaCriptografada;
+        try {
+            validarCampos(clienteDTO);
+            verificarUnicidade(clienteDTO, null);
+
+            // ✅ Criptografando a senha antes de salvar no banco
+            senhaCriptografada = hashSenhaExecutor.criptografar(clienteDTO.getSenha());
+        } catch (RuntimeException e) {
+            metricas.finalizar(amostra, MetricasOperacoes.SALVAR_CLIENTE, e);
+            throw e;
         }
 
-        Cliente cliente = new Cliente(clienteDTO);
-        clienteRepository.save(cliente);
-        return new ClienteDTO(cliente);
+        return senhaCriptografada
+                .thenApplyAsync(senha -> {
+                    clienteDTO.setSenha(senha);
+                    Cliente cliente = new Cliente(clienteDTO);
+                    clienteRepository.save(cliente);
+                    return new ClienteDTO(cliente);
+                }, executorGravacao)
+                .whenComplete((cliente, erro) -> {
+                    if (erro == null) {
+                        metricas.finalizar(amostra, MetricasOperacoes.SALVAR_CLIENTE, MetricasOperacoes.SUCESSO);
+                    } else {
+                        metricas.finalizar(amostra, MetricasOperacoes.SALVAR_CLIENTE, erro);
+                    }
+                });
     }
 
-    @Transactional
-    public ClienteDTO atualizarCliente(Long id, ClienteDTO clienteDTO) {
-        Cliente cliente = clienteRepository.findById(id)
-                .orElseThrow(() -> new ClienteNotFoundException("Cliente não encontrado"));
+    // Atualiza um cliente; a nova senha (se houver) é criptografada no executor de senhas
+    // e a atualização é gravada em uma transação própria, no executor de tarefas da aplicação
+    public CompletableFuture<ClienteDTO> atualizarCliente(Long id, ClienteDTO clienteDTO) {
+        if (!clienteRepository.existsById(id)) {
+            throw new ClienteNotFoundException("Cliente não encontrado");
+        }
 
         validarCampos(clienteDTO);
         verificarUnicidade(clienteDTO, id);
 
+        CompletableFuture<String> senhaCriptografada =
+                clienteDTO.getSenha() != null && !clienteDTO.getSenha().isEmpty()
+                        ? hashSenhaExecutor.criptografar(clienteDTO.getSenha())
+                        : CompletableFuture.completedFuture(null);
+
+        return senhaCriptografada.thenApplyAsync(senha ->
+                transactionTemplate.execute(status -> aplicarAtualizacao(id, clienteDTO, senha)), executorGravacao);
+    }
+
+    private ClienteDTO aplicarAtualizacao(Long id, ClienteDTO clienteDTO, String senhaCriptografada) {
+        Cliente cliente = clienteRepository.findById(id)
+                .orElseThrow(() -> new ClienteNotFoundException("Cliente não encontrado"));
+
         cliente.setNome(clienteDTO.getNome());
         cliente.setEmail(clienteDTO.getEmail());
         cliente.setTelefone(clienteDTO.getTelefone());
@@ -80,8 +134,8 @@ public class ClienteService {
         cliente.setCep(clienteDTO.getCep());
         cliente.setNumero(clienteDTO.getNumero());
 
-        if (clienteDTO.getSenha() != null && !clienteDTO.getSenha().isEmpty()) {
-            cliente.setSenha(passwordEncoder.encode(clienteDTO.getSenha()));
+        if (senhaCriptografada != null) {
+            cliente.setSenha(senhaCriptografada);
         }
 
         clienteRepository.save(cliente);
@@ -147,35 +201,66 @@ public class ClienteService {
         return cep != null && Pattern.matches("^\\d{5}-?\\d{3}$", cep);
     }
 
-    // Exportação de clientes para CSV
-    public void exportarClientesParaCSV(List<ClienteDTO> clientes, HttpServletResponse response) throws IOException {
-        response.setContentType("text/csv");
-        response.setCharacterEncoding("UTF-8");
-        response.setHeader("Content-Disposition", "attachment; filename=clientes.csv");
+    // Exportação de clientes para CSV em blocos (projeção sem senha), opcionalmente compactada com gzip
+    public void exportarClientesParaCSV(HttpServletResponse response, boolean gzip) throws IOException {
+        if (gzip) {
+            response.setContentType("application/gzip");
+            response.setHeader("Content-Disposition", "attachment; filename=clientes.csv.gz");
+        } else {
+            response.setContentType("text/csv");
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename=clientes.csv");
+        }
+
+        Timer.Sample amostra = metricas.iniciar();
+        try {
+            escreverClientesCSV(response, gzip);
+            metricas.finalizar(amostra, MetricasOperacoes.EXPORTAR_CLIENTES, MetricasOperacoes.SUCESSO);
+        } catch (IOException | RuntimeException e) {
+            metricas.finalizar(amostra, MetricasOperacoes.EXPORTAR_CLIENTES, e);
+            throw e;
+        }
+    }
+
+    private void escreverClientesCSV(HttpServletResponse response, boolean gzip) throws IOException {
+        // syncFlush: cada bloco descarregado chega ao cliente, sem esperar o fim da compactação
+        OutputStream saida = gzip
+                ? new GZIPOutputStream(response.getOutputStream(), 8192, true)
+                : response.getOutputStream();
 
         try (CSVWriter csvWriter = new CSVWriter(
-                new OutputStreamWriter(response.getOutputStream(), "UTF-8"),
+                new OutputStreamWriter(saida, StandardCharsets.UTF_8),
                 ';', CSVWriter.NO_QUOTE_CHARACTER,
                 CSVWriter.DEFAULT_ESCAPE_CHARACTER, CSVWriter.DEFAULT_LINE_END)) {
 
             String[] header = {"ID", "Nome", "Email", "Telefone", "Estado", "Cidade", "Bairro", "Complemento", "Rua", "CEP", "Número"};
             csvWriter.writeNext(header);
 
-            for (ClienteDTO cliente : clientes) {
-                csvWriter.writeNext(new String[]{
-                        cliente.getId() != null ? cliente.getId().toString() : "",
-                        cliente.getNome(),
-                        cliente.getEmail(),
-                        "=\"" + cliente.getTelefone() + "\"",
-                        cliente.getEstado(),
-                        cliente.getCidade(),
-                        cliente.getBairro(),
-                        cliente.getComplemento(),
-                        cliente.getRua(),
-                        cliente.getCep(),
-                        cliente.getNumero()
-                });
-            }
+            Long after = null;
+            List<ClienteExportacaoDTO> bloco;
+            do {
+                bloco = clienteRepository.findBlocoExportacao(after, Limit.of(TAMANHO_BLOCO_EXPORTACAO));
+                for (ClienteExportacaoDTO cliente : bloco) {
+                    csvWriter.writeNext(new String[]{
+                            cliente.getId().toString(),
+                            cliente.getNome(),
+                            cliente.getEmail(),
+                            "=\"" + cliente.getTelefone() + "\"",
+                            cliente.getEstado(),
+                            cliente.getCidade(),
+                            cliente.getBairro(),
+                            cliente.getComplemento(),
+                            cliente.getRua(),
+                            cliente.getCep(),
+                            cliente.getNumero()
+                    });
+                }
+                csvWriter.flush();
+
+                if (!bloco.isEmpty()) {
+                    after = bloco.get(bloco.size() - 1).getId();
+                }
+            } while (bloco.size() == TAMANHO_BLOCO_EXPORTACAO);
         }
     }
 }
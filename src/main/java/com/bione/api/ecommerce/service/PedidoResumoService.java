@@ -0,0 +1,179 @@
+package com.bione.api.ecommerce.service;
+
+import com.bione.api.ecommerce.dto.ItemPedidoDTO;
+import com.bione.api.ecommerce.dto.PaginaCursorDTO;
+import com.bione.api.ecommerce.dto.PedidoResumoDTO;
+import com.bione.api.ecommerce.dto.ProdutoDTO;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.Pedido;
+import com.bione.api.ecommerce.model.PedidoResumo;
+import com.bione.api.ecommerce.repository.PedidoProdutoRepository;
+import com.bione.api.ecommerce.repository.PedidoResumoRepository;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Mantém e consulta a tabela desnormalizada {@code pedido_resumo}.
+ * As atualizações exigem a transação da escrita no pedido ({@link Propagation#MANDATORY}),
+ * de modo que pedido e resumo são gravados (ou desfeitos) juntos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PedidoResumoService {
+
+    // Pedidos processados por transação na reconstrução
+    private static final int TAMANHO_BLOCO_RECONSTRUCAO = 1000;
+    private static final int TAMANHO_MAXIMO_NOMES = 255;
+
+    private final PedidoResumoRepository pedidoResumoRepository;
+    private final PedidoProdutoRepository pedidoProdutoRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final VersoesTabelas versoes;
+
+    /**
+     * Registra o resumo de um pedido recém-criado.
+     * @param produtos Dados dos produtos do pedido, por ID
+     * @param quantidades Quantidade por produto, na ordem dos itens do pedido
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Pedido pedido, Map<Long, ProdutoDTO> produtos, Map<Long, Integer> quantidades) {
+        PedidoResumo resumo = new PedidoResumo(pedido.getId(), pedido.getCliente().getId(), pedido.getCliente().getNome(),
+                pedido.getStatus(), pedido.getTotal(), pedido.getNumeroRastreamento(), pedido.getDataPedido());
+        preencherItens(resumo,
+                quantidades.keySet().stream().map(id -> produtos.get(id).getNome()).collect(Collectors.toList()),
+                quantidades.values().stream().mapToInt(Integer::intValue).sum());
+
+        // persist e não save: com ID atribuído, o save faria um SELECT (merge) antes do INSERT
+        entityManager.persist(resumo);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void atualizarStatus(Long pedidoId, StatusPedido status) {
+        gravarPedidoAntes();
+        pedidoResumoRepository.atualizarStatus(pedidoId, status);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void atualizarRastreamento(Long pedidoId, String numeroRastreamento) {
+        gravarPedidoAntes();
+        pedidoResumoRepository.atualizarRastreamento(pedidoId, numeroRastreamento);
+    }
+
+    // O UPDATE do pedido vai ao banco antes do resumo: a reconstrução bloqueia pedidos e depois resumos, e as
+    // duas ordens iguais evitam um deadlock entre ela e a escrita (o flush automático ignoraria o pedido aqui)
+    private void gravarPedidoAntes() {
+        entityManager.flush();
+    }
+
+    /**
+     * Lista resumos de pedidos por cursor, filtrando opcionalmente por status e/ou cliente.
+     * Cada combinação de filtros é uma consulta simples em {@code pedido_resumo}, coberta por um índice.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<PedidoResumoDTO> listar(StatusPedido status, Long clienteId, Long after, int limite) {
+        int tamanho = Math.max(1, Math.min(limite, PedidoService.LIMITE_MAXIMO));
+        long cursor = after != null ? after : 0L;
+        Limit limit = Limit.of(tamanho + 1); // Um a mais para saber se existe uma próxima página
+
+        List<PedidoResumo> resumos;
+        if (status != null && clienteId != null) {
+            resumos = pedidoResumoRepository.findByClienteIdAndStatusAndPedidoIdGreaterThanOrderByPedidoId(clienteId, status, cursor, limit);
+        } else if (status != null) {
+            resumos = pedidoResumoRepository.findByStatusAndPedidoIdGreaterThanOrderByPedidoId(status, cursor, limit);
+        } else if (clienteId != null) {
+            resumos = pedidoResumoRepository.findByClienteIdAndPedidoIdGreaterThanOrderByPedidoId(clienteId, cursor, limit);
+        } else {
+            resumos = pedidoResumoRepository.findByPedidoIdGreaterThanOrderByPedidoId(cursor, limit);
+        }
+
+        boolean temMais = resumos.size() > tamanho;
+        if (temMais) {
+            resumos = resumos.subList(0, tamanho);
+        }
+
+        Long proximoCursor = temMais ? resumos.get(resumos.size() - 1).getPedidoId() : null;
+        return new PaginaCursorDTO<>(resumos.stream().map(PedidoResumoDTO::fromEntity).collect(Collectors.toList()),
+                proximoCursor, tamanho);
+    }
+
+    /**
+     * Reconstrói a tabela de resumos a partir dos pedidos (carga inicial ou correção).
+     * Processa blocos de pedidos por ID, cada um em sua transação: a faixa do bloco é apagada e regravada
+     * de uma vez, então as listagens nunca veem a tabela vazia. Os pedidos do bloco ficam bloqueados
+     * ({@code FOR SHARE}) até o commit: uma mudança de status ou rastreamento concorrente espera e é
+     * aplicada sobre o resumo regravado, ou termina antes e já é lida pelo bloco. Pedidos criados durante
+     * a reconstrução já têm o resumo gravado pela própria criação e não são tocados.
+     * @return Quantidade de resumos gravados
+     */
+    public long reconstruir() {
+        Long ate = pedidoResumoRepository.findMaiorIdPedido();
+        log.info("Reconstruindo resumos de pedidos até o ID {}", ate);
+
+        long total = 0;
+        Long after = 0L;
+        while (true) {
+            Long cursor = after;
+            List<PedidoResumo> bloco = transactionTemplate.execute(status -> reconstruirBloco(cursor, ate));
+            if (bloco.isEmpty()) {
+                break;
+            }
+            total += bloco.size();
+            after = bloco.get(bloco.size() - 1).getPedidoId();
+        }
+
+        // Resumos de pedidos que não existem mais, depois do último bloco (sem tocar nos criados nesse meio-tempo)
+        Long ultimo = after;
+        transactionTemplate.executeWithoutResult(status -> pedidoResumoRepository.removerOrfaos(ultimo, ate));
+        versoes.registrarAlteracao(VersoesTabelas.Tabela.PEDIDOS);
+
+        log.info("{} resumos de pedidos reconstruídos", total);
+        return total;
+    }
+
+    private List<PedidoResumo> reconstruirBloco(Long after, Long ate) {
+        List<PedidoResumo> resumos = pedidoResumoRepository.findBlocoReconstrucao(after, ate, Limit.of(TAMANHO_BLOCO_RECONSTRUCAO));
+        if (resumos.isEmpty()) {
+            return resumos;
+        }
+
+        Map<Long, List<ItemPedidoDTO>> itensPorPedido = pedidoProdutoRepository.findItensDosPedidos(
+                        resumos.stream().map(PedidoResumo::getPedidoId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(ItemPedidoDTO::getPedidoId));
+
+        pedidoResumoRepository.removerFaixa(after, resumos.get(resumos.size() - 1).getPedidoId());
+        for (PedidoResumo resumo : resumos) {
+            List<ItemPedidoDTO> itens = itensPorPedido.getOrDefault(resumo.getPedidoId(), List.of());
+            preencherItens(resumo,
+                    itens.stream().map(ItemPedidoDTO::getNome).collect(Collectors.toList()),
+                    itens.stream().mapToInt(ItemPedidoDTO::getQuantidade).sum());
+            entityManager.persist(resumo);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return resumos;
+    }
+
+    private static void preencherItens(PedidoResumo resumo, List<String> nomes, int quantidadeItens) {
+        String primeiros = nomes.stream()
+                .limit(PedidoResumo.MAXIMO_NOMES_ITENS)
+                .collect(Collectors.joining(", "));
+        resumo.setPrimeirosItens(primeiros.length() > TAMANHO_MAXIMO_NOMES
+                ? primeiros.substring(0, TAMANHO_MAXIMO_NOMES)
+                : primeiros);
+        resumo.setQuantidadeItens(quantidadeItens);
+    }
+}
@@ -2,24 +2,54 @@ package com.bione.api.ecommerce.service;
 
 import com.bione.api.ecommerce.dto.*;
 import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.exception.ConflitoConcorrenciaException;
+import com.bione.api.ecommerce.exception.EstoqueInsuficienteException;
 import com.bione.api.ecommerce.exception.ResourceNotFoundException;
+import com.bione.api.ecommerce.exception.TransicaoStatusInvalidaException;
 import com.bione.api.ecommerce.model.*;
 import com.bione.api.ecommerce.repository.*;
+import com.bione.api.ecommerce.service.cache.ProdutoCache;
+import com.bione.api.ecommerce.service.cache.RastreamentoCache;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas.Tabela;
+import com.bione.api.ecommerce.service.estoque.ReservaEstoque;
+import com.bione.api.ecommerce.service.eventos.PedidoCriadoEvent;
+import com.bione.api.ecommerce.service.eventos.StatusPedidoAlteradoEvent;
+import com.bione.api.ecommerce.service.historico.HistoricoStatusBuffer;
+import com.bione.api.ecommerce.service.metricas.MetricasOperacoes;
+import com.bione.api.ecommerce.service.rastreamento.GeradorCodigoRastreamento;
+import com.bione.api.ecommerce.service.rastreamento.GeradorCodigoRastreamentoUuid;
 import com.opencsv.CSVWriter;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -28,178 +58,405 @@ public class PedidoService {
 
     private final PedidoRepository pedidoRepository;
     private final ClienteRepository clienteRepository;
-    private final ProdutoRepository produtoRepository;
-    private final StatusHistoryRepository statusHistoryRepository;
     private final PedidoProdutoRepository pedidoProdutoRepository;
-
-    // Método para mapear produtos
-    private List<ProdutoDTO> mapearProdutosParaDTO(List<PedidoProduto> itensPedido) {
-        return itensPedido.stream()
-                .map(item -> new ProdutoDTO(
-                        item.getProduto().getId(),
-                        item.getProduto().getNome(),
-                        item.getProduto().getPreco(),
-                        item.getProduto().getEstoque()
-                ))
+    private final EntityManager entityManager;
+    private final ReservaEstoque reservaEstoque;
+    private final ProdutoCache produtoCache;
+    private final MetricasOperacoes metricas;
+    private final PedidoResumoService pedidoResumoService;
+    private final HistoricoStatusBuffer historicoStatus;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventos;
+    private final VersoesTabelas versoes;
+    private final GeradorCodigoRastreamento geradorRastreamento;
+    private final RastreamentoCache rastreamentoCache;
+
+    // A cada quantas linhas o CSV é descarregado e o contexto de persistência é limpo
+    private static final int LOTE_EXPORTACAO = PedidoRepository.TAMANHO_FETCH_EXPORTACAO;
+
+    // Método para mapear produtos (o estoque informado já desconta a quantidade do item,
+    // pois o débito é feito pela ReservaEstoque e não passa pelo cache)
+    private List<ProdutoDTO> mapearProdutosParaDTO(Map<Long, ProdutoDTO> produtos, Map<Long, Integer> quantidades) {
+        return quantidades.entrySet().stream()
+                .map(item -> {
+                    ProdutoDTO produto = produtos.get(item.getKey());
+                    return new ProdutoDTO(
+                            produto.getId(),
+                            produto.getNome(),
+                            produto.getPreco(),
+                            produto.getEstoque() - item.getValue()
+                    );
+                })
                 .collect(Collectors.toList());
     }
 
 
-    public List<PedidoDTO> listarPedidos() {
-        log.info("Listando todos os pedidos...");
-        try {
-            // Passando o parâmetro status para a consulta
-            List<PedidoDTO> pedidos = pedidoRepository.findAllWithItens(null)  // Modificar conforme necessário
-                    .stream()
-                    .map(PedidoDTO::fromEntity)
-                    .collect(Collectors.toList());
-
-            if (pedidos.isEmpty()) {
-                log.warn("Nenhum pedido encontrado.");
-            }
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 500;
 
-            return pedidos;
+    // Tentativas de uma atualização idempotente de pedido quando outra requisição altera o mesmo pedido
+    private static final int MAXIMO_TENTATIVAS_ATUALIZACAO = 3;
+
+    // Tamanho da coluna numero_rastreamento: códigos maiores não existem no banco e não chegam ao cache
+    private static final int TAMANHO_MAXIMO_RASTREAMENTO = 255;
+
+    /**
+     * Lista pedidos paginados por cursor (ID do último pedido da página anterior).
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<PedidoDTO> listarPedidos(Long after, int limite) {
+        log.info("Listando pedidos após o ID {} (limite {})...", after, limite);
+        try {
+            return listarPagina(null, after, limite);
         } catch (Exception e) {
             log.error("Erro ao listar pedidos: {}", e.getMessage(), e);
             throw new ResourceNotFoundException("Erro ao listar pedidos", e);
         }
     }
 
+    /**
+     * Lista pedidos de um status paginados por cursor.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<PedidoDTO> listarPedidosPorStatus(StatusPedido status, Long after, int limite) {
+        log.info("Listando pedidos com status {} após o ID {} (limite {})", status, after, limite);
+        try {
+            return listarPagina(status, after, limite);
+        } catch (Exception e) {
+            log.error("Erro ao listar pedidos por status '{}': {}", status, e.getMessage(), e);
+            throw new ResourceNotFoundException("Erro ao listar pedidos com status: " + status, e);
+        }
+    }
 
+    // Busca uma página de pedidos e, em uma segunda consulta, apenas os itens desses pedidos.
+    // As duas consultas são projeções: os DTOs saem direto do ResultSet, sem entidades no contexto de persistência
+    private PaginaCursorDTO<PedidoDTO> listarPagina(StatusPedido status, Long after, int limite) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
 
+        // Busca um pedido a mais para saber se existe uma próxima página
+        List<PedidoCabecalhoDTO> pedidos = pedidoRepository.findPagina(status, after, Limit.of(tamanho + 1));
+        boolean temMais = pedidos.size() > tamanho;
+        if (temMais) {
+            pedidos = pedidos.subList(0, tamanho);
+        }
 
+        List<Long> ids = pedidos.stream().map(PedidoCabecalhoDTO::getId).collect(Collectors.toList());
+        Map<Long, List<ProdutoDTO>> produtosPorPedido = ids.isEmpty()
+                ? Map.of()
+                : pedidoProdutoRepository.findItensDosPedidos(ids).stream()
+                        .collect(Collectors.groupingBy(ItemPedidoDTO::getPedidoId,
+                                Collectors.mapping(ItemPedidoDTO::toProdutoDTO, Collectors.toList())));
 
+        List<PedidoDTO> itens = pedidos.stream()
+                .map(pedido -> PedidoDTO.fromProjecao(pedido, produtosPorPedido.getOrDefault(pedido.getId(), List.of())))
+                .collect(Collectors.toList());
 
+        Long proximoCursor = temMais ? ids.get(ids.size() - 1) : null;
+        return new PaginaCursorDTO<>(itens, proximoCursor, tamanho);
+    }
 
-
-    public List<PedidoDTO> listarPedidosPorStatus(String status) {
-        log.info("Listando pedidos com status: {}", status);
-        try {
-            // Usando o método findByStatusWithItens para garantir que os itens sejam carregados junto com o pedido
-            List<PedidoDTO> pedidos = pedidoRepository.findByStatusWithItens(status)
-                    .stream()
-                    .map(PedidoDTO::fromEntity)
-                    .collect(Collectors.toList());
-
-            if (pedidos.isEmpty()) {
-                log.warn("Nenhum pedido encontrado com status {}", status);
-            }
-
-            return pedidos;
-        } catch (Exception e) {
-            log.error("Erro ao listar pedidos por status '{}': {}", status, e.getMessage(), e);
-            throw new ResourceNotFoundException("Erro ao listar pedidos com status: " + status, e);
+    /**
+     * Situação de um pedido pelo número de rastreamento (consulta pelo índice único, com cache de TTL curto).
+     * Códigos fora do formato do gerador (e que não sejam UUID de pedidos antigos) nem chegam ao cache.
+     */
+    public RastreamentoPedidoDTO buscarPorRastreamento(String codigo) {
+        if (!rastreamentoAceito(codigo)) {
+            throw new ResourceNotFoundException("Pedido não encontrado para o rastreamento: " + codigo);
         }
+        return rastreamentoCache.buscar(codigo)
+                .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado para o rastreamento: " + codigo));
     }
 
+    // Formato do gerador atual ou UUID (pedidos criados antes do gerador temporal)
+    private boolean rastreamentoAceito(String codigo) {
+        if (codigo == null || codigo.isBlank() || codigo.length() > TAMANHO_MAXIMO_RASTREAMENTO) {
+            return false;
+        }
+        return geradorRastreamento.valido(codigo) || GeradorCodigoRastreamentoUuid.formatoValido(codigo);
+    }
 
-
-    // Atualiza o rastreamento de um pedido
-    @Transactional
+    // Atualiza o rastreamento de um pedido (definir o código é idempotente: repetido em caso de conflito)
     public PedidoDTO atualizarRastreamentoPedido(Long id, String numeroRastreamento) {
         log.info("Atualizando rastreamento do pedido ID: {}", id);
+        // Só códigos que a consulta por rastreamento aceita; os demais nunca seriam encontrados
+        if (!rastreamentoAceito(numeroRastreamento)) {
+            throw new IllegalArgumentException("Número de rastreamento inválido: " + numeroRastreamento);
+        }
         try {
-            Pedido pedido = pedidoRepository.findById(id)
-                    .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado"));
-
-            pedido.setNumeroRastreamento(numeroRastreamento);
-            pedidoRepository.save(pedido);
-            return PedidoDTO.fromEntity(pedido);
+            return comRetentativa(id, () -> transactionTemplate.execute(status -> {
+                Pedido pedido = pedidoRepository.findComItensById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado"));
+
+                // O código anterior deixa de apontar para o pedido; o novo pode estar em cache como inexistente
+                rastreamentoCache.invalidarAposCommit(pedido.getNumeroRastreamento(), numeroRastreamento);
+                pedido.setNumeroRastreamento(numeroRastreamento);
+                pedidoRepository.save(pedido);
+                pedidoResumoService.atualizarRastreamento(id, numeroRastreamento);
+                versoes.registrarAlteracao(Tabela.PEDIDOS);
+                return PedidoDTO.fromEntity(pedido);
+            }));
+        } catch (ConflitoConcorrenciaException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Erro ao atualizar rastreamento do pedido ID {}: {}", id, e.getMessage(), e);
             throw new ResourceNotFoundException("Erro ao atualizar rastreamento do pedido com ID: " + id, e);
         }
     }
 
-    // Cria um novo pedido
+    // Cria um novo pedido (cada fase é medida em ecommerce.pedido.criacao.fase)
     @Transactional
     public PedidoDTO criarPedido(@Valid PedidoRequestDTO pedidoRequestDTO) {
         log.info("Criando pedido para Cliente ID: {}", pedidoRequestDTO.getClienteId());
+        Timer.Sample amostra = metricas.iniciar();
 
         try {
-            Cliente cliente = clienteRepository.findById(pedidoRequestDTO.getClienteId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Cliente não encontrado"));
+            Cliente cliente = metricas.fase(MetricasOperacoes.FASE_CLIENTE, () ->
+                    clienteRepository.findById(pedidoRequestDTO.getClienteId())
+                            .orElseThrow(() -> new ResourceNotFoundException("Cliente não encontrado")));
 
-            List<Long> idsProdutos = pedidoRequestDTO.getProdutos().stream()
-                    .map(ProdutoQuantidadeDTO::getProdutoId)
-                    .collect(Collectors.toList());
+            Map<Long, Integer> quantidades = somarQuantidades(pedidoRequestDTO);
 
-            List<Produto> produtos = produtoRepository.findAllById(idsProdutos);
+            // Nome e preço vêm do cache do catálogo; só os produtos ausentes dele são buscados no banco
+            Map<Long, ProdutoDTO> produtos = metricas.fase(MetricasOperacoes.FASE_PRODUTOS, () ->
+                    produtoCache.buscarTodos(quantidades.keySet()));
 
-            if (produtos.size() != idsProdutos.size()) {
+            if (produtos.size() != quantidades.size()) {
                 throw new ResourceNotFoundException("Um ou mais produtos não foram encontrados");
             }
 
-            AtomicReference<BigDecimal> total = new AtomicReference<>(BigDecimal.ZERO);
+            // Débito condicional e atômico (no banco ou em memória, conforme ecommerce.estoque.modo):
+            // nenhum estoque fica abaixo de zero, mesmo com checkouts concorrentes
+            List<Long> semEstoque = metricas.fase(MetricasOperacoes.FASE_ESTOQUE, () ->
+                    reservaEstoque.reservar(quantidades));
+            if (!semEstoque.isEmpty()) {
+                throw estoqueInsuficiente(produtos, semEstoque);
+            }
 
-            List<PedidoProduto> itensPedido = produtos.stream()
-                    .map(produto -> {
-                        ProdutoQuantidadeDTO produtoQuantificado = pedidoRequestDTO.getProdutos().stream()
-                                .filter(p -> p.getProdutoId().equals(produto.getId()))
-                                .findFirst()
-                                .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado na lista"));
+            produtoCache.invalidarAposCommit(quantidades.keySet());
+            // O estoque debitado aparece na listagem de produtos e nos itens dos pedidos
+            versoes.registrarAlteracao(Tabela.PEDIDOS, Tabela.PRODUTOS);
 
-                        Integer quantidade = produtoQuantificado.getQuantidade();
+            // O flush faz o INSERT acontecer dentro da fase medida, e não só no commit
+            Pedido salvo = metricas.fase(MetricasOperacoes.FASE_PEDIDO_INSERT, () ->
+                    pedidoRepository.saveAndFlush(novoPedido(cliente, produtos, quantidades)));
 
-                        if (produto.getEstoque() < quantidade) {
-                            throw new IllegalArgumentException("Estoque insuficiente para o produto: " + produto.getNome());
-                        }
+            metricas.fase(MetricasOperacoes.FASE_ITENS_INSERT, () -> {
+                pedidoProdutoRepository.saveAll(montarItens(salvo, produtos, quantidades));
+                pedidoProdutoRepository.flush();
+            });
 
-                        produto.setEstoque(produto.getEstoque() - quantidade);
-                        produtoRepository.save(produto);
+            pedidoResumoService.registrar(salvo, produtos, quantidades);
+            publicarCriacao(salvo, quantidades);
 
-                        BigDecimal subtotal = produto.getPreco().multiply(BigDecimal.valueOf(quantidade));
-                        total.updateAndGet(t -> t.add(subtotal));
+            log.info("Pedido ID {} criado com sucesso", salvo.getId());
 
-                        return new PedidoProduto(null, produto, quantidade);
-                    })
-                    .collect(Collectors.toList());
+            PedidoDTO pedidoDTO = metricas.fase(MetricasOperacoes.FASE_DTO, () ->
+                    montarPedidoDTO(salvo, produtos, quantidades));
+            metricas.finalizarAposCommit(amostra, MetricasOperacoes.CRIAR_PEDIDO);
+            return pedidoDTO;
+        } catch (EstoqueInsuficienteException e) {
+            log.warn("Pedido não criado: {}", e.getMessage());
+            metricas.finalizar(amostra, MetricasOperacoes.CRIAR_PEDIDO, e);
+            throw e;
+        } catch (Exception e) {
+            log.error("Erro ao criar pedido: {}", e.getMessage(), e);
+            metricas.finalizar(amostra, MetricasOperacoes.CRIAR_PEDIDO, e);
+            throw new ResourceNotFoundException("Erro ao criar pedido", e);
+        }
+    }
 
-            Pedido pedido = new Pedido();
-            pedido.setCliente(cliente);
-            pedido.setTotal(total.get());
-            pedido.setDataPedido(LocalDateTime.now());
-            pedido.setStatus(StatusPedido.EM_ANDAMENTO.name());  // Alteração para usar o enum
-            pedido.setEnderecoEntrega(cliente.getEnderecoCompleto());
-            pedido.setNumeroRastreamento(generateTrackingCode());
+    /**
+     * Cria vários pedidos de uma vez, com resultado individual por pedido.
+     * Clientes e produtos são buscados em uma consulta cada, o estoque é debitado em grupo e os
+     * pedidos e itens são inseridos em lotes JDBC. Pedidos com cliente/produto inexistente ou sem
+     * estoque são recusados sem afetar os demais; uma falha de banco desfaz o lote inteiro.
+     * @param requisicoes Pedidos a criar
+     * @return Resultado de cada pedido, na mesma ordem da requisição
+     */
+    @Transactional
+    public List<ResultadoPedidoLoteDTO> criarPedidosEmLote(List<PedidoRequestDTO> requisicoes) {
+        log.info("Criando lote de {} pedidos", requisicoes.size());
+
+        Map<Long, Cliente> clientes = clienteRepository.findAllById(requisicoes.stream()
+                        .map(PedidoRequestDTO::getClienteId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Cliente::getId, Function.identity()));
+
+        Map<Long, ProdutoDTO> produtos = produtoCache.buscarTodos(requisicoes.stream()
+                .filter(requisicao -> requisicao.getProdutos() != null)
+                .flatMap(requisicao -> requisicao.getProdutos().stream())
+                .map(ProdutoQuantidadeDTO::getProdutoId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        ResultadoPedidoLoteDTO[] resultados = new ResultadoPedidoLoteDTO[requisicoes.size()];
+        Map<Integer, Map<Long, Integer>> quantidadesValidas = new LinkedHashMap<>();
+
+        for (int i = 0; i < requisicoes.size(); i++) {
+            String erro = validarRequisicaoLote(requisicoes.get(i), clientes, produtos);
+            if (erro != null) {
+                resultados[i] = ResultadoPedidoLoteDTO.falha(i, erro);
+            } else {
+                quantidadesValidas.put(i, somarQuantidades(requisicoes.get(i)));
+            }
+        }
 
-            Pedido salvo = pedidoRepository.save(pedido);
+        reservarEstoqueDoLote(quantidadesValidas, produtos, resultados);
+        produtoCache.invalidarAposCommit(produtos.keySet());
+        versoes.registrarAlteracao(Tabela.PEDIDOS, Tabela.PRODUTOS);
 
-            itensPedido.forEach(item -> item.setPedido(salvo));
+        List<Integer> indices = new ArrayList<>(quantidadesValidas.keySet());
+        List<Pedido> pedidos = indices.stream()
+                .map(indice -> novoPedido(clientes.get(requisicoes.get(indice).getClienteId()),
+                        produtos, quantidadesValidas.get(indice)))
+                .collect(Collectors.toList());
 
-            pedidoProdutoRepository.saveAll(itensPedido);
+        // Os IDs vêm de um gerador em faixas (pooled), o que permite ao Hibernate agrupar os INSERTs
+        List<Pedido> salvos = pedidoRepository.saveAll(pedidos);
+        List<PedidoProduto> todosItens = new ArrayList<>();
+        for (int i = 0; i < salvos.size(); i++) {
+            todosItens.addAll(montarItens(salvos.get(i), produtos, quantidadesValidas.get(indices.get(i))));
+        }
+        pedidoProdutoRepository.saveAll(todosItens);
+        for (int i = 0; i < salvos.size(); i++) {
+            pedidoResumoService.registrar(salvos.get(i), produtos, quantidadesValidas.get(indices.get(i)));
+            publicarCriacao(salvos.get(i), quantidadesValidas.get(indices.get(i)));
+        }
+        pedidoProdutoRepository.flush();
 
-            List<ProdutoDTO> produtoDTOs = mapearProdutosParaDTO(itensPedido);
+        for (int i = 0; i < salvos.size(); i++) {
+            int indice = indices.get(i);
+            resultados[indice] = ResultadoPedidoLoteDTO.sucesso(indice,
+                    montarPedidoDTO(salvos.get(i), produtos, quantidadesValidas.get(indice)));
+        }
 
-            log.info("Pedido ID {} criado com sucesso", salvo.getId());
+        log.info("Lote processado: {} de {} pedidos criados", salvos.size(), requisicoes.size());
+        return Arrays.asList(resultados);
+    }
 
-            return PedidoDTO.builder()
-                    .id(salvo.getId())
-                    .clienteId(salvo.getCliente().getId())
-                    .produtos(produtoDTOs)
-                    .total(salvo.getTotal())
-                    .dataPedido(salvo.getDataPedido())
-                    .status(StatusPedido.valueOf(salvo.getStatus()))  // Já está correto com enum
-                    .enderecoEntrega(salvo.getEnderecoEntrega())
-                    .rua(salvo.getRua())
-                    .numero(salvo.getNumero())
-                    .bairro(salvo.getBairro())
-                    .cidade(salvo.getCidade())
-                    .estado(salvo.getEstado())
-                    .cep(salvo.getCep())
-                    .build();
-        } catch (Exception e) {
-            log.error("Erro ao criar pedido: {}", e.getMessage(), e);
-            throw new ResourceNotFoundException("Erro ao criar pedido", e);
+    // Retorna a mensagem de erro de um pedido do lote, ou null se ele puder ser criado
+    private String validarRequisicaoLote(PedidoRequestDTO requisicao, Map<Long, Cliente> clientes,
+                                         Map<Long, ProdutoDTO> produtos) {
+        if (requisicao.getClienteId() == null || !clientes.containsKey(requisicao.getClienteId())) {
+            return "Cliente não encontrado";
+        }
+        if (requisicao.getProdutos() == null || requisicao.getProdutos().isEmpty()) {
+            return "A lista de produtos e quantidades não pode estar vazia";
+        }
+        for (ProdutoQuantidadeDTO item : requisicao.getProdutos()) {
+            if (item.getProdutoId() == null || !produtos.containsKey(item.getProdutoId())) {
+                return "Um ou mais produtos não foram encontrados";
+            }
+            if (item.getQuantidade() == null || item.getQuantidade() < 1) {
+                return "A quantidade deve ser no mínimo 1";
+            }
         }
+        return null;
     }
 
-    // Atualiza o status de um pedido
-    @Transactional
-    public PedidoDTO atualizarStatusPedido(Long id, StatusHistoryDTO statusDTO) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado"));
+    // Tenta debitar o estoque de todos os pedidos em um único grupo; se algum produto não tiver
+    // estoque para o lote inteiro, debita pedido a pedido, na ordem recebida, recusando os que não couberem
+    private void reservarEstoqueDoLote(Map<Integer, Map<Long, Integer>> quantidadesValidas,
+                                       Map<Long, ProdutoDTO> produtos, ResultadoPedidoLoteDTO[] resultados) {
+        if (quantidadesValidas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> totais = new HashMap<>();
+        quantidadesValidas.values().forEach(quantidades -> quantidades.forEach((id, q) -> totais.merge(id, q, Integer::sum)));
+        if (reservaEstoque.reservar(totais).isEmpty()) {
+            return;
+        }
+
+        Iterator<Map.Entry<Integer, Map<Long, Integer>>> iterator = quantidadesValidas.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Map<Long, Integer>> pedido = iterator.next();
+            List<Long> semEstoque = reservaEstoque.reservar(pedido.getValue());
+            if (!semEstoque.isEmpty()) {
+                String erro = estoqueInsuficiente(produtos, semEstoque).getMessage();
+                resultados[pedido.getKey()] = ResultadoPedidoLoteDTO.falha(pedido.getKey(), erro);
+                iterator.remove();
+            }
+        }
+    }
+
+    // Soma as quantidades caso o mesmo produto apareça mais de uma vez no pedido
+    private Map<Long, Integer> somarQuantidades(PedidoRequestDTO pedidoRequestDTO) {
+        return pedidoRequestDTO.getProdutos().stream()
+                .collect(Collectors.toMap(ProdutoQuantidadeDTO::getProdutoId, ProdutoQuantidadeDTO::getQuantidade,
+                        Integer::sum, LinkedHashMap::new));
+    }
+
+    private EstoqueInsuficienteException estoqueInsuficiente(Map<Long, ProdutoDTO> produtos, List<Long> semEstoque) {
+        String nomes = semEstoque.stream()
+                .map(id -> produtos.get(id).getNome())
+                .collect(Collectors.joining(", "));
+        return new EstoqueInsuficienteException("Estoque insuficiente para o(s) produto(s): " + nomes, semEstoque);
+    }
+
+    // Os itens referenciam o produto apenas pelo ID (referência sem SELECT), já que nome e preço vêm do cache
+    private List<PedidoProduto> montarItens(Pedido pedido, Map<Long, ProdutoDTO> produtos, Map<Long, Integer> quantidades) {
+        return quantidades.entrySet().stream()
+                .map(item -> {
+                    PedidoProduto pedidoProduto = new PedidoProduto(pedido,
+                            entityManager.getReference(Produto.class, item.getKey()), item.getValue());
+                    pedidoProduto.setPrecoUnitario(produtos.get(item.getKey()).getPreco());
+                    return pedidoProduto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Pedido novoPedido(Cliente cliente, Map<Long, ProdutoDTO> produtos, Map<Long, Integer> quantidades) {
+        BigDecimal total = quantidades.entrySet().stream()
+                .map(item -> produtos.get(item.getKey()).getPreco().multiply(BigDecimal.valueOf(item.getValue())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setTotal(total);
+        pedido.setDataPedido(LocalDateTime.now());
+        pedido.setDataAtualizacao(pedido.getDataPedido());
+        pedido.setStatus(StatusPedido.EM_ANDAMENTO);
+        pedido.setEnderecoEntrega(cliente.getEnderecoCompleto());
+        pedido.setNumeroRastreamento(generateTrackingCode());
+        return pedido;
+    }
+
+    // Entregue aos ouvintes só após o commit (@TransactionalEventListener)
+    private void publicarCriacao(Pedido pedido, Map<Long, Integer> quantidades) {
+        eventos.publishEvent(new PedidoCriadoEvent(pedido.getId(), pedido.getCliente().getId(),
+                pedido.getStatus(), pedido.getTotal(), pedido.getDataPedido(), Collections.unmodifiableMap(quantidades)));
+    }
 
+    private PedidoDTO montarPedidoDTO(Pedido salvo, Map<Long, ProdutoDTO> produtos, Map<Long, Integer> quantidades) {
+        return PedidoDTO.builder()
+                .id(salvo.getId())
+                .clienteId(salvo.getCliente().getId())
+                .produtos(mapearProdutosParaDTO(produtos, quantidades))
+                .total(salvo.getTotal())
+                .dataPedido(salvo.getDataPedido())
+                .status(salvo.getStatus())
+                .enderecoEntrega(salvo.getEnderecoEntrega())
+                .rua(salvo.getRua())
+                .numero(salvo.getNumero())
+                .bairro(salvo.getBairro())
+                .cidade(salvo.getCidade())
+                .estado(salvo.getEstado())
+                .cep(salvo.getCep())
+                .build();
+    }
+
+    /**
+     * Atualiza o status de um pedido, respeitando as transições de {@link StatusPedido}.
+     * Não há lock de linha: o {@code @Version} de Pedido detecta uma atualização concorrente e, como definir
+     * um status é idempotente, a operação é refeita sobre o estado novo (a transição é validada de novo).
+     * @throws TransicaoStatusInvalidaException se o status atual não permitir a mudança (409)
+     * @throws ConflitoConcorrenciaException se o pedido continuar sendo alterado após as tentativas (409)
+     */
+    public PedidoDTO atualizarStatusPedido(Long id, StatusHistoryDTO statusDTO) {
+        Timer.Sample amostra = metricas.iniciar();
         try {
             // Verifica se o status enviado é válido
             StatusPedido statusEnum = statusDTO.getStatus();
@@ -207,56 +464,122 @@ public class PedidoService {
                 throw new IllegalArgumentException("Status inválido: " + statusDTO.getStatus());
             }
 
-            // Atualiza o status do pedido
-            pedido.setStatus(statusEnum.name()); // Atualiza o status no pedido
-
-            // Salva o pedido atualizado
-            pedidoRepository.save(pedido);
-
-            // Registra o histórico de status
-            StatusHistory statusHistory = new StatusHistory();
-            statusHistory.setPedido(pedido);
-            statusHistory.setStatus(statusEnum); // Usando o status como enum
-            statusHistory.setDataAlteracao(LocalDateTime.now());
-            statusHistoryRepository.save(statusHistory);
-
-            return PedidoDTO.fromEntity(pedido);
+            PedidoDTO pedidoDTO = comRetentativa(id, () ->
+                    transactionTemplate.execute(status -> aplicarStatus(id, statusEnum)));
+            metricas.finalizarAposCommit(amostra, MetricasOperacoes.ATUALIZAR_STATUS);
+            return pedidoDTO;
+        } catch (ResourceNotFoundException | TransicaoStatusInvalidaException | ConflitoConcorrenciaException e) {
+            log.warn("Status do pedido ID {} não atualizado: {}", id, e.getMessage());
+            metricas.finalizar(amostra, MetricasOperacoes.ATUALIZAR_STATUS, e);
+            throw e;
         } catch (IllegalArgumentException e) {
             log.error("Erro ao atualizar status do pedido ID {}: {}", id, e.getMessage(), e);
+            metricas.finalizar(amostra, MetricasOperacoes.ATUALIZAR_STATUS, e);
             throw new IllegalArgumentException("Status inválido: " + statusDTO.getStatus(), e);
         } catch (Exception e) {
             log.error("Erro inesperado ao atualizar status do pedido ID {}: {}", id, e.getMessage(), e);
+            metricas.finalizar(amostra, MetricasOperacoes.ATUALIZAR_STATUS, e);
             throw new RuntimeException("Erro ao atualizar status do pedido", e);
         }
     }
 
-    // Gera código único para rastreamento
+    private PedidoDTO aplicarStatus(Long id, StatusPedido novoStatus) {
+        Pedido pedido = pedidoRepository.findComItensById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado"));
+
+        // Repetição do status atual (ex.: reenvio da transportadora): nada a gravar
+        if (pedido.getStatus() == novoStatus) {
+            return PedidoDTO.fromEntity(pedido);
+        }
+        if (!pedido.getStatus().podeMudarPara(novoStatus)) {
+            throw new TransicaoStatusInvalidaException(pedido.getStatus(), novoStatus);
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        StatusPedido statusAnterior = pedido.getStatus();
+        pedido.setStatus(novoStatus);
+        pedido.setDataAtualizacao(agora);
+        pedidoRepository.save(pedido);
+        pedidoResumoService.atualizarStatus(id, novoStatus);
+        versoes.registrarAlteracao(Tabela.PEDIDOS);
+        rastreamentoCache.invalidarAposCommit(pedido.getNumeroRastreamento());
+
+        // Registra o histórico de status: gravado em lote, de forma assíncrona, após o commit
+        historicoStatus.registrar(pedido.getId(), novoStatus, agora);
+        eventos.publishEvent(new StatusPedidoAlteradoEvent(pedido.getId(), pedido.getCliente().getId(),
+                statusAnterior, novoStatus, pedido.getTotal(), agora));
+
+        return PedidoDTO.fromEntity(pedido);
+    }
+
+    // Executa uma atualização idempotente de pedido (cada tentativa em sua própria transação),
+    // repetindo-a quando a versão do pedido mudou entre a leitura e o commit
+    private <T> T comRetentativa(Long pedidoId, Supplier<T> atualizacao) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return atualizacao.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (tentativa >= MAXIMO_TENTATIVAS_ATUALIZACAO) {
+                    throw new ConflitoConcorrenciaException(
+                            "O pedido " + pedidoId + " foi alterado por outra requisição; tente novamente", e);
+                }
+                log.info("Pedido ID {} alterado concorrentemente; nova tentativa ({}/{})",
+                        pedidoId, tentativa + 1, MAXIMO_TENTATIVAS_ATUALIZACAO);
+            }
+        }
+    }
+
+    // Gera código único para rastreamento (formato definido por ecommerce.rastreamento.gerador)
     public String generateTrackingCode() {
-        return UUID.randomUUID().toString();
+        return geradorRastreamento.gerar();
     }
 
-    // Exporta pedidos para CSV
-    public void exportarPedidosParaCSV(List<PedidoDTO> pedidos, HttpServletResponse response) throws IOException {
+    /**
+     * Exporta pedidos para CSV em streaming: cada linha é escrita assim que lida do cursor,
+     * e as entidades já exportadas são desanexadas periodicamente para manter o heap constante.
+     * @param status Status dos pedidos (nulo para todos)
+     * @param de Data/hora inicial (inclusiva), opcional
+     * @param ate Data/hora final (exclusiva), opcional
+     */
+    @Transactional(readOnly = true)
+    public void exportarPedidosParaCSV(StatusPedido status, LocalDateTime de, LocalDateTime ate,
+                                       HttpServletResponse response) throws IOException {
         response.setContentType("text/csv");
         response.setHeader("Content-Disposition", "attachment; filename=pedidos.csv");
+        Timer.Sample amostra = metricas.iniciar();
 
-        try (CSVWriter writer = new CSVWriter(response.getWriter())) {
+        try (Stream<Pedido> pedidos = pedidoRepository.streamParaExportacao(status, de, ate);
+             CSVWriter writer = new CSVWriter(new BufferedWriter(response.getWriter()))) {
             writer.writeNext(new String[]{"ID", "Cliente", "Status", "Total", "Data Pedido", "Endereço"});
 
-            for (PedidoDTO pedido : pedidos) {
+            long linhas = 0;
+            Iterator<Pedido> iterator = pedidos.iterator();
+            while (iterator.hasNext()) {
+                Pedido pedido = iterator.next();
                 writer.writeNext(new String[] {
                         String.valueOf(pedido.getId()),
-                        String.valueOf(pedido.getClienteId()),
-                        pedido.getStatus().toString(),  // Usa toString() para o enum
+                        String.valueOf(pedido.getCliente().getId()),
+                        pedido.getStatus().name(),
                         pedido.getTotal().toString(),
                         pedido.getDataPedido().toString(),
                         pedido.getRua() + ", " + pedido.getNumero() + ", " + pedido.getBairro() + ", " +
                                 pedido.getCidade() + ", " + pedido.getEstado() + ", " + pedido.getCep()
                 });
+
+                if (++linhas % LOTE_EXPORTACAO == 0) {
+                    writer.flush();
+                    entityManager.clear();
+                }
             }
+            log.info("{} pedidos exportados para CSV", linhas);
+            metricas.finalizar(amostra, MetricasOperacoes.EXPORTAR_PEDIDOS, MetricasOperacoes.SUCESSO);
         } catch (IOException e) {
             log.error("Erro ao exportar os pedidos para CSV: {}", e.getMessage());
+            metricas.finalizar(amostra, MetricasOperacoes.EXPORTAR_PEDIDOS, e);
             throw new IOException("Erro ao exportar os pedidos para CSV.", e);
+        } catch (RuntimeException e) {
+            metricas.finalizar(amostra, MetricasOperacoes.EXPORTAR_PEDIDOS, e);
+            throw e;
         }
     }
 }
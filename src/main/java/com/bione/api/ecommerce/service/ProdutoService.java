@@ -1,13 +1,21 @@
 package com.bione.api.ecommerce.service;
 
+import com.bione.api.ecommerce.dto.PaginaDTO;
 import com.bione.api.ecommerce.dto.ProdutoDTO;
 import com.bione.api.ecommerce.exception.ResourceNotFoundException;
 import com.bione.api.ecommerce.model.Produto;
 import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.bione.api.ecommerce.service.busca.IndiceTrigramaProdutos;
+import com.bione.api.ecommerce.service.cache.ProdutoCache;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas.Tabela;
+import com.bione.api.ecommerce.service.estoque.ReservaEstoque;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j  // Adiciona logs para monitoramento
@@ -16,43 +24,60 @@ import java.util.stream.Collectors;
 public class ProdutoService {
 
     private final ProdutoRepository produtoRepository;
+    private final ReservaEstoque reservaEstoque;
+    private final ProdutoCache produtoCache;
+    private final IndiceTrigramaProdutos indiceBusca;
+    private final VersoesTabelas versoes;
+
+    public static final int TAMANHO_MAXIMO_PAGINA_BUSCA = 100;
 
     /**
-     * Lista todos os produtos disponíveis
+     * Lista todos os produtos disponíveis (servido do cache do catálogo)
      * @return Lista de ProdutoDTO
      */
     public List<ProdutoDTO> listarProdutos() {
         log.info("Listando todos os produtos disponíveis...");
-        return produtoRepository.findAll()
-                .stream()
-                .map(produto -> new ProdutoDTO(
-                        produto.getId(),
-                        produto.getNome(),
-                        produto.getPreco(),
-                        produto.getEstoque()
-                ))
-                .collect(Collectors.toList());
+        return produtoCache.listar();
     }
 
     /**
-     * Busca um produto pelo ID
+     * Busca um produto pelo ID (servido do cache quando presente)
      * @param id ID do produto
      * @return ProdutoDTO correspondente
      * @throws ResourceNotFoundException Se o produto não for encontrado
      */
     public ProdutoDTO buscarProdutoPorId(Long id) {
         log.info("Buscando produto com ID: {}", id);
-        return produtoRepository.findById(id)
-                .map(produto -> new ProdutoDTO(
-                        produto.getId(),
-                        produto.getNome(),
-                        produto.getPreco(),
-                        produto.getEstoque()
-                ))
-                .orElseThrow(() -> {
-                    log.warn("Produto com ID {} não encontrado", id);
-                    return new ResourceNotFoundException("Produto não encontrado");
-                });
+        ProdutoDTO produto = produtoCache.buscar(id);
+        if (produto == null) {
+            log.warn("Produto com ID {} não encontrado", id);
+            throw new ResourceNotFoundException("Produto não encontrado");
+        }
+        return produto;
+    }
+
+    /**
+     * Busca produtos pelo nome no índice de trigramas em memória (ignora acentos e maiúsculas)
+     * @param consulta Texto digitado
+     * @param pagina Número da página (a partir de 0)
+     * @param tamanho Quantidade de produtos por página
+     * @return Página de produtos, do mais ao menos relevante
+     */
+    public PaginaDTO<ProdutoDTO> buscarProdutos(String consulta, int pagina, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA_BUSCA));
+        int numeroPagina = Math.max(0, pagina);
+
+        List<Long> ids = indiceBusca.buscar(consulta);
+        int inicio = (int) Math.min((long) numeroPagina * tamanhoPagina, ids.size());
+        List<Long> idsPagina = ids.subList(inicio, Math.min(inicio + tamanhoPagina, ids.size()));
+
+        Map<Long, ProdutoDTO> produtos = produtoCache.buscarTodos(idsPagina);
+        List<ProdutoDTO> itens = idsPagina.stream()
+                .map(produtos::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new PaginaDTO<>(itens, numeroPagina, tamanhoPagina, ids.size());
     }
 
     /**
@@ -69,6 +94,10 @@ public class ProdutoService {
         produto.setEstoque(produtoDTO.getEstoque());
 
         Produto salvo = produtoRepository.save(produto);
+        reservaEstoque.definirEstoque(salvo.getId(), salvo.getEstoque());
+        produtoCache.invalidar(salvo.getId());
+        versoes.registrarAlteracao(Tabela.PRODUTOS);
+        indiceBusca.indexar(salvo.getId(), salvo.getNome());
         log.info("Produto salvo com sucesso! ID: {}", salvo.getId());
 
         return new ProdutoDTO(salvo.getId(), salvo.getNome(), salvo.getPreco(), salvo.getEstoque());
@@ -95,6 +124,10 @@ public class ProdutoService {
         produto.setEstoque(produtoDTO.getEstoque());
 
         Produto atualizado = produtoRepository.save(produto);
+        reservaEstoque.definirEstoque(atualizado.getId(), atualizado.getEstoque());
+        produtoCache.invalidar(atualizado.getId());
+        versoes.registrarAlteracao(Tabela.PRODUTOS);
+        indiceBusca.indexar(atualizado.getId(), atualizado.getNome());
         log.info("Produto atualizado com sucesso! ID: {}", atualizado.getId());
 
         return new ProdutoDTO(atualizado.getId(), atualizado.getNome(), atualizado.getPreco(), atualizado.getEstoque());
@@ -112,6 +145,10 @@ public class ProdutoService {
             throw new ResourceNotFoundException("Produto não encontrado");
         }
         produtoRepository.deleteById(id);
+        reservaEstoque.remover(id);
+        produtoCache.invalidar(id);
+        versoes.registrarAlteracao(Tabela.PRODUTOS);
+        indiceBusca.remover(id);
         log.info("Produto com ID {} deletado com sucesso!", id);
     }
 }
@@ -0,0 +1,195 @@
+package com.bione.api.ecommerce.service.busca;
+
+import com.bione.api.ecommerce.dto.ProdutoDTO;
+import com.bione.api.ecommerce.service.cache.ProdutoCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Índice invertido de trigramas sobre o nome dos produtos, mantido em memória.
+ *
+ * <p>Os nomes são normalizados (sem acentos, minúsculos, só letras e números) e cada palavra gera os
+ * trigramas de {@code "  palavra "}; os espaços à esquerda fazem o início das palavras casar com
+ * consultas de 1 e 2 letras. A última palavra da consulta é tratada como prefixo (digitação em andamento).
+ * Um produto entra no resultado quando contém ao menos {@value #COBERTURA_MINIMA} dos trigramas da consulta,
+ * o que tolera pequenos erros de digitação.</p>
+ *
+ * <p>Leituras não usam lock; atualizações (raras) são serializadas.</p>
+ *
+ * <p>O índice é por instância: os cadastros feitos nesta instância o atualizam na hora, e os feitos em
+ * outras (ou direto no banco) só entram na sincronização periódica com o catálogo, a cada
+ * {@code ecommerce.busca.sincronizacao-ms}. Como o catálogo vem do {@link ProdutoCache}, a defasagem
+ * máxima é esse intervalo somado ao TTL do cache.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndiceTrigramaProdutos {
+
+    static final double COBERTURA_MINIMA = 0.6;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private final ProdutoCache produtoCache;
+
+    // Trigrama -> IDs dos produtos que o contêm
+    private final Map<String, Set<Long>> postagens = new ConcurrentHashMap<>();
+
+    // ID do produto -> trigramas indexados (para remover na atualização)
+    private final Map<Long, Set<String>> documentos = new ConcurrentHashMap<>();
+
+    /**
+     * Monta o índice com o catálogo completo na inicialização.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        sincronizar();
+        log.info("Índice de busca de produtos montado com {} produtos e {} trigramas", documentos.size(), postagens.size());
+    }
+
+    /**
+     * Acerta o índice com o catálogo atual: reindexa os nomes que mudaram e remove os produtos que
+     * não existem mais (alterações feitas por outras instâncias ou direto no banco).
+     * @return quantidade de produtos reindexados ou removidos
+     */
+    @Scheduled(initialDelayString = "${ecommerce.busca.sincronizacao-ms:300000}",
+            fixedDelayString = "${ecommerce.busca.sincronizacao-ms:300000}")
+    public synchronized int sincronizar() {
+        int alterados = 0;
+        Set<Long> existentes = new HashSet<>();
+        for (ProdutoDTO produto : produtoCache.listar()) {
+            existentes.add(produto.getId());
+            if (!trigramas(normalizar(produto.getNome()), false).equals(documentos.get(produto.getId()))) {
+                indexar(produto.getId(), produto.getNome());
+                alterados++;
+            }
+        }
+        for (Long produtoId : new ArrayList<>(documentos.keySet())) {
+            if (!existentes.contains(produtoId)) {
+                remover(produtoId);
+                alterados++;
+            }
+        }
+        if (alterados > 0) {
+            log.debug("Índice de busca de produtos sincronizado: {} produtos alterados", alterados);
+        }
+        return alterados;
+    }
+
+    /**
+     * Indexa (ou reindexa) o nome de um produto.
+     */
+    public synchronized void indexar(Long produtoId, String nome) {
+        remover(produtoId);
+        Set<String> trigramas = trigramas(normalizar(nome), false);
+        for (String trigrama : trigramas) {
+            postagens.computeIfAbsent(trigrama, t -> ConcurrentHashMap.newKeySet()).add(produtoId);
+        }
+        documentos.put(produtoId, trigramas);
+    }
+
+    /**
+     * Remove um produto do índice.
+     */
+    public synchronized void remover(Long produtoId) {
+        Set<String> anteriores = documentos.remove(produtoId);
+        if (anteriores == null) {
+            return;
+        }
+        for (String trigrama : anteriores) {
+            Set<Long> ids = postagens.get(trigrama);
+            if (ids != null) {
+                ids.remove(produtoId);
+            }
+        }
+    }
+
+    /**
+     * Busca produtos pelo nome, do mais ao menos relevante.
+     * @return IDs de todos os produtos encontrados, já ordenados
+     */
+    public List<Long> buscar(String consulta) {
+        boolean ultimaPalavraCompleta = !consulta.isEmpty() && Character.isWhitespace(consulta.charAt(consulta.length() - 1));
+        Set<String> trigramasConsulta = trigramas(normalizar(consulta), !ultimaPalavraCompleta);
+        if (trigramasConsulta.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> coincidencias = new HashMap<>();
+        for (String trigrama : trigramasConsulta) {
+            Set<Long> ids = postagens.get(trigrama);
+            if (ids != null) {
+                for (Long id : ids) {
+                    coincidencias.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        int minimo = (int) Math.ceil(trigramasConsulta.size() * COBERTURA_MINIMA);
+        List<Candidato> candidatos = new ArrayList<>();
+        coincidencias.forEach((id, quantidade) -> {
+            Set<String> documento = documentos.get(id);
+            if (quantidade >= minimo && documento != null) {
+                // Jaccard desempata: nomes mais próximos do tamanho da consulta vêm antes
+                double similaridade = (double) quantidade / (trigramasConsulta.size() + documento.size() - quantidade);
+                candidatos.add(new Candidato(id, quantidade, similaridade));
+            }
+        });
+
+        candidatos.sort(Comparator.comparingInt(Candidato::coincidencias).reversed()
+                .thenComparing(Comparator.comparingDouble(Candidato::similaridade).reversed())
+                .thenComparingLong(Candidato::id));
+        return candidatos.stream().map(Candidato::id).collect(Collectors.toList());
+    }
+
+    public int tamanho() {
+        return documentos.size();
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Trigramas de cada palavra; com ultimaComoPrefixo, a última palavra não recebe o espaço final
+    static Set<String> trigramas(String textoNormalizado, boolean ultimaComoPrefixo) {
+        Set<String> trigramas = new LinkedHashSet<>();
+        if (textoNormalizado.isEmpty()) {
+            return trigramas;
+        }
+        String[] palavras = textoNormalizado.split(" ");
+        for (int i = 0; i < palavras.length; i++) {
+            boolean prefixo = ultimaComoPrefixo && i == palavras.length - 1;
+            String palavra = "  " + palavras[i] + (prefixo ? "" : " ");
+            for (int inicio = 0; inicio + 3 <= palavra.length(); inicio++) {
+                trigramas.add(palavra.substring(inicio, inicio + 3));
+            }
+        }
+        return trigramas;
+    }
+
+    private record Candidato(Long id, int coincidencias, double similaridade) {
+    }
+}
@@ -0,0 +1,229 @@
+package com.bione.api.ecommerce.service.cache;
+
+import com.bione.api.ecommerce.dto.ProdutoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Resposta de {@code GET /api/produtos} já serializada em JSON e comprimida (gzip e deflate), guardada
+ * como um instantâneo imutável: a leitura só escolhe os bytes conforme o {@code Accept-Encoding}, sem
+ * montar DTOs, sem Jackson e sem banco.
+ *
+ * <p>A cada alteração de produtos (cadastro, edição, exclusão ou estoque debitado por um pedido) o
+ * instantâneo é refeito em segundo plano, por uma única thread; alterações que chegam durante uma
+ * reconstrução são agrupadas em uma só reconstrução seguinte. Até ela terminar, o instantâneo anterior
+ * continua sendo servido com a sua própria ETag, então um cliente nunca associa a ETag nova a dados velhos.</p>
+ */
+@Slf4j
+@Component
+public class CatalogoSerializado {
+
+    private final ProdutoCache produtoCache;
+    private final VersoesTabelas versoes;
+    private final ObjectMapper objectMapper;
+    private final Timer tempoReconstrucao;
+    private final ExecutorService reconstrucao =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("catalogo-serializado-"));
+
+    // true enquanto há uma reconstrução na fila que ainda não começou
+    private final AtomicBoolean agendada = new AtomicBoolean();
+    private volatile Instantaneo atual;
+
+    public CatalogoSerializado(ProdutoCache produtoCache, VersoesTabelas versoes, ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.produtoCache = produtoCache;
+        this.versoes = versoes;
+        this.objectMapper = objectMapper;
+        this.tempoReconstrucao = Timer.builder("ecommerce.catalogo.serializacao")
+                .description("Duração da montagem do catálogo serializado e comprimido")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        agendar();
+    }
+
+    @EventListener
+    public void aoAlterarTabela(TabelaAlteradaEvent evento) {
+        if (evento.getTabela() == VersoesTabelas.Tabela.PRODUTOS) {
+            agendar();
+        }
+    }
+
+    /**
+     * Instantâneo mais recente do catálogo; só é montado na thread da requisição se ainda não existir nenhum.
+     */
+    public Instantaneo atual() {
+        Instantaneo instantaneo = atual;
+        if (instantaneo == null) {
+            return reconstruir();
+        }
+        // Rede de segurança: versão mudou sem que a reconstrução tenha sido agendada
+        if (!instantaneo.etag().equals(versoes.etag(VersoesTabelas.Tabela.PRODUTOS))) {
+            agendar();
+        }
+        return instantaneo;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        reconstrucao.shutdown();
+        try {
+            reconstrucao.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void agendar() {
+        if (agendada.compareAndSet(false, true)) {
+            try {
+                reconstrucao.execute(() -> {
+                    // Liberado antes de ler os produtos: uma alteração durante a leitura agenda outra rodada
+                    agendada.set(false);
+                    try {
+                        reconstruir();
+                    } catch (RuntimeException e) {
+                        log.error("Falha ao montar o catálogo serializado (mantido o anterior): {}", e.getMessage(), e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                agendada.set(false);
+            }
+        }
+    }
+
+    private synchronized Instantaneo reconstruir() {
+        return tempoReconstrucao.record(() -> {
+            // A versão é lida antes dos produtos: os dados são no mínimo tão novos quanto a ETag
+            String etag = versoes.etag(VersoesTabelas.Tabela.PRODUTOS);
+            long ultimaAlteracao = versoes.ultimaAlteracao(VersoesTabelas.Tabela.PRODUTOS);
+            List<ProdutoDTO> produtos = produtoCache.listar();
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(produtos);
+                Instantaneo instantaneo = new Instantaneo(etag, ultimaAlteracao, produtos.size(), json,
+                        comprimir(json, new ByteArrayOutputStream(), true),
+                        comprimir(json, new ByteArrayOutputStream(), false));
+                atual = instantaneo;
+                log.debug("Catálogo serializado: {} produtos, {} bytes ({} gzip)",
+                        produtos.size(), json.length, instantaneo.gzip().length);
+                return instantaneo;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static byte[] comprimir(byte[] dados, ByteArrayOutputStream destino, boolean gzip) throws IOException {
+        try (OutputStream saida = gzip ? new GZIPOutputStream(destino) : new DeflaterOutputStream(destino)) {
+            saida.write(dados);
+        }
+        return destino.toByteArray();
+    }
+
+    /**
+     * Codificação do corpo negociada pelo {@code Accept-Encoding}.
+     */
+    public enum Codificacao {
+        GZIP("gzip"), DEFLATE("deflate"), IDENTIDADE("identity");
+
+        private final String nome;
+
+        Codificacao(String nome) {
+            this.nome = nome;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * Escolhe a codificação de maior {@code q} entre gzip e deflate (gzip no empate);
+         * sem cabeçalho ou sem nenhuma das duas aceita, o corpo vai sem compressão.
+         */
+        public static Codificacao escolher(String acceptEncoding) {
+            if (acceptEncoding == null || acceptEncoding.isBlank()) {
+                return IDENTIDADE;
+            }
+            // -1: não listada (vale o q do curinga "*", se houver)
+            double qGzip = -1;
+            double qDeflate = -1;
+            double qCuringa = 0;
+            for (String item : acceptEncoding.split(",")) {
+                String[] partes = item.split(";");
+                String nome = partes[0].trim().toLowerCase(Locale.ROOT);
+                double q = 1;
+                for (int i = 1; i < partes.length; i++) {
+                    String parametro = partes[i].trim();
+                    if (parametro.startsWith("q=")) {
+                        try {
+                            q = Double.parseDouble(parametro.substring(2));
+                        } catch (NumberFormatException e) {
+                            q = 0;
+                        }
+                    }
+                }
+                switch (nome) {
+                    case "gzip", "x-gzip" -> qGzip = q;
+                    case "deflate" -> qDeflate = q;
+                    case "*" -> qCuringa = q;
+                    default -> { }
+                }
+            }
+            qGzip = qGzip < 0 ? qCuringa : qGzip;
+            qDeflate = qDeflate < 0 ? qCuringa : qDeflate;
+            if (qGzip > 0 && qGzip >= qDeflate) {
+                return GZIP;
+            }
+            return qDeflate > 0 ? DEFLATE : IDENTIDADE;
+        }
+    }
+
+    /**
+     * Catálogo serializado em uma versão; os arrays são compartilhados entre as requisições e não
+     * devem ser modificados.
+     * @param etag ETag (forte) da versão de produtos em que foi montado
+     * @param quantidade Quantidade de produtos
+     */
+    public record Instantaneo(String etag, long ultimaAlteracao, int quantidade,
+                              byte[] json, byte[] gzip, byte[] deflate) {
+
+        public byte[] corpo(Codificacao codificacao) {
+            return switch (codificacao) {
+                case GZIP -> gzip;
+                case DEFLATE -> deflate;
+                case IDENTIDADE -> json;
+            };
+        }
+
+        /**
+         * ETag da representação: cada codificação tem bytes diferentes e, portanto, ETag própria.
+         */
+        public String etag(Codificacao codificacao) {
+            return codificacao == Codificacao.IDENTIDADE
+                    ? etag
+                    : etag.substring(0, etag.length() - 1) + "-" + codificacao.getNome() + "\"";
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.bione.api.ecommerce.service.cache;
+
+import com.bione.api.ecommerce.dto.ProdutoDTO;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cache de leitura do catálogo de produtos (por ID e lista completa), limitado por tamanho e por tempo.
+ * Toda escrita em produtos deve invalidar as entradas afetadas; a lista completa é descartada a cada escrita.
+ * Entre instâncias diferentes da aplicação, uma entrada pode ficar desatualizada por até o TTL configurado.
+ */
+@Component
+public class ProdutoCache {
+
+    private static final String CHAVE_CATALOGO = "todos";
+
+    private final ProdutoRepository produtoRepository;
+    private final LoadingCache<Long, ProdutoDTO> porId;
+    private final Cache<String, List<ProdutoDTO>> catalogo;
+
+    public ProdutoCache(ProdutoRepository produtoRepository,
+                        @Value("${ecommerce.cache.produtos.tamanho-maximo:10000}") long tamanhoMaximo,
+                        @Value("${ecommerce.cache.produtos.ttl:10m}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.produtoRepository = produtoRepository;
+        this.porId = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public ProdutoDTO load(Long id) {
+                        return produtoRepository.findById(id).map(ProdutoCache::paraDTO).orElse(null);
+                    }
+
+                    @Override
+                    public Map<Long, ProdutoDTO> loadAll(Set<? extends Long> ids) {
+                        // Uma única consulta para todos os IDs que não estavam no cache
+                        return produtoRepository.findAllById(List.copyOf(ids)).stream()
+                                .collect(Collectors.toMap(Produto::getId, ProdutoCache::paraDTO));
+                    }
+                });
+        this.catalogo = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        // Acertos, faltas, carregamentos e remoções (cache.gets, cache.puts, ...) com a tag cache=<nome>
+        CaffeineCacheMetrics.monitor(meterRegistry, porId, "produtos");
+        CaffeineCacheMetrics.monitor(meterRegistry, catalogo, "produtos_catalogo");
+    }
+
+    /**
+     * Busca um produto pelo ID, indo ao banco apenas se ele não estiver em memória.
+     * @return ProdutoDTO ou null se o produto não existir
+     */
+    public ProdutoDTO buscar(Long id) {
+        return porId.get(id);
+    }
+
+    /**
+     * Busca vários produtos; os ausentes do cache são carregados em uma única consulta.
+     * @return Produtos encontrados por ID (IDs inexistentes ficam de fora)
+     */
+    public Map<Long, ProdutoDTO> buscarTodos(Collection<Long> ids) {
+        return porId.getAll(ids);
+    }
+
+    /**
+     * Lista todos os produtos; a lista carregada também alimenta o cache por ID.
+     */
+    public List<ProdutoDTO> listar() {
+        return catalogo.get(CHAVE_CATALOGO, chave -> {
+            List<ProdutoDTO> produtos = produtoRepository.findAll().stream()
+                    .map(ProdutoCache::paraDTO)
+                    .collect(Collectors.toUnmodifiableList());
+            porId.putAll(produtos.stream().collect(Collectors.toMap(ProdutoDTO::getId, Function.identity())));
+            return produtos;
+        });
+    }
+
+    /**
+     * Remove um produto do cache (e a lista completa, que o contém).
+     */
+    public void invalidar(Long id) {
+        porId.invalidate(id);
+        catalogo.invalidateAll();
+    }
+
+    /**
+     * Remove os produtos do cache quando a transação atual for confirmada
+     * (imediatamente, se não houver transação ativa).
+     */
+    public void invalidarAposCommit(Collection<Long> ids) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> copia = List.copyOf(ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidarTodos(copia);
+                }
+            });
+        } else {
+            invalidarTodos(ids);
+        }
+    }
+
+    /**
+     * Estatísticas (acertos, faltas, remoções) do cache por ID.
+     */
+    public CacheStats estatisticas() {
+        return porId.stats();
+    }
+
+    /**
+     * Estatísticas do cache da lista completa.
+     */
+    public CacheStats estatisticasCatalogo() {
+        return catalogo.stats();
+    }
+
+    private void invalidarTodos(Collection<Long> ids) {
+        porId.invalidateAll(ids);
+        catalogo.invalidateAll();
+    }
+
+    private static ProdutoDTO paraDTO(Produto produto) {
+        return new ProdutoDTO(produto.getId(), produto.getNome(), produto.getPreco(), produto.getEstoque());
+    }
+}
@@ -0,0 +1,69 @@
+package com.bione.api.ecommerce.service.cache;
+
+import com.bione.api.ecommerce.dto.RastreamentoPedidoDTO;
+import com.bione.api.ecommerce.repository.PedidoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Cache da consulta pública por número de rastreamento, com TTL curto.
+ * Códigos inexistentes também ficam em cache (resultado vazio), para que consultas repetidas a códigos
+ * errados não cheguem ao banco. Mudanças de status e de código invalidam as entradas após o commit;
+ * entre instâncias diferentes, uma entrada pode ficar desatualizada por até o TTL.
+ */
+@Component
+public class RastreamentoCache {
+
+    private final PedidoRepository pedidoRepository;
+    private final Cache<String, Optional<RastreamentoPedidoDTO>> porCodigo;
+
+    public RastreamentoCache(PedidoRepository pedidoRepository,
+                             @Value("${ecommerce.cache.rastreamento.tamanho-maximo:100000}") long tamanhoMaximo,
+                             @Value("${ecommerce.cache.rastreamento.ttl:30s}") Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.pedidoRepository = pedidoRepository;
+        this.porCodigo = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, porCodigo, "rastreamento");
+    }
+
+    /**
+     * Situação do pedido com o número de rastreamento informado (vazio se não houver).
+     */
+    public Optional<RastreamentoPedidoDTO> buscar(String codigo) {
+        return porCodigo.get(codigo, pedidoRepository::findRastreamento);
+    }
+
+    /**
+     * Remove os códigos do cache quando a transação atual for confirmada
+     * (imediatamente, se não houver transação ativa). Códigos nulos são ignorados.
+     */
+    public void invalidarAposCommit(String... codigos) {
+        List<String> chaves = Arrays.stream(codigos).filter(Objects::nonNull).toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    porCodigo.invalidateAll(chaves);
+                }
+            });
+        } else {
+            porCodigo.invalidateAll(chaves);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.bione.api.ecommerce.service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado por {@link VersoesTabelas} a cada avanço de versão de uma tabela (inclusive o do fim da
+ * transação), para quem mantém dados derivados dela em memória.
+ */
+@Getter
+@AllArgsConstructor
+public class TabelaAlteradaEvent {
+    private final VersoesTabelas.Tabela tabela;
+}
@@ -0,0 +1,137 @@
+package com.bione.api.ecommerce.service.cache;
+
+import com.bione.api.ecommerce.enums.FormatoResposta;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de alteração por tabela, usados como validadores HTTP ({@code ETag} forte e
+ * {@code Last-Modified}) das listagens: um GET condicional é respondido com 304 comparando só esses
+ * valores, sem consultar o banco nem serializar a resposta.
+ *
+ * <p>A ETag combina a época de inicialização da aplicação com as versões das tabelas que a resposta lê,
+ * então uma ETag emitida antes de um reinício nunca coincide com uma nova. Cada escrita incrementa a
+ * versão duas vezes: ao ser registrada (dentro da transação) e ao fim da transação. Assim, uma resposta
+ * montada enquanto a escrita não estava visível nunca fica com a ETag definitiva.</p>
+ *
+ * <p>Os contadores são locais à instância, como o {@link ProdutoCache}: com várias instâncias, uma
+ * escrita feita em outra não é percebida aqui.</p>
+ *
+ * <p>Cada avanço de versão publica um {@link TabelaAlteradaEvent}.</p>
+ */
+@Component
+public class VersoesTabelas {
+
+    public enum Tabela { PRODUTOS, PEDIDOS }
+
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Tabela, Versao> versoes = new EnumMap<>(Tabela.class);
+    private final ApplicationEventPublisher eventos;
+
+    public VersoesTabelas(ApplicationEventPublisher eventos) {
+        this.eventos = eventos;
+        long inicio = System.currentTimeMillis();
+        for (Tabela tabela : Tabela.values()) {
+            versoes.put(tabela, new Versao(inicio));
+        }
+    }
+
+    /**
+     * Registra uma escrita nas tabelas; se houver transação ativa, a versão avança de novo ao fim dela.
+     */
+    public void registrarAlteracao(Tabela... tabelas) {
+        incrementar(tabelas);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    incrementar(tabelas);
+                }
+            });
+        }
+    }
+
+    /**
+     * ETag forte (entre aspas) das tabelas informadas, no formato {@code "<época>-<v1>.<v2>..."}.
+     */
+    public String etag(Tabela... tabelas) {
+        StringBuilder etag = new StringBuilder("\"").append(epoca).append('-');
+        for (int i = 0; i < tabelas.length; i++) {
+            if (i > 0) {
+                etag.append('.');
+            }
+            etag.append(Long.toString(versoes.get(tabelas[i]).numero.get(), 36));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Momento (epoch em milissegundos) da última alteração entre as tabelas informadas;
+     * antes da primeira escrita, é o momento da inicialização.
+     */
+    public long ultimaAlteracao(Tabela... tabelas) {
+        long ultima = 0;
+        for (Tabela tabela : tabelas) {
+            ultima = Math.max(ultima, versoes.get(tabela).ultimaAlteracao.get());
+        }
+        return ultima;
+    }
+
+    /**
+     * Avalia {@code If-None-Match} / {@code If-Modified-Since} da requisição contra as tabelas e
+     * preenche {@code ETag} e {@code Last-Modified} na resposta. Quando os dois cabeçalhos vêm, vale a
+     * ETag; o {@code If-Modified-Since} sozinho tem resolução de segundos e não distingue duas escritas
+     * no mesmo segundo. Cada formato negociado pelo {@code Accept} (JSON, CBOR, Smile) tem ETag própria.
+     * @return true se o cliente já tem a versão atual (a resposta 304 já está preparada)
+     */
+    public boolean naoModificado(WebRequest request, Tabela... tabelas) {
+        FormatoResposta formato = FormatoResposta.negociar(request.getHeader(HttpHeaders.ACCEPT));
+        HttpServletResponse response = request instanceof NativeWebRequest nativo
+                ? nativo.getNativeResponse(HttpServletResponse.class) : null;
+        if (response != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return request.checkNotModified(etag(formato, tabelas), ultimaAlteracao(tabelas));
+    }
+
+    /**
+     * ETag das tabelas para um formato de resposta: a do JSON com o sufixo do formato.
+     */
+    public String etag(FormatoResposta formato, Tabela... tabelas) {
+        String etag = etag(tabelas);
+        return formato.getSufixoEtag() == null
+                ? etag
+                : etag.substring(0, etag.length() - 1) + "-" + formato.getSufixoEtag() + "\"";
+    }
+
+    private void incrementar(Tabela... tabelas) {
+        long agora = System.currentTimeMillis();
+        for (Tabela tabela : tabelas) {
+            Versao versao = versoes.get(tabela);
+            versao.numero.incrementAndGet();
+            versao.ultimaAlteracao.accumulateAndGet(agora, Math::max);
+        }
+        for (Tabela tabela : tabelas) {
+            eventos.publishEvent(new TabelaAlteradaEvent(tabela));
+        }
+    }
+
+    private static final class Versao {
+        private final AtomicLong numero = new AtomicLong();
+        private final AtomicLong ultimaAlteracao;
+
+        private Versao(long inicio) {
+            this.ultimaAlteracao = new AtomicLong(inicio);
+        }
+    }
+}
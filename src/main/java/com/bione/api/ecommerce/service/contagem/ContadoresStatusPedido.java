@@ -0,0 +1,192 @@
+package com.bione.api.ecommerce.service.contagem;
+
+import com.bione.api.ecommerce.dto.ContagemStatusDTO;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.exception.ServicoSobrecarregadoException;
+import com.bione.api.ecommerce.repository.PedidoRepository;
+import com.bione.api.ecommerce.service.eventos.PedidoCriadoEvent;
+import com.bione.api.ecommerce.service.eventos.StatusPedidoAlteradoEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Quantidade de pedidos e soma dos totais por status, mantidas em memória.
+ *
+ * <p>Os contadores são carregados por uma consulta agregada na inicialização e, depois, atualizados
+ * pelos eventos de criação e de mudança de status após o commit; a leitura não consulta o banco.
+ * Uma reconciliação periódica refaz a consulta e corrige divergências (pedidos alterados fora da
+ * aplicação, eventos perdidos em uma queda). Os totais são somados em centavos.</p>
+ *
+ * <p>Durante a reconciliação, os eventos recebidos também são anotados à parte e somados ao resultado
+ * da consulta, que pode não enxergá-los. Um commit que aconteça no intervalo entre o início da anotação
+ * e o início da consulta é contado duas vezes; a próxima reconciliação desfaz essa diferença.</p>
+ */
+@Slf4j
+@Component
+public class ContadoresStatusPedido {
+
+    private final PedidoRepository pedidoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter divergencias;
+
+    private final Map<StatusPedido, Contador> contadores = novosContadores();
+
+    // Eventos recebidos enquanto a consulta de reconciliação está em andamento (null fora dela)
+    private volatile Map<StatusPedido, Contador> recebidosDuranteConsulta;
+
+    // Os eventos (leitura, concorrentes entre si) só são bloqueados durante a correção (escrita),
+    // para que nenhum esteja aplicado pela metade quando a diferença é calculada
+    private final ReadWriteLock lockCorrecao = new ReentrantReadWriteLock();
+
+    private volatile boolean carregado;
+
+    public ContadoresStatusPedido(PedidoRepository pedidoRepository, TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry) {
+        this.pedidoRepository = pedidoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.divergencias = meterRegistry.counter("ecommerce.contagem.divergencias");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        if (reconciliar()) {
+            log.info("Contadores de pedidos por status carregados: {}", contagem());
+        } else {
+            log.warn("Contadores de pedidos não carregados; nova tentativa na próxima reconciliação");
+        }
+    }
+
+    /**
+     * Quantidade e total por status, para todos os status (O(1): não consulta o banco).
+     * @throws ServicoSobrecarregadoException se os contadores ainda não foram carregados
+     */
+    public List<ContagemStatusDTO> contagem() {
+        if (!carregado) {
+            throw new ServicoSobrecarregadoException("Contadores de pedidos em carregamento", 1);
+        }
+        List<ContagemStatusDTO> resultado = new ArrayList<>();
+        contadores.forEach((status, contador) -> resultado.add(new ContagemStatusDTO(
+                status, contador.quantidade.sum(), BigDecimal.valueOf(contador.centavos.sum(), 2))));
+        return resultado;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoCriarPedido(PedidoCriadoEvent evento) {
+        long centavos = centavos(evento.getTotal());
+        aplicar(evento.getStatus(), 1, centavos);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarStatus(StatusPedidoAlteradoEvent evento) {
+        long centavos = centavos(evento.getTotal());
+        aplicar(evento.getStatusAnterior(), -1, -centavos);
+        aplicar(evento.getStatus(), 1, centavos);
+    }
+
+    /**
+     * Recalcula os contadores a partir do banco e corrige o que estiver diferente. A primeira execução
+     * que der certo libera a {@link #contagem()}; até lá, ela continua respondendo indisponível.
+     * @return se os contadores foram corrigidos a partir do banco
+     */
+    @Scheduled(initialDelayString = "${ecommerce.contagem.reconciliacao-ms:300000}",
+            fixedDelayString = "${ecommerce.contagem.reconciliacao-ms:300000}")
+    public synchronized boolean reconciliar() {
+        Map<StatusPedido, Contador> recebidos = novosContadores();
+        recebidosDuranteConsulta = recebidos;
+        try {
+            List<ContagemStatusDTO> banco = transactionTemplate.execute(status -> pedidoRepository.contarPorStatus());
+
+            Map<StatusPedido, Contador> esperados = novosContadores();
+            banco.forEach(linha -> {
+                esperados.get(linha.getStatus()).quantidade.add(linha.getQuantidade());
+                esperados.get(linha.getStatus()).centavos.add(centavos(linha.getTotal()));
+            });
+
+            // Corrige somando a diferença: banco + eventos recebidos durante a consulta - memória
+            lockCorrecao.writeLock().lock();
+            try {
+                recebidosDuranteConsulta = null;
+                corrigir(esperados, recebidos);
+                carregado = true;
+            } finally {
+                lockCorrecao.writeLock().unlock();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Falha ao reconciliar contadores de pedidos: {}", e.getMessage(), e);
+            return false;
+        } finally {
+            recebidosDuranteConsulta = null;
+        }
+    }
+
+    private void corrigir(Map<StatusPedido, Contador> esperados, Map<StatusPedido, Contador> recebidos) {
+        contadores.forEach((status, contador) -> {
+            long diferencaQuantidade = esperados.get(status).quantidade.sum()
+                    + recebidos.get(status).quantidade.sum() - contador.quantidade.sum();
+            long diferencaCentavos = esperados.get(status).centavos.sum()
+                    + recebidos.get(status).centavos.sum() - contador.centavos.sum();
+            if (diferencaQuantidade != 0 || diferencaCentavos != 0) {
+                if (carregado) {
+                    divergencias.increment();
+                    log.warn("Contador de pedidos {} divergente do banco: corrigindo {} pedido(s) e {} centavo(s)",
+                            status, diferencaQuantidade, diferencaCentavos);
+                }
+                contador.quantidade.add(diferencaQuantidade);
+                contador.centavos.add(diferencaCentavos);
+            }
+        });
+    }
+
+    private void aplicar(StatusPedido status, long quantidade, long centavos) {
+        lockCorrecao.readLock().lock();
+        try {
+            Contador contador = contadores.get(status);
+            contador.quantidade.add(quantidade);
+            contador.centavos.add(centavos);
+
+            Map<StatusPedido, Contador> recebidos = recebidosDuranteConsulta;
+            if (recebidos != null) {
+                recebidos.get(status).quantidade.add(quantidade);
+                recebidos.get(status).centavos.add(centavos);
+            }
+        } finally {
+            lockCorrecao.readLock().unlock();
+        }
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor == null ? 0 : valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static Map<StatusPedido, Contador> novosContadores() {
+        Map<StatusPedido, Contador> mapa = new EnumMap<>(StatusPedido.class);
+        for (StatusPedido status : StatusPedido.values()) {
+            mapa.put(status, new Contador());
+        }
+        return mapa;
+    }
+
+    private static final class Contador {
+        private final LongAdder quantidade = new LongAdder();
+        private final LongAdder centavos = new LongAdder();
+    }
+}
@@ -0,0 +1,29 @@
+package com.bione.api.ecommerce.service.estoque;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estratégia de reserva (débito) de estoque usada na criação de pedidos.
+ * Selecionada pela propriedade {@code ecommerce.estoque.modo} ({@code banco} ou {@code memoria}).
+ */
+public interface ReservaEstoque {
+
+    /**
+     * Reserva as quantidades informadas. A reserva é "tudo ou nada": se algum produto não tiver
+     * estoque suficiente, nenhum é debitado. Dentro de uma transação, a reserva é desfeita no rollback.
+     * @param quantidadesPorProduto Quantidade por ID de produto
+     * @return IDs dos produtos sem estoque suficiente (vazio quando a reserva foi feita)
+     */
+    List<Long> reservar(Map<Long, Integer> quantidadesPorProduto);
+
+    /**
+     * Informa o estoque definido pelo cadastro de produtos (criação ou atualização).
+     */
+    void definirEstoque(Long produtoId, int estoque);
+
+    /**
+     * Informa que o produto foi excluído.
+     */
+    void remover(Long produtoId);
+}
@@ -0,0 +1,47 @@
+package com.bione.api.ecommerce.service.estoque;
+
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reserva feita diretamente na tabela de produtos, com débito condicional e atômico por linha.
+ * O banco é a única fonte da verdade; o rollback da transação desfaz a reserva.
+ * Se parte dos produtos não puder ser debitada, os débitos já feitos são devolvidos na hora,
+ * para que a transação possa continuar (ex.: demais pedidos de um lote).
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ecommerce.estoque.modo", havingValue = "banco", matchIfMissing = true)
+public class ReservaEstoqueBanco implements ReservaEstoque {
+
+    private final ProdutoRepository produtoRepository;
+
+    @Override
+    public List<Long> reservar(Map<Long, Integer> quantidadesPorProduto) {
+        List<Long> naoDebitados = produtoRepository.debitarEstoque(quantidadesPorProduto);
+        if (!naoDebitados.isEmpty()) {
+            Map<Long, Integer> debitados = new HashMap<>(quantidadesPorProduto);
+            naoDebitados.forEach(debitados::remove);
+            if (!debitados.isEmpty()) {
+                produtoRepository.creditarEstoque(debitados);
+            }
+        }
+        return naoDebitados;
+    }
+
+    @Override
+    public void definirEstoque(Long produtoId, int estoque) {
+        // O estoque já está na tabela
+    }
+
+    @Override
+    public void remover(Long produtoId) {
+        // O estoque já está na tabela
+    }
+}
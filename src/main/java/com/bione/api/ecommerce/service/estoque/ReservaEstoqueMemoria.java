@@ -0,0 +1,265 @@
+package com.bione.api.ecommerce.service.estoque;
+
+import com.bione.api.ecommerce.service.cache.ProdutoCache;
+import com.bione.api.ecommerce.service.cache.VersoesTabelas;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reserva de estoque em memória, sem acessar o banco no caminho do checkout.
+ *
+ * <p>Cada produto tem um contador próprio, debitado por compare-and-set; produtos diferentes nunca
+ * disputam o mesmo lock. Os débitos confirmados (após o commit do pedido) são acumulados como deltas
+ * e gravados na tabela {@code produtos} de forma assíncrona, em lote. Na inicialização os contadores
+ * são carregados a partir da tabela.</p>
+ *
+ * <p>Como a tabela só muda na gravação dos deltas, e não no commit do pedido, cada gravação invalida
+ * os produtos afetados no {@link ProdutoCache} e avança a versão de produtos em {@link VersoesTabelas}:
+ * sem isso, o cache e o catálogo serializado poderiam recarregar o estoque anterior à gravação e
+ * mantê-lo sob uma ETag nova.</p>
+ *
+ * <p>Cada lote é gravado em uma transação (tudo ou nada): os deltas só voltam a ficar pendentes se ela
+ * for desfeita, para que nenhum débito já gravado seja aplicado de novo. Um estoque definido pelo
+ * cadastro espera a gravação em andamento e relê a linha gravada, para que contador e tabela partam
+ * do mesmo valor.</p>
+ *
+ * <p>Os contadores pertencem a esta instância: o modo só é seguro com uma única instância da
+ * aplicação atendendo checkouts. Deltas ainda não gravados são perdidos se o processo for morto.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ecommerce.estoque.modo", havingValue = "memoria")
+public class ReservaEstoqueMemoria implements ReservaEstoque {
+
+    private static final String SQL_CARREGAR_ESTOQUES = "SELECT id, estoque FROM produtos";
+    private static final String SQL_CARREGAR_ESTOQUE = "SELECT estoque FROM produtos WHERE id = ?";
+    private static final String SQL_GRAVAR_DELTA = "UPDATE produtos SET estoque = estoque - ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProdutoCache produtoCache;
+    private final VersoesTabelas versoes;
+
+    // Estoque disponível por produto
+    private final Map<Long, AtomicInteger> estoques = new ConcurrentHashMap<>();
+
+    // Quantidade já vendida (commit feito) e ainda não gravada na tabela, por produto
+    private final Map<Long, AtomicInteger> deltasPendentes = new ConcurrentHashMap<>();
+
+    // Uma gravação de deltas por vez; o cadastro de estoque espera a que estiver em andamento
+    private final Lock lockGravacao = new ReentrantLock();
+
+    /**
+     * Carrega os contadores a partir da tabela de produtos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliar() {
+        jdbcTemplate.query(SQL_CARREGAR_ESTOQUES, rs -> {
+            long produtoId = rs.getLong("id");
+            int pendente = deltaPendente(produtoId);
+            estoques.put(produtoId, new AtomicInteger(rs.getInt("estoque") - pendente));
+        });
+        log.info("Estoque em memória carregado para {} produtos", estoques.size());
+    }
+
+    @Override
+    public List<Long> reservar(Map<Long, Integer> quantidadesPorProduto) {
+        // Ordem de ID fixa para que reservas concorrentes desfaçam débitos sempre na mesma sequência
+        Map<Long, Integer> quantidades = new TreeMap<>(quantidadesPorProduto);
+        Map<Long, Integer> reservados = new TreeMap<>();
+
+        for (Map.Entry<Long, Integer> item : quantidades.entrySet()) {
+            AtomicInteger estoque = contador(item.getKey());
+            if (estoque == null || !debitar(estoque, item.getValue())) {
+                devolver(reservados);
+                return List.of(item.getKey());
+            }
+            reservados.put(item.getKey(), item.getValue());
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        acumularDeltas(reservados);
+                    } else {
+                        devolver(reservados);
+                    }
+                }
+            });
+        } else {
+            acumularDeltas(reservados);
+        }
+        return List.of();
+    }
+
+    @Override
+    public void definirEstoque(Long produtoId, int estoque) {
+        lockGravacao.lock();
+        try {
+            // O valor gravado pelo cadastro prevalece sobre as vendas ainda não gravadas. A linha é relida:
+            // uma gravação que já tinha retirado o delta pode ter debitado o valor do cadastro
+            deltasPendentes.remove(produtoId);
+            int gravado;
+            try {
+                gravado = jdbcTemplate.queryForObject(SQL_CARREGAR_ESTOQUE, Integer.class, produtoId);
+            } catch (EmptyResultDataAccessException e) {
+                estoques.remove(produtoId);
+                return;
+            }
+            if (gravado != estoque) {
+                log.warn("Estoque do produto {} definido como {}, mas a tabela tem {} após a gravação de vendas",
+                        produtoId, estoque, gravado);
+            }
+            estoques.computeIfAbsent(produtoId, id -> new AtomicInteger()).set(gravado);
+        } finally {
+            lockGravacao.unlock();
+        }
+    }
+
+    @Override
+    public void remover(Long produtoId) {
+        lockGravacao.lock();
+        try {
+            estoques.remove(produtoId);
+            deltasPendentes.remove(produtoId);
+        } finally {
+            lockGravacao.unlock();
+        }
+    }
+
+    /**
+     * Grava na tabela, em um único lote, os débitos acumulados desde a última execução.
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.estoque.memoria.intervalo-gravacao-ms:500}")
+    public void gravarDeltasPendentes() {
+        lockGravacao.lock();
+        try {
+            List<Object[]> deltas = new ArrayList<>();
+            deltasPendentes.forEach((produtoId, delta) -> {
+                int quantidade = delta.getAndSet(0);
+                if (quantidade != 0) {
+                    deltas.add(new Object[]{quantidade, produtoId});
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            int conclusao = gravarEmTransacao(deltas);
+            if (conclusao == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                for (Object[] delta : deltas) {
+                    acumularDelta((Long) delta[1], (Integer) delta[0]);
+                }
+                return;
+            }
+            if (conclusao == TransactionSynchronization.STATUS_UNKNOWN) {
+                // Não se sabe se o commit chegou ao banco: repetir poderia debitar duas vezes
+                log.error("Resultado desconhecido ao gravar débitos de estoque; conferir a tabela produtos: {}",
+                        deltas.stream().map(delta -> delta[1] + "=" + delta[0]).toList());
+            }
+
+            // O estoque gravado agora é o que as próximas leituras do banco devem trazer
+            for (Object[] delta : deltas) {
+                produtoCache.invalidar((Long) delta[1]);
+            }
+            versoes.registrarAlteracao(VersoesTabelas.Tabela.PRODUTOS);
+        } finally {
+            lockGravacao.unlock();
+        }
+    }
+
+    // Grava o lote em uma transação e devolve como ela terminou (TransactionSynchronization.STATUS_*)
+    private int gravarEmTransacao(List<Object[]> deltas) {
+        int[] conclusao = {TransactionSynchronization.STATUS_UNKNOWN};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int resultado) {
+                        conclusao[0] = resultado;
+                    }
+                });
+                jdbcTemplate.batchUpdate(SQL_GRAVAR_DELTA, deltas);
+            });
+        } catch (RuntimeException e) {
+            log.error("Erro ao gravar {} débitos de estoque; nova tentativa na próxima execução: {}",
+                    deltas.size(), e.getMessage(), e);
+        }
+        return conclusao[0];
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        gravarDeltasPendentes();
+    }
+
+    private AtomicInteger contador(Long produtoId) {
+        AtomicInteger estoque = estoques.get(produtoId);
+        if (estoque != null) {
+            return estoque;
+        }
+        // Produto cadastrado fora da aplicação depois da carga inicial
+        try {
+            Integer atual = jdbcTemplate.queryForObject(SQL_CARREGAR_ESTOQUE, Integer.class, produtoId);
+            return estoques.computeIfAbsent(produtoId, id -> new AtomicInteger(atual - deltaPendente(id)));
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    private static boolean debitar(AtomicInteger estoque, int quantidade) {
+        int atual;
+        do {
+            atual = estoque.get();
+            if (atual < quantidade) {
+                return false;
+            }
+        } while (!estoque.compareAndSet(atual, atual - quantidade));
+        return true;
+    }
+
+    private void devolver(Map<Long, Integer> reservados) {
+        reservados.forEach((produtoId, quantidade) -> {
+            AtomicInteger estoque = estoques.get(produtoId);
+            if (estoque != null) {
+                estoque.addAndGet(quantidade);
+            }
+        });
+    }
+
+    private void acumularDeltas(Map<Long, Integer> reservados) {
+        reservados.forEach(this::acumularDelta);
+    }
+
+    private void acumularDelta(Long produtoId, int quantidade) {
+        deltasPendentes.computeIfAbsent(produtoId, id -> new AtomicInteger()).addAndGet(quantidade);
+    }
+
+    private int deltaPendente(Long produtoId) {
+        AtomicInteger delta = deltasPendentes.get(produtoId);
+        return delta != null ? delta.get() : 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.bione.api.ecommerce.service.eventos;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Publicado na criação de um pedido. Os ouvintes devem usar {@code @TransactionalEventListener}
+ * para receber o evento apenas após o commit.
+ */
+@Getter
+@AllArgsConstructor
+public class PedidoCriadoEvent {
+    private final Long pedidoId;
+    private final Long clienteId;
+    private final StatusPedido status;
+    private final BigDecimal total;
+    private final LocalDateTime dataPedido;
+    private final Map<Long, Integer> quantidades;  // Quantidade por ID de produto
+}
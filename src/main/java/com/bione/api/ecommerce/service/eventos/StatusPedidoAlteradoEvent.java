@@ -0,0 +1,23 @@
+package com.bione.api.ecommerce.service.eventos;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Publicado quando o status de um pedido muda. Os ouvintes devem usar {@code @TransactionalEventListener}
+ * para receber o evento apenas após o commit.
+ */
+@Getter
+@AllArgsConstructor
+public class StatusPedidoAlteradoEvent {
+    private final Long pedidoId;
+    private final Long clienteId;
+    private final StatusPedido statusAnterior;
+    private final StatusPedido status;
+    private final BigDecimal total;
+    private final LocalDateTime dataAlteracao;
+}
@@ -0,0 +1,291 @@
+package com.bione.api.ecommerce.service.eventos;
+
+import com.bione.api.ecommerce.dto.EventoPedidoDTO;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.exception.ServicoSobrecarregadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transmite as criações e mudanças de status de pedidos para os assinantes de
+ * {@code GET /api/pedidos/eventos} (Server-Sent Events), substituindo o polling das listagens.
+ *
+ * <p>Os eventos chegam após o commit e recebem um número de sequência. Cada assinante tem um buffer
+ * limitado, esvaziado por um pool de threads de envio (no máximo uma tarefa por assinante); quem não
+ * consome rápido o bastante e enche o buffer é desconectado, sem atrasar os demais. Os últimos eventos
+ * ficam em um anel em memória para que uma reconexão com {@code Last-Event-ID} receba o que perdeu;
+ * se o anel não cobrir o intervalo, o assinante recebe {@value #RESSINCRONIZAR} e deve recarregar pela API.</p>
+ *
+ * <p>O ID enviado no SSE é {@code <época>-<sequência>}, com a época de inicialização da aplicação (como nas
+ * ETags de {@code VersoesTabelas}): a sequência recomeça a cada inicialização, e um ID de outra execução
+ * também leva a {@value #RESSINCRONIZAR}, em vez de um reenvio de eventos que não têm relação com ele.</p>
+ *
+ * <p>O stream é por instância: só transmite os pedidos criados e alterados nesta instância, e o anel só
+ * guarda os eventos dela. Atrás de um balanceador, o assinante não recebe o que foi feito nas demais e o
+ * {@code Last-Event-ID} não os recupera; uma reconexão que caia em outra instância recebe
+ * {@value #RESSINCRONIZAR} (a época é outra). Para um stream único seria preciso publicar os eventos em
+ * um canal compartilhado (ex.: um broker de mensagens) e numerá-los nele.</p>
+ */
+@Slf4j
+@Component
+public class TransmissorEventosPedido {
+
+    public static final String RESSINCRONIZAR = "ressincronizar";
+
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private final int capacidadeBuffer;
+    private final int maximoAssinantes;
+    private final long timeoutMs;
+    private final ExecutorService envio;
+
+    private final List<Assinante> assinantes = new CopyOnWriteArrayList<>();
+
+    // Protege a sequência, o anel e a entrega aos buffers: um assinante novo nunca perde
+    // nem recebe em duplicidade um evento publicado durante o seu replay
+    private final Object lock = new Object();
+    private final EventoPedidoDTO[] anel;
+    private long sequencia;
+
+    private final Counter publicados;
+    private final MeterRegistry meterRegistry;
+
+    public TransmissorEventosPedido(MeterRegistry meterRegistry,
+                                    @Value("${ecommerce.eventos.buffer-assinante:256}") int capacidadeBuffer,
+                                    @Value("${ecommerce.eventos.replay-capacidade:1000}") int capacidadeReplay,
+                                    @Value("${ecommerce.eventos.maximo-assinantes:500}") int maximoAssinantes,
+                                    @Value("${ecommerce.eventos.timeout-ms:1800000}") long timeoutMs,
+                                    @Value("${ecommerce.eventos.threads-envio:4}") int threadsEnvio) {
+        this.capacidadeBuffer = capacidadeBuffer;
+        this.maximoAssinantes = maximoAssinantes;
+        this.timeoutMs = timeoutMs;
+        this.anel = new EventoPedidoDTO[capacidadeReplay];
+        this.envio = Executors.newFixedThreadPool(threadsEnvio, new CustomizableThreadFactory("eventos-pedido-"));
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("ecommerce.eventos.assinantes", assinantes, List::size)
+                .description("Conexões SSE abertas em /api/pedidos/eventos")
+                .register(meterRegistry);
+        this.publicados = meterRegistry.counter("ecommerce.eventos.publicados");
+    }
+
+    /**
+     * Abre uma assinatura filtrada por status e/ou cliente (nulos = todos).
+     * @param ultimoEventoId valor de {@code Last-Event-ID} enviado na reconexão ({@code <época>-<sequência>}), ou null
+     * @throws ServicoSobrecarregadoException se o limite de conexões abertas foi atingido
+     */
+    public SseEmitter assinar(StatusPedido status, Long clienteId, String ultimoEventoId) {
+        if (assinantes.size() >= maximoAssinantes) {
+            throw new ServicoSobrecarregadoException("Limite de assinantes de eventos atingido", 5);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Assinante assinante = new Assinante(emitter, status, clienteId, new ArrayBlockingQueue<>(capacidadeBuffer));
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(() -> encerrar(assinante, "timeout"));
+        emitter.onError(erro -> encerrar(assinante, "erro"));
+
+        synchronized (lock) {
+            if (ultimoEventoId != null) {
+                reenviar(assinante, ultimoEventoId);
+            }
+            assinantes.add(assinante);
+        }
+        log.info("Assinante de eventos conectado (status {}, cliente {}, último evento {})",
+                status, clienteId, ultimoEventoId);
+        agendarEnvio(assinante);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoCriarPedido(PedidoCriadoEvent evento) {
+        publicar(EventoPedidoDTO.builder()
+                .tipo(EventoPedidoDTO.PEDIDO_CRIADO)
+                .pedidoId(evento.getPedidoId())
+                .clienteId(evento.getClienteId())
+                .status(evento.getStatus())
+                .total(evento.getTotal())
+                .data(evento.getDataPedido())
+                .build());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarStatus(StatusPedidoAlteradoEvent evento) {
+        publicar(EventoPedidoDTO.builder()
+                .tipo(EventoPedidoDTO.STATUS_ALTERADO)
+                .pedidoId(evento.getPedidoId())
+                .clienteId(evento.getClienteId())
+                .statusAnterior(evento.getStatusAnterior())
+                .status(evento.getStatus())
+                .total(evento.getTotal())
+                .data(evento.getDataAlteracao())
+                .build());
+    }
+
+    // Mantém vivas as conexões ociosas (e detecta as que o cliente já fechou) com um comentário SSE
+    @Scheduled(fixedDelayString = "${ecommerce.eventos.heartbeat-ms:15000}")
+    public void enviarHeartbeat() {
+        for (Assinante assinante : assinantes) {
+            envio.execute(() -> {
+                try {
+                    assinante.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    encerrar(assinante, "erro");
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        assinantes.forEach(assinante -> assinante.emitter.complete());
+        envio.shutdown();
+        try {
+            envio.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publicar(EventoPedidoDTO evento) {
+        List<Assinante> lentos = new ArrayList<>();
+        synchronized (lock) {
+            evento.setId(++sequencia);
+            anel[(int) (evento.getId() % anel.length)] = evento;
+            for (Assinante assinante : assinantes) {
+                if (assinante.aceita(evento) && !assinante.buffer.offer(evento)) {
+                    lentos.add(assinante);
+                }
+            }
+        }
+        publicados.increment();
+
+        lentos.forEach(assinante -> encerrar(assinante, "lento"));
+        for (Assinante assinante : assinantes) {
+            agendarEnvio(assinante);
+        }
+    }
+
+    // Coloca no buffer do assinante os eventos do anel posteriores a ultimoEventoId (chamado com o lock)
+    private void reenviar(Assinante assinante, String ultimoEventoId) {
+        long ultimo = sequenciaDoId(ultimoEventoId);
+        long primeiroDisponivel = Math.max(1, sequencia - anel.length + 1);
+        if (ultimo < 0 || ultimo > sequencia || ultimo + 1 < primeiroDisponivel) {
+            // ID de outra execução da aplicação, malformado ou mais antigo que o anel: o cliente recarrega pela API
+            assinante.ressincronizar = true;
+            return;
+        }
+        for (long id = ultimo + 1; id <= sequencia; id++) {
+            EventoPedidoDTO evento = anel[(int) (id % anel.length)];
+            if (assinante.aceita(evento) && !assinante.buffer.offer(evento)) {
+                // Mais eventos perdidos do que cabem no buffer: o cliente recarrega pela API
+                assinante.buffer.clear();
+                assinante.ressincronizar = true;
+                return;
+            }
+        }
+    }
+
+    // Sequência de um ID "<época>-<sequência>" desta execução; -1 se for de outra execução ou inválido
+    private long sequenciaDoId(String id) {
+        String prefixo = epoca + "-";
+        if (!id.startsWith(prefixo)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(prefixo.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void agendarEnvio(Assinante assinante) {
+        if (assinante.temPendencias() && assinante.enviando.compareAndSet(false, true)) {
+            try {
+                envio.execute(() -> enviar(assinante));
+            } catch (RuntimeException e) {
+                assinante.enviando.set(false);
+            }
+        }
+    }
+
+    // Esvazia o buffer do assinante; só uma thread por assinante executa este método por vez
+    private void enviar(Assinante assinante) {
+        try {
+            do {
+                if (assinante.ressincronizar) {
+                    assinante.ressincronizar = false;
+                    assinante.emitter.send(SseEmitter.event().name(RESSINCRONIZAR).data(""));
+                }
+                EventoPedidoDTO evento;
+                while ((evento = assinante.buffer.poll()) != null) {
+                    assinante.emitter.send(SseEmitter.event()
+                            .id(epoca + "-" + evento.getId())
+                            .name(evento.getTipo())
+                            .data(evento, MediaType.APPLICATION_JSON));
+                }
+                assinante.enviando.set(false);
+                // Um evento pode ter chegado depois do último poll e antes de liberar o flag
+            } while (assinante.temPendencias() && assinante.enviando.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            assinante.enviando.set(false);
+            encerrar(assinante, "erro");
+        }
+    }
+
+    private void encerrar(Assinante assinante, String motivo) {
+        if (assinantes.remove(assinante)) {
+            meterRegistry.counter("ecommerce.eventos.desconectados", "motivo", motivo).increment();
+            log.info("Assinante de eventos desconectado ({})", motivo);
+            assinante.emitter.complete();
+        }
+    }
+
+    private static final class Assinante {
+        private final SseEmitter emitter;
+        private final StatusPedido status;
+        private final Long clienteId;
+        private final BlockingQueue<EventoPedidoDTO> buffer;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean ressincronizar;
+
+        private Assinante(SseEmitter emitter, StatusPedido status, Long clienteId, BlockingQueue<EventoPedidoDTO> buffer) {
+            this.emitter = emitter;
+            this.status = status;
+            this.clienteId = clienteId;
+            this.buffer = buffer;
+        }
+
+        // Com filtro de status, a mudança é entregue tanto a quem acompanha o status novo quanto a quem
+        // acompanha o anterior (o pedido saiu do conjunto filtrado)
+        private boolean aceita(EventoPedidoDTO evento) {
+            return (status == null || status == evento.getStatus() || status == evento.getStatusAnterior())
+                    && (clienteId == null || clienteId.equals(evento.getClienteId()));
+        }
+
+        private boolean temPendencias() {
+            return ressincronizar || !buffer.isEmpty();
+        }
+    }
+}
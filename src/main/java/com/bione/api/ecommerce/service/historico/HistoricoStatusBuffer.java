@@ -0,0 +1,615 @@
+package com.bione.api.ecommerce.service.historico;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Grava o histórico de status dos pedidos de forma assíncrona, em lotes JDBC (write-behind).
+ *
+ * <p>Cada mudança de status é anexada a um journal em disco antes do commit da transação que a
+ * confirma; se a transação for desfeita depois disso, uma linha de cancelamento é anexada. Após o commit
+ * o evento entra em uma fila limitada, que uma única thread descarrega em lotes quando ela atinge o
+ * tamanho de lote ou a cada intervalo. As escritas no journal são agrupadas: as requisições anexam a um
+ * buffer em memória e a primeira que precisa do arquivo grava e descarrega, de uma vez, tudo o que as
+ * demais anexaram até ali (as outras só conferem que a sua linha já foi escrita).</p>
+ *
+ * <p>O journal é dividido em segmentos, trocados a cada descarga. Um segmento só é apagado depois que
+ * todos os seus eventos foram gravados no banco (ou cancelados) e que todos os segmentos anteriores
+ * foram apagados, para que uma linha de cancelamento nunca desapareça antes do evento que ela cancela.</p>
+ *
+ * <p>Na inicialização, os segmentos que sobraram de uma execução anterior (queda do processo ou banco
+ * indisponível) são regravados, sem os eventos cancelados. A entrega é "ao menos uma vez": se o processo
+ * cair entre a gravação no banco e a remoção do segmento, os eventos desse segmento são gravados de novo.
+ * Com a fila cheia, o evento é gravado de forma síncrona pela própria thread da requisição.</p>
+ *
+ * <p>O diretório do journal é exclusivo de um processo: um arquivo de trava é bloqueado na
+ * inicialização e, se outro processo já o detém, a aplicação não sobe (ela adotaria e apagaria os
+ * segmentos ainda em uso pelo outro). Cada instância precisa do seu próprio diretório.</p>
+ */
+@Slf4j
+@Component
+public class HistoricoStatusBuffer {
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO status_history (pedido_id, status, data_alteracao) VALUES (?, ?, ?)";
+    private static final String PREFIXO_SEGMENTO = "historico-status-";
+    private static final String EXTENSAO_SEGMENTO = ".log";
+    private static final String SEPARADOR = ";";
+    private static final String CANCELAMENTO = "!";
+    private static final String ARQUIVO_TRAVA = "journal.lock";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Registro> fila;
+    private final int tamanhoLote;
+    private final long intervaloMs;
+    private final Path diretorio;
+    private final FileChannel canalTrava;
+    private final FileLock trava;
+    private final ScheduledExecutorService gravador;
+    private final AtomicBoolean descargaAgendada = new AtomicBoolean();
+
+    // Protege o segmento atual e o buffer do journal; só operações em memória são feitas com ele
+    private final Object lockJournal = new Object();
+    private long sequenciaSegmento;
+    private Segmento segmentoAtual;
+    private BufferedWriter journal;
+    private final StringBuilder bufferJournal = new StringBuilder();
+    private long linhasAnexadas;
+    private int linhasNoSegmento;
+
+    // Serializa a escrita do buffer no arquivo e a troca de segmento (sempre adquirido antes de lockJournal)
+    private final Object lockEscrita = new Object();
+    private long linhasEscritas;
+    // Linhas até esta posição podem não ter chegado ao arquivo (falha de escrita)
+    private long linhasPerdidasAte;
+
+    // Segmentos ainda não apagados, do mais antigo ao mais novo (inclui os de execuções anteriores)
+    private final Deque<Segmento> segmentos = new ArrayDeque<>();
+
+    // Segmentos de execuções anteriores, regravados na inicialização
+    private final List<Segmento> segmentosAnteriores = new ArrayList<>();
+
+    // Lotes retirados da fila e ainda não gravados (só acessado pela thread gravadora)
+    private final Deque<List<Registro>> lotesPendentes = new ArrayDeque<>();
+    private final AtomicInteger eventosPendentes = new AtomicInteger();
+
+    private final Counter gravados;
+    private final Counter gravadosSincronos;
+    private final Counter falhas;
+    private final Counter descartados;
+    private final Timer tempoDescarga;
+    private final Timer atrasoGravacao;
+
+    public HistoricoStatusBuffer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${ecommerce.historico-status.capacidade-fila:10000}") int capacidadeFila,
+                                 @Value("${ecommerce.historico-status.tamanho-lote:500}") int tamanhoLote,
+                                 @Value("${ecommerce.historico-status.intervalo-ms:200}") long intervaloMs,
+                                 @Value("${ecommerce.historico-status.journal.diretorio:dados/historico-status}") String diretorio)
+            throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloMs = intervaloMs;
+        this.diretorio = Paths.get(diretorio);
+
+        Files.createDirectories(this.diretorio);
+        this.canalTrava = FileChannel.open(this.diretorio.resolve(ARQUIVO_TRAVA),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.trava = travarDiretorio();
+        this.gravador = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("historico-status-"));
+
+        for (Path arquivo : listarSegmentos()) {
+            // Pendente até ser lido pela regravação (não pode ser apagado antes disso)
+            Segmento anterior = new Segmento(arquivo, sequencia(arquivo));
+            anterior.pendentes.set(1);
+            anterior.fechado = true;
+            segmentos.addLast(anterior);
+            segmentosAnteriores.add(anterior);
+            sequenciaSegmento = anterior.numero;
+        }
+        abrirNovoSegmento();
+
+        Gauge.builder("ecommerce.historico.status.fila", fila, BlockingQueue::size)
+                .description("Eventos de status aguardando gravação")
+                .register(meterRegistry);
+        Gauge.builder("ecommerce.historico.status.pendentes", eventosPendentes, AtomicInteger::get)
+                .description("Eventos de status retirados da fila cuja gravação falhou e será repetida")
+                .register(meterRegistry);
+        this.gravados = meterRegistry.counter("ecommerce.historico.status.gravados");
+        this.gravadosSincronos = meterRegistry.counter("ecommerce.historico.status.gravados.sincronos");
+        this.falhas = meterRegistry.counter("ecommerce.historico.status.falhas");
+        this.descartados = meterRegistry.counter("ecommerce.historico.status.descartados");
+        this.tempoDescarga = Timer.builder("ecommerce.historico.status.descarga")
+                .description("Duração da gravação de um lote de histórico de status")
+                .register(meterRegistry);
+        this.atrasoGravacao = Timer.builder("ecommerce.historico.status.atraso")
+                .description("Tempo entre a mudança de status e a sua gravação no banco (evento mais antigo do lote)")
+                .register(meterRegistry);
+    }
+
+    // Falha na hora se outro processo (ou outro contexto nesta JVM) usa o mesmo diretório
+    private FileLock travarDiretorio() throws IOException {
+        FileLock obtida;
+        try {
+            obtida = canalTrava.tryLock();
+        } catch (OverlappingFileLockException e) {
+            obtida = null;
+        }
+        if (obtida == null) {
+            canalTrava.close();
+            throw new IllegalStateException("Diretório do journal de histórico de status já está em uso: "
+                    + diretorio.toAbsolutePath());
+        }
+        return obtida;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        gravador.execute(this::regravarSegmentosAnteriores);
+        gravador.scheduleWithFixedDelay(this::descarregarSemFalhar, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra uma mudança de status. Dentro de uma transação, o evento vai para o journal antes do
+     * commit e só entra no buffer depois dele; se a transação for desfeita, o evento é cancelado.
+     */
+    public void registrar(Long pedidoId, StatusPedido status, LocalDateTime dataAlteracao) {
+        EventoStatus evento = new EventoStatus(pedidoId, status, dataAlteracao);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enfileirar(evento, anexarAoJournal(evento));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private Registro registro;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                registro = anexarAoJournal(evento);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    enfileirar(evento, registro);
+                } else if (registro != null) {
+                    // Commit falhou depois do journal (ex.: conflito de versão no flush)
+                    cancelar(registro);
+                }
+            }
+        });
+    }
+
+    private void enfileirar(EventoStatus evento, Registro registro) {
+        if (registro == null) {
+            // Journal indisponível: a própria requisição grava o evento
+            gravarSincrono(new Registro(null, evento, null));
+            return;
+        }
+        if (!fila.offer(registro)) {
+            // Fila cheia: a própria requisição grava o evento
+            gravarSincrono(registro);
+            return;
+        }
+        if (fila.size() >= tamanhoLote && descargaAgendada.compareAndSet(false, true)) {
+            gravador.execute(this::descarregarSemFalhar);
+        }
+    }
+
+    private void gravarSincrono(Registro registro) {
+        try {
+            gravar(List.of(registro.evento()));
+            gravadosSincronos.increment();
+            concluir(registro);
+        } catch (RuntimeException e) {
+            falhas.increment();
+            if (registro.segmento() == null) {
+                // O status já foi confirmado; sem journal, apenas o registro histórico se perde
+                log.error("Erro ao gravar histórico de status do pedido {}: {}",
+                        registro.evento().pedidoId(), e.getMessage(), e);
+                return;
+            }
+            log.error("Erro ao gravar histórico de status do pedido {}; nova tentativa pela thread gravadora: {}",
+                    registro.evento().pedidoId(), e.getMessage());
+            gravador.execute(() -> adicionarLote(List.of(registro)));
+        }
+    }
+
+    private void descarregarSemFalhar() {
+        try {
+            descarregar();
+        } catch (RuntimeException e) {
+            // Uma exceção cancelaria as próximas execuções agendadas
+            log.error("Erro inesperado ao descarregar histórico de status: {}", e.getMessage(), e);
+        }
+    }
+
+    // Esvazia a fila em um novo lote, troca o segmento do journal e grava todos os lotes pendentes,
+    // do mais antigo ao mais novo
+    private void descarregar() {
+        descargaAgendada.set(false);
+
+        if (!fila.isEmpty()) {
+            List<Registro> lote = new ArrayList<>(fila.size());
+            fila.drainTo(lote);
+            adicionarLote(lote);
+        }
+        trocarSegmento();
+
+        while (!lotesPendentes.isEmpty()) {
+            List<Registro> lote = lotesPendentes.peekFirst();
+            try {
+                tempoDescarga.record(() -> gravarLote(lote));
+            } catch (RuntimeException e) {
+                falhas.increment();
+                log.error("Erro ao gravar {} eventos de histórico de status; nova tentativa em {} ms: {}",
+                        lote.size(), intervaloMs, e.getMessage());
+                return;
+            }
+
+            atrasoGravacao.record(Duration.between(lote.get(0).evento().dataAlteracao(), LocalDateTime.now()));
+            gravados.increment(lote.size());
+            lotesPendentes.removeFirst();
+            eventosPendentes.addAndGet(-lote.size());
+            lote.forEach(this::concluir);
+        }
+    }
+
+    // Só pela thread gravadora
+    private void adicionarLote(List<Registro> lote) {
+        lotesPendentes.addLast(lote);
+        eventosPendentes.addAndGet(lote.size());
+    }
+
+    // Um evento inválido (ex.: pedido que não existe mais) não pode travar a fila: o lote é
+    // regravado evento a evento e apenas os que violam restrições do banco são descartados.
+    // O lote roda em uma transação para que os eventos anteriores ao inválido não fiquem gravados duas vezes
+    private void gravarLote(List<Registro> lote) {
+        List<EventoStatus> eventos = lote.stream().map(Registro::evento).collect(Collectors.toList());
+        try {
+            transactionTemplate.executeWithoutResult(status -> gravar(eventos));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Lote de histórico de status rejeitado pelo banco; gravando evento a evento: {}", e.getMessage());
+            for (EventoStatus evento : eventos) {
+                try {
+                    gravar(List.of(evento));
+                } catch (DataIntegrityViolationException erroEvento) {
+                    descartados.increment();
+                    log.error("Evento de histórico de status descartado ({}): {}", evento, erroEvento.getMessage());
+                }
+            }
+        }
+    }
+
+    private void gravar(List<EventoStatus> eventos) {
+        jdbcTemplate.batchUpdate(SQL_INSERIR, eventos, tamanhoLote, (ps, evento) -> {
+            ps.setLong(1, evento.pedidoId());
+            ps.setString(2, evento.status().name());
+            ps.setTimestamp(3, Timestamp.valueOf(evento.dataAlteracao()));
+        });
+    }
+
+    // Regrava os eventos que ficaram em disco de uma execução anterior, sem os cancelados
+    private void regravarSegmentosAnteriores() {
+        // Um cancelamento pode estar em um segmento posterior ao do evento
+        List<List<String[]>> linhas = new ArrayList<>();
+        Set<String> cancelados = new HashSet<>();
+        for (Segmento segmento : segmentosAnteriores) {
+            List<String[]> campos = new ArrayList<>();
+            try {
+                for (String linha : Files.readAllLines(segmento.arquivo, StandardCharsets.UTF_8)) {
+                    if (linha.startsWith(CANCELAMENTO)) {
+                        cancelados.add(linha.substring(CANCELAMENTO.length()));
+                    } else {
+                        campos.add(linha.split(SEPARADOR));
+                    }
+                }
+            } catch (IOException e) {
+                // O arquivo (e os seguintes) fica no diretório para a próxima inicialização
+                log.error("Erro ao ler o journal de histórico de status {}: {}", segmento.arquivo, e.getMessage());
+                campos = null;
+            }
+            linhas.add(campos);
+        }
+
+        for (int i = 0; i < segmentosAnteriores.size(); i++) {
+            Segmento segmento = segmentosAnteriores.get(i);
+            if (linhas.get(i) == null) {
+                continue;
+            }
+            List<Registro> registros = new ArrayList<>();
+            for (String[] campos : linhas.get(i)) {
+                try {
+                    if (!cancelados.contains(campos[0])) {
+                        registros.add(new Registro(campos[0], new EventoStatus(Long.valueOf(campos[1]),
+                                StatusPedido.valueOf(campos[2]), LocalDateTime.parse(campos[3])), segmento));
+                    }
+                } catch (RuntimeException e) {
+                    // Última linha incompleta de uma queda durante a escrita
+                    log.warn("Linha inválida ignorada no journal {}: '{}'", segmento.arquivo.getFileName(),
+                            String.join(SEPARADOR, campos));
+                }
+            }
+            segmento.pendentes.addAndGet(registros.size());
+            if (!registros.isEmpty()) {
+                log.info("Regravando {} eventos de histórico de status do journal {}",
+                        registros.size(), segmento.arquivo.getFileName());
+                adicionarLote(registros);
+            }
+            // Libera a pendência da leitura: o segmento fica só com os eventos a regravar
+            liberar(segmento);
+        }
+        descarregarSemFalhar();
+    }
+
+    /**
+     * Para a thread gravadora e grava o que ainda estiver na fila. Se o banco estiver indisponível,
+     * os eventos continuam no journal e são regravados na próxima inicialização.
+     */
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        gravador.shutdown();
+        if (!gravador.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Thread de histórico de status não terminou a tempo");
+        }
+        descarregarSemFalhar();
+
+        synchronized (lockEscrita) {
+            escreverBufferJournal();
+            synchronized (lockJournal) {
+                fecharJournal();
+                segmentoAtual.fechado = true;
+            }
+        }
+        apagarConcluidos();
+        if (!lotesPendentes.isEmpty()) {
+            log.warn("{} eventos de histórico de status não gravados; serão regravados a partir do journal na inicialização",
+                    eventosPendentes.get());
+        }
+        liberarDiretorio();
+    }
+
+    private void liberarDiretorio() {
+        try {
+            trava.release();
+            canalTrava.close();
+        } catch (IOException e) {
+            log.warn("Erro ao liberar a trava do journal de histórico de status: {}", e.getMessage());
+        }
+    }
+
+    // Anexa o evento ao journal e espera a linha chegar ao arquivo; null se o journal estiver indisponível
+    private Registro anexarAoJournal(EventoStatus evento) {
+        Registro registro;
+        long posicao;
+        synchronized (lockJournal) {
+            if (journal == null) {
+                return null;
+            }
+            String id = segmentoAtual.numero + "." + (++linhasNoSegmento);
+            bufferJournal.append(id).append(SEPARADOR).append(evento.pedidoId()).append(SEPARADOR)
+                    .append(evento.status().name()).append(SEPARADOR).append(evento.dataAlteracao()).append('\n');
+            posicao = ++linhasAnexadas;
+            segmentoAtual.pendentes.incrementAndGet();
+            registro = new Registro(id, evento, segmentoAtual);
+        }
+
+        synchronized (lockEscrita) {
+            // Outra requisição pode já ter escrito esta linha junto com as suas
+            if (linhasEscritas < posicao) {
+                escreverBufferJournal();
+            }
+            if (posicao <= linhasPerdidasAte) {
+                concluir(registro);
+                return null;
+            }
+        }
+        return registro;
+    }
+
+    // Não espera a escrita: se o processo cair antes dela, o evento é regravado (ao menos uma vez)
+    private void cancelar(Registro registro) {
+        synchronized (lockJournal) {
+            if (journal != null) {
+                bufferJournal.append(CANCELAMENTO).append(registro.id()).append('\n');
+                linhasAnexadas++;
+                linhasNoSegmento++;
+            }
+        }
+        concluir(registro);
+    }
+
+    // Escreve no arquivo tudo o que foi anexado ao buffer (chamado com lockEscrita)
+    private void escreverBufferJournal() {
+        String linhas;
+        long ate;
+        BufferedWriter destino;
+        synchronized (lockJournal) {
+            if (bufferJournal.isEmpty()) {
+                return;
+            }
+            linhas = bufferJournal.toString();
+            bufferJournal.setLength(0);
+            ate = linhasAnexadas;
+            destino = journal;
+        }
+
+        try {
+            if (destino == null) {
+                throw new IOException("journal fechado após falha anterior");
+            }
+            destino.write(linhas);
+            destino.flush(); // Chega ao sistema operacional: sobrevive à queda do processo
+        } catch (IOException e) {
+            log.error("Erro ao escrever no journal de histórico de status: {}", e.getMessage());
+            linhasPerdidasAte = ate;
+            synchronized (lockJournal) {
+                // Sem journal os eventos são gravados de forma síncrona até a próxima troca de segmento
+                fecharJournal();
+            }
+        }
+        linhasEscritas = ate;
+    }
+
+    private void trocarSegmento() {
+        synchronized (lockEscrita) {
+            escreverBufferJournal();
+            synchronized (lockJournal) {
+                if (journal != null && linhasNoSegmento == 0) {
+                    return;
+                }
+                fecharJournal();
+                segmentoAtual.fechado = true;
+                abrirNovoSegmento();
+            }
+        }
+        apagarConcluidos();
+    }
+
+    // O evento foi gravado ou cancelado
+    private void concluir(Registro registro) {
+        if (registro.segmento() != null) {
+            liberar(registro.segmento());
+        }
+    }
+
+    private void liberar(Segmento segmento) {
+        if (segmento.pendentes.decrementAndGet() == 0) {
+            apagarConcluidos();
+        }
+    }
+
+    // Apaga, em ordem, os segmentos fechados sem eventos pendentes
+    private void apagarConcluidos() {
+        synchronized (segmentos) {
+            Segmento segmento;
+            while ((segmento = segmentos.peekFirst()) != null && segmento.fechado && segmento.pendentes.get() == 0) {
+                apagar(segmento.arquivo);
+                segmentos.removeFirst();
+            }
+        }
+    }
+
+    // Chamado com lockJournal (ou no construtor)
+    private void abrirNovoSegmento() {
+        segmentoAtual = new Segmento(diretorio.resolve(String.format("%s%019d%s",
+                PREFIXO_SEGMENTO, ++sequenciaSegmento, EXTENSAO_SEGMENTO)), sequenciaSegmento);
+        linhasNoSegmento = 0;
+        synchronized (segmentos) {
+            segmentos.addLast(segmentoAtual);
+        }
+        try {
+            journal = Files.newBufferedWriter(segmentoAtual.arquivo, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // Sem journal os eventos são gravados de forma síncrona até a próxima troca de segmento
+            log.error("Erro ao abrir o journal de histórico de status {}: {}", segmentoAtual.arquivo, e.getMessage());
+            journal = null;
+        }
+    }
+
+    // Chamado com lockJournal
+    private void fecharJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Erro ao fechar o journal de histórico de status {}: {}", segmentoAtual.arquivo, e.getMessage());
+        }
+        journal = null;
+    }
+
+    private List<Path> listarSegmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .filter(arquivo -> {
+                        String nome = arquivo.getFileName().toString();
+                        return nome.startsWith(PREFIXO_SEGMENTO) && nome.endsWith(EXTENSAO_SEGMENTO);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long sequencia(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO_SEGMENTO.length(), nome.length() - EXTENSAO_SEGMENTO.length()));
+    }
+
+    private static void apagar(Path segmento) {
+        try {
+            Files.deleteIfExists(segmento);
+        } catch (IOException e) {
+            log.warn("Erro ao apagar o journal de histórico de status {}: {}", segmento, e.getMessage());
+        }
+    }
+
+    private record EventoStatus(Long pedidoId, StatusPedido status, LocalDateTime dataAlteracao) {
+    }
+
+    // Evento anexado ao journal: id da linha ("<segmento>.<linha>") e segmento onde ela está
+    // (ambos nulos para eventos gravados sem journal)
+    private record Registro(String id, EventoStatus evento, Segmento segmento) {
+    }
+
+    private static final class Segmento {
+        private final Path arquivo;
+        private final long numero;
+        // Eventos do segmento ainda não gravados no banco nem cancelados
+        private final AtomicInteger pendentes = new AtomicInteger();
+        private volatile boolean fechado;
+
+        private Segmento(Path arquivo, long numero) {
+            this.arquivo = arquivo;
+            this.numero = numero;
+        }
+    }
+}
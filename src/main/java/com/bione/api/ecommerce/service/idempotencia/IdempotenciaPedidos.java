@@ -0,0 +1,237 @@
+package com.bione.api.ecommerce.service.idempotencia;
+
+import com.bione.api.ecommerce.dto.PedidoDTO;
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.exception.ChaveIdempotenciaReutilizadaException;
+import com.bione.api.ecommerce.exception.PedidoEmProcessamentoException;
+import com.bione.api.ecommerce.model.IdempotenciaPedido;
+import com.bione.api.ecommerce.repository.IdempotenciaPedidoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Criação de pedidos idempotente pelo cabeçalho {@code Idempotency-Key}: uma retentativa do cliente
+ * (timeout, rede móvel) devolve o pedido já criado em vez de debitar estoque e inserir de novo.
+ *
+ * <p>As execuções ficam em um cache em memória (limitado por tamanho e TTL): requisições concorrentes com
+ * a mesma chave esperam a primeira e recebem o mesmo resultado, inclusive a mesma falha. A espera é
+ * limitada: se a primeira não terminar a tempo, a repetida recebe {@link PedidoEmProcessamentoException}
+ * (409 com {@code Retry-After}) e não prende a thread da requisição. As concluídas
+ * com sucesso também são gravadas na tabela {@code idempotencia_pedido}, na transação do próprio pedido,
+ * e sobrevivem a reinícios, à saída do cache e a retentativas que caem em outra instância. Se duas
+ * instâncias executarem a mesma chave ao mesmo tempo, a chave primária da tabela desfaz a segunda, que
+ * devolve o pedido da primeira. Falhas não são gravadas: a chave fica livre para uma nova tentativa.</p>
+ *
+ * <p>A mesma chave com outro corpo (cliente ou itens diferentes) é recusada com
+ * {@link ChaveIdempotenciaReutilizadaException}.</p>
+ */
+@Slf4j
+@Component
+public class IdempotenciaPedidos {
+
+    public static final int TAMANHO_MAXIMO_CHAVE = 128;
+
+    // Retry-After sugerido quando a primeira execução da chave ainda não terminou
+    static final int RETRY_AFTER_EM_PROCESSAMENTO = 1;
+
+    private final IdempotenciaPedidoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration retencao;
+    private final Duration espera;
+    private final Cache<String, Execucao> execucoes;
+
+    public IdempotenciaPedidos(IdempotenciaPedidoRepository repository,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${ecommerce.idempotencia.tamanho-maximo:100000}") long tamanhoMaximo,
+                               @Value("${ecommerce.idempotencia.ttl:10m}") Duration ttl,
+                               @Value("${ecommerce.idempotencia.retencao:24h}") Duration retencao,
+                               @Value("${ecommerce.idempotencia.espera:10s}") Duration espera) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.retencao = retencao;
+        this.espera = espera;
+        this.execucoes = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Executa a criação do pedido uma única vez por chave.
+     * @param chave Valor do cabeçalho {@code Idempotency-Key} (1 a {@value #TAMANHO_MAXIMO_CHAVE} caracteres)
+     * @param requisicao Corpo da requisição, comparado com o da primeira execução da chave
+     * @param criacao Criação do pedido; roda na transação que grava a chave
+     * @return Pedido criado e se ele veio de uma execução anterior
+     */
+    public Resultado executar(String chave, PedidoRequestDTO requisicao, Supplier<PedidoDTO> criacao) {
+        if (chave == null || chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new IllegalArgumentException("Idempotency-Key deve ter de 1 a " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+        String impressao = impressao(requisicao);
+
+        Execucao nova = new Execucao(impressao, new CompletableFuture<>());
+        Execucao existente = execucoes.asMap().putIfAbsent(chave, nova);
+        if (existente != null) {
+            verificarImpressao(chave, existente.impressao(), impressao);
+            PedidoDTO pedido = aguardar(chave, existente);
+            contarRepeticao("memoria");
+            return new Resultado(pedido, true);
+        }
+
+        try {
+            Resultado resultado = executarOuRecuperar(chave, impressao, criacao);
+            nova.resultado().complete(resultado.pedido());
+            return resultado;
+        } catch (RuntimeException e) {
+            // A falha é entregue a quem já está esperando, mas a chave volta a ficar livre
+            execucoes.asMap().remove(chave, nova);
+            nova.resultado().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Remove do banco as chaves mais antigas que a retenção configurada.
+     */
+    @Scheduled(initialDelayString = "${ecommerce.idempotencia.limpeza-ms:3600000}",
+            fixedDelayString = "${ecommerce.idempotencia.limpeza-ms:3600000}")
+    @Transactional
+    public void limpar() {
+        int removidas = repository.excluirAnterioresA(LocalDateTime.now().minus(retencao));
+        if (removidas > 0) {
+            log.info("{} chaves de idempotência expiradas removidas", removidas);
+        }
+    }
+
+    private Resultado executarOuRecuperar(String chave, String impressao, Supplier<PedidoDTO> criacao) {
+        // Concluída antes (outra instância, reinício ou já fora do cache)
+        Optional<IdempotenciaPedido> gravada = repository.findById(chave);
+        if (gravada.isPresent()) {
+            contarRepeticao("banco");
+            return new Resultado(lerGravada(chave, gravada.get(), impressao), true);
+        }
+
+        try {
+            PedidoDTO pedido = transactionTemplate.execute(status -> {
+                PedidoDTO criado = criacao.get();
+                repository.saveAndFlush(new IdempotenciaPedido(chave, impressao, criado.getId(),
+                        escrever(criado), LocalDateTime.now()));
+                return criado;
+            });
+            return new Resultado(pedido, false);
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gravou a mesma chave primeiro: este pedido foi desfeito, vale o dela
+            IdempotenciaPedido vencedora = repository.findById(chave).orElseThrow(() -> e);
+            log.info("Chave de idempotência {} concluída por outra instância; pedido {} devolvido",
+                    chave, vencedora.getPedidoId());
+            contarRepeticao("concorrente");
+            return new Resultado(lerGravada(chave, vencedora, impressao), true);
+        }
+    }
+
+    private PedidoDTO aguardar(String chave, Execucao execucao) {
+        try {
+            return execucao.resultado().get(espera.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            contarRepeticao("em_processamento");
+            throw new PedidoEmProcessamentoException(
+                    "O pedido da Idempotency-Key " + chave + " ainda está em processamento", RETRY_AFTER_EM_PROCESSAMENTO);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PedidoEmProcessamentoException(
+                    "Espera interrompida pela Idempotency-Key " + chave, RETRY_AFTER_EM_PROCESSAMENTO);
+        }
+    }
+
+    private PedidoDTO lerGravada(String chave, IdempotenciaPedido gravada, String impressao) {
+        verificarImpressao(chave, gravada.getImpressao(), impressao);
+        try {
+            return objectMapper.readValue(gravada.getResposta(), PedidoDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Resposta gravada inválida para a chave de idempotência " + chave, e);
+        }
+    }
+
+    private String escrever(PedidoDTO pedido) {
+        try {
+            return objectMapper.writeValueAsString(pedido);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o pedido " + pedido.getId(), e);
+        }
+    }
+
+    private void verificarImpressao(String chave, String esperada, String recebida) {
+        if (!esperada.equals(recebida)) {
+            throw new ChaveIdempotenciaReutilizadaException(
+                    "A Idempotency-Key " + chave + " já foi usada com outro pedido");
+        }
+    }
+
+    private void contarRepeticao(String origem) {
+        meterRegistry.counter("ecommerce.idempotencia.repeticoes", "origem", origem).increment();
+    }
+
+    // SHA-256 do cliente e dos itens ordenados por produto: a ordem dos itens no JSON não muda a impressão
+    static String impressao(PedidoRequestDTO requisicao) {
+        StringBuilder canonica = new StringBuilder().append(requisicao.getClienteId());
+        List<ProdutoQuantidadeDTO> itens = requisicao.getProdutos() == null ? List.of() : requisicao.getProdutos();
+        itens.stream()
+                .sorted(Comparator.comparing(ProdutoQuantidadeDTO::getProdutoId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(ProdutoQuantidadeDTO::getQuantidade, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(item -> canonica.append('|').append(item.getProdutoId()).append('x').append(item.getQuantidade()));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonica.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Execução de uma chave: impressão da requisição que a iniciou e o pedido (ou falha) resultante
+    private record Execucao(String impressao, CompletableFuture<PedidoDTO> resultado) {
+    }
+
+    /**
+     * @param pedido Pedido criado pela chave
+     * @param repetido true se o pedido veio de uma execução anterior (nada foi criado agora)
+     */
+    public record Resultado(PedidoDTO pedido, boolean repetido) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.bione.api.ecommerce.service.metricas;
+
+import com.bione.api.ecommerce.exception.ClienteInvalidException;
+import com.bione.api.ecommerce.exception.ClienteNotFoundException;
+import com.bione.api.ecommerce.exception.ConflitoConcorrenciaException;
+import com.bione.api.ecommerce.exception.EstoqueInsuficienteException;
+import com.bione.api.ecommerce.exception.ResourceNotFoundException;
+import com.bione.api.ecommerce.exception.ServicoSobrecarregadoException;
+import com.bione.api.ecommerce.exception.TransicaoStatusInvalidaException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Métricas das operações de negócio (expostas em /actuator/prometheus).
+ *
+ * <ul>
+ *     <li>{@code ecommerce.operacao} (timer): duração de cada operação, por {@code operacao} e {@code resultado};</li>
+ *     <li>{@code ecommerce.operacao.resultado} (contador): quantas operações terminaram com cada resultado;</li>
+ *     <li>{@code ecommerce.pedido.criacao.fase} (timer): duração de cada fase do checkout, por {@code fase}.</li>
+ * </ul>
+ * Os histogramas de percentis são habilitados em application.properties (prefixo {@code ecommerce}).
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricasOperacoes {
+
+    // Operações
+    public static final String CRIAR_PEDIDO = "criar_pedido";
+    public static final String ATUALIZAR_STATUS = "atualizar_status";
+    public static final String EXPORTAR_PEDIDOS = "exportar_pedidos";
+    public static final String EXPORTAR_CLIENTES = "exportar_clientes";
+    public static final String SALVAR_CLIENTE = "salvar_cliente";
+
+    // Fases da criação de pedido
+    public static final String FASE_CLIENTE = "cliente";
+    public static final String FASE_PRODUTOS = "produtos";
+    public static final String FASE_ESTOQUE = "estoque";
+    public static final String FASE_PEDIDO_INSERT = "pedido_insert";
+    public static final String FASE_ITENS_INSERT = "itens_insert";
+    public static final String FASE_DTO = "dto";
+
+    // Resultados
+    public static final String SUCESSO = "sucesso";
+    public static final String ESTOQUE_INSUFICIENTE = "estoque_insuficiente";
+    public static final String NAO_ENCONTRADO = "nao_encontrado";
+    public static final String INVALIDO = "invalido";
+    public static final String SOBRECARREGADO = "sobrecarregado";
+    public static final String TRANSICAO_INVALIDA = "transicao_invalida";
+    public static final String CONFLITO = "conflito";
+    public static final String ERRO = "erro";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Inicia a medição de uma operação; encerre com {@link #finalizar}.
+     */
+    public Timer.Sample iniciar() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Encerra a medição de uma operação e conta o seu resultado.
+     */
+    public void finalizar(Timer.Sample amostra, String operacao, String resultado) {
+        amostra.stop(meterRegistry.timer("ecommerce.operacao", "operacao", operacao, "resultado", resultado));
+        meterRegistry.counter("ecommerce.operacao.resultado", "operacao", operacao, "resultado", resultado).increment();
+    }
+
+    /**
+     * Encerra a medição de uma operação bem-sucedida só quando a transação atual terminar: com commit, conta
+     * {@link #SUCESSO} (a duração inclui o commit); desfeita, conta {@link #ERRO}. Sem transação, encerra na hora.
+     */
+    public void finalizarAposCommit(Timer.Sample amostra, String operacao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            finalizar(amostra, operacao, SUCESSO);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                finalizar(amostra, operacao, status == STATUS_COMMITTED ? SUCESSO : ERRO);
+            }
+        });
+    }
+
+    /**
+     * Encerra a medição de uma operação que falhou, classificando o resultado pela exceção.
+     */
+    public void finalizar(Timer.Sample amostra, String operacao, Throwable erro) {
+        finalizar(amostra, operacao, resultado(erro));
+    }
+
+    /**
+     * Executa e mede uma fase da criação de pedido.
+     */
+    public <T> T fase(String fase, Supplier<T> etapa) {
+        return meterRegistry.timer("ecommerce.pedido.criacao.fase", "fase", fase).record(etapa);
+    }
+
+    public void fase(String fase, Runnable etapa) {
+        meterRegistry.timer("ecommerce.pedido.criacao.fase", "fase", fase).record(etapa);
+    }
+
+    // Traduz a exceção de uma operação em um resultado de baixa cardinalidade
+    private static String resultado(Throwable erro) {
+        if (erro instanceof CompletionException && erro.getCause() != null) {
+            erro = erro.getCause();
+        }
+        if (erro instanceof EstoqueInsuficienteException) {
+            return ESTOQUE_INSUFICIENTE;
+        }
+        if (erro instanceof ResourceNotFoundException || erro instanceof ClienteNotFoundException) {
+            return NAO_ENCONTRADO;
+        }
+        if (erro instanceof IllegalArgumentException || erro instanceof ClienteInvalidException) {
+            return INVALIDO;
+        }
+        if (erro instanceof ServicoSobrecarregadoException) {
+            return SOBRECARREGADO;
+        }
+        if (erro instanceof TransicaoStatusInvalidaException) {
+            return TRANSICAO_INVALIDA;
+        }
+        if (erro instanceof ConflitoConcorrenciaException) {
+            return CONFLITO;
+        }
+        return ERRO;
+    }
+}
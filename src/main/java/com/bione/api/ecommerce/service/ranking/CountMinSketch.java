@@ -0,0 +1,64 @@
+package com.bione.api.ecommerce.service.ranking;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch: contagem aproximada por chave em memória fixa ({@code largura x profundidade} contadores).
+ * A estimativa nunca fica abaixo do valor real e, com probabilidade {@code 1 - e^-profundidade}, excede-o
+ * em no máximo {@code e / largura} do total adicionado. Sketches com as mesmas dimensões usam as mesmas
+ * funções de hash, então podem ser somados e subtraídos contador a contador. Não é thread-safe.
+ */
+public final class CountMinSketch {
+
+    private final int largura;
+    private final int profundidade;
+    private final long[] contadores;  // Linha a linha: [linha * largura + coluna]
+
+    /**
+     * @param largura Contadores por linha (arredondado para a próxima potência de 2)
+     * @param profundidade Quantidade de linhas (funções de hash)
+     */
+    public CountMinSketch(int largura, int profundidade) {
+        this.largura = Integer.highestOneBit(Math.max(2, largura - 1)) << 1;
+        this.profundidade = profundidade;
+        this.contadores = new long[this.largura * profundidade];
+    }
+
+    public void adicionar(long chave, long quantidade) {
+        for (int linha = 0; linha < profundidade; linha++) {
+            contadores[posicao(linha, chave)] += quantidade;
+        }
+    }
+
+    public long estimar(long chave) {
+        long minimo = Long.MAX_VALUE;
+        for (int linha = 0; linha < profundidade; linha++) {
+            minimo = Math.min(minimo, contadores[posicao(linha, chave)]);
+        }
+        return minimo;
+    }
+
+    // Soma (sinal 1) ou subtrai (sinal -1) os contadores de outro sketch com as mesmas dimensões
+    public void combinar(CountMinSketch outro, int sinal) {
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] += sinal * outro.contadores[i];
+        }
+    }
+
+    public void limpar() {
+        Arrays.fill(contadores, 0);
+    }
+
+    public int getLargura() {
+        return largura;
+    }
+
+    // Hash independente por linha: mistura (finalizador do MurmurHash3) da chave com uma semente da linha
+    private int posicao(int linha, long chave) {
+        long h = chave + 0x9E3779B97F4A7C15L * (linha + 1);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return linha * largura + (int) (h & (largura - 1));
+    }
+}
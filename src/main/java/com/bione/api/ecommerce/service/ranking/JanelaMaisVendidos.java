@@ -0,0 +1,119 @@
+package com.bione.api.ecommerce.service.ranking;
+
+import com.bione.api.ecommerce.enums.JanelaVendas;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Produtos mais vendidos em uma janela deslizante, em memória limitada.
+ *
+ * <p>A janela é um anel de baldes de tempo; cada balde tem um count-min sketch e o seu top-K. Um sketch
+ * "total" mantém a soma dos baldes vivos: ao expirar, um balde é subtraído do total e reaproveitado.
+ * O top-K da janela é atualizado a cada venda com a estimativa do total e, quando baldes expiram,
+ * recalculado a partir dos candidatos (top-K de cada balde vivo e o top-K anterior da janela).</p>
+ *
+ * <p>As escritas são serializadas pelo monitor do objeto. A leitura devolve uma lista imutável já
+ * ordenada, refeita só quando houve venda ou troca de balde desde a última leitura.</p>
+ */
+final class JanelaMaisVendidos {
+
+    private final long duracaoBaldeMs;
+    private final CountMinSketch[] baldes;
+    private final TopK[] topoBaldes;
+    private final CountMinSketch total;
+    private final TopK topo;
+
+    private long baldeAtual = Long.MIN_VALUE;  // Índice absoluto do balde mais recente (instante / duração)
+    private volatile long versao;
+    private volatile Ranking ranking = new Ranking(-1, Long.MIN_VALUE, List.of());
+
+    JanelaMaisVendidos(JanelaVendas janela, int larguraSketch, int profundidadeSketch, int tamanhoTopo) {
+        this.duracaoBaldeMs = janela.getDuracaoBalde().toMillis();
+        this.baldes = new CountMinSketch[janela.getBaldes()];
+        this.topoBaldes = new TopK[janela.getBaldes()];
+        for (int i = 0; i < baldes.length; i++) {
+            baldes[i] = new CountMinSketch(larguraSketch, profundidadeSketch);
+            topoBaldes[i] = new TopK(tamanhoTopo);
+        }
+        this.total = new CountMinSketch(larguraSketch, profundidadeSketch);
+        this.topo = new TopK(tamanhoTopo);
+    }
+
+    /**
+     * Registra a venda de {@code quantidade} unidades do produto no instante informado (em ms).
+     * Vendas mais antigas que a janela são ignoradas.
+     */
+    synchronized void adicionar(long instanteMs, long agoraMs, long produtoId, long quantidade) {
+        avancar(agoraMs / duracaoBaldeMs);
+        long indice = Math.min(instanteMs / duracaoBaldeMs, baldeAtual);
+        if (indice <= baldeAtual - baldes.length) {
+            return;
+        }
+
+        int posicao = (int) Math.floorMod(indice, (long) baldes.length);
+        baldes[posicao].adicionar(produtoId, quantidade);
+        topoBaldes[posicao].oferecer(produtoId, baldes[posicao].estimar(produtoId));
+        total.adicionar(produtoId, quantidade);
+        topo.oferecer(produtoId, total.estimar(produtoId));
+        versao++;
+    }
+
+    /**
+     * Os produtos mais vendidos da janela, do mais para o menos vendido (no máximo o tamanho do top-K).
+     */
+    List<ProdutoContagem> ranking(long agoraMs) {
+        long indice = agoraMs / duracaoBaldeMs;
+        Ranking atual = ranking;
+        if (atual.versao == versao && atual.balde == indice) {
+            return atual.itens;
+        }
+        synchronized (this) {
+            avancar(indice);
+            List<ProdutoContagem> itens = new ArrayList<>(topo.estimativas().size());
+            topo.estimativas().forEach((produtoId, quantidade) -> itens.add(new ProdutoContagem(produtoId, quantidade)));
+            itens.sort(Comparator.comparingLong(ProdutoContagem::quantidade).reversed()
+                    .thenComparingLong(ProdutoContagem::produtoId));
+            ranking = new Ranking(versao, baldeAtual, List.copyOf(itens));
+            return ranking.itens;
+        }
+    }
+
+    // Expira os baldes que saíram da janela e recalcula o top-K da janela (chamado com o monitor)
+    private void avancar(long indice) {
+        if (baldeAtual == Long.MIN_VALUE) {
+            baldeAtual = indice;
+            return;
+        }
+        if (indice <= baldeAtual) {
+            return;
+        }
+
+        long expirados = Math.min(indice - baldeAtual, baldes.length);
+        for (long i = 1; i <= expirados; i++) {
+            int posicao = (int) Math.floorMod(baldeAtual + i, (long) baldes.length);
+            total.combinar(baldes[posicao], -1);
+            baldes[posicao].limpar();
+            topoBaldes[posicao].limpar();
+        }
+        baldeAtual = indice;
+
+        List<Long> candidatos = new ArrayList<>(topo.chaves());
+        for (TopK topoBalde : topoBaldes) {
+            candidatos.addAll(topoBalde.chaves());
+        }
+        topo.limpar();
+        for (Long produtoId : candidatos) {
+            long estimativa = total.estimar(produtoId);
+            if (estimativa > 0) {
+                topo.oferecer(produtoId, estimativa);
+            }
+        }
+        versao++;
+    }
+
+    private record Ranking(long versao, long balde, List<ProdutoContagem> itens) {
+    }
+}
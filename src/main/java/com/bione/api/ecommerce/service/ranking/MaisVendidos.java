@@ -0,0 +1,144 @@
+package com.bione.api.ecommerce.service.ranking;
+
+import com.bione.api.ecommerce.dto.ProdutoDTO;
+import com.bione.api.ecommerce.dto.ProdutoVendidoDTO;
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.JanelaVendas;
+import com.bione.api.ecommerce.model.MarcaProcessamento;
+import com.bione.api.ecommerce.repository.MarcaProcessamentoRepository;
+import com.bione.api.ecommerce.repository.PedidoProdutoRepository;
+import com.bione.api.ecommerce.repository.VendasProdutoPeriodoRepository;
+import com.bione.api.ecommerce.service.cache.ProdutoCache;
+import com.bione.api.ecommerce.service.eventos.PedidoCriadoEvent;
+import com.bione.api.ecommerce.service.relatorios.AgregadorVendas;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Ranking aproximado dos produtos mais vendidos por janela (1h, 24h e 7d), mantido em memória a partir
+ * das criações de pedido, sem consultar o banco na leitura.
+ *
+ * <p>Na inicialização, as janelas são carregadas com as vendas dos últimos 7 dias: das tabelas agregadas
+ * por hora até a marca da agregação de vendas e, dali em diante, dos itens de pedido. Pedidos criados
+ * enquanto essa carga acontece podem ser contados duas vezes. Todos os pedidos contam, inclusive os
+ * cancelados depois.</p>
+ */
+@Slf4j
+@Component
+public class MaisVendidos {
+
+    private final PedidoProdutoRepository pedidoProdutoRepository;
+    private final VendasProdutoPeriodoRepository vendasProdutoPeriodoRepository;
+    private final MarcaProcessamentoRepository marcaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProdutoCache produtoCache;
+    private final int tamanhoTopo;
+
+    private final Map<JanelaVendas, JanelaMaisVendidos> janelas = new EnumMap<>(JanelaVendas.class);
+
+    public MaisVendidos(PedidoProdutoRepository pedidoProdutoRepository,
+                        VendasProdutoPeriodoRepository vendasProdutoPeriodoRepository,
+                        MarcaProcessamentoRepository marcaRepository, TransactionTemplate transactionTemplate,
+                        ProdutoCache produtoCache,
+                        @Value("${ecommerce.mais-vendidos.largura-sketch:1024}") int larguraSketch,
+                        @Value("${ecommerce.mais-vendidos.profundidade-sketch:4}") int profundidadeSketch,
+                        @Value("${ecommerce.mais-vendidos.tamanho-topo:100}") int tamanhoTopo) {
+        this.pedidoProdutoRepository = pedidoProdutoRepository;
+        this.vendasProdutoPeriodoRepository = vendasProdutoPeriodoRepository;
+        this.marcaRepository = marcaRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.produtoCache = produtoCache;
+        this.tamanhoTopo = tamanhoTopo;
+        for (JanelaVendas janela : JanelaVendas.values()) {
+            janelas.put(janela, new JanelaMaisVendidos(janela, larguraSketch, profundidadeSketch, tamanhoTopo));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> carregarUltimosDias());
+        } catch (RuntimeException e) {
+            log.error("Falha ao carregar o ranking de mais vendidos (começa vazio): {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoCriarPedido(PedidoCriadoEvent evento) {
+        long agora = System.currentTimeMillis();
+        evento.getQuantidades().forEach((produtoId, quantidade) ->
+                janelas.values().forEach(janela -> janela.adicionar(agora, agora, produtoId, quantidade)));
+    }
+
+    /**
+     * Os {@code limite} produtos mais vendidos na janela, do mais para o menos vendido.
+     */
+    public List<ProdutoVendidoDTO> maisVendidos(JanelaVendas janela, int limite) {
+        List<ProdutoContagem> ranking = janelas.get(janela).ranking(System.currentTimeMillis());
+        List<ProdutoContagem> topo = ranking.subList(0, Math.min(ranking.size(), Math.max(1, Math.min(limite, tamanhoTopo))));
+
+        Map<Long, ProdutoDTO> produtos = produtoCache.buscarTodos(topo.stream()
+                .map(ProdutoContagem::produtoId)
+                .collect(Collectors.toSet()));
+        return topo.stream()
+                .map(item -> {
+                    ProdutoDTO produto = produtos.get(item.produtoId());
+                    return new ProdutoVendidoDTO(item.produtoId(), produto != null ? produto.getNome() : null,
+                            item.quantidade());
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void carregarUltimosDias() {
+        long agora = System.currentTimeMillis();
+        LocalDateTime fim = LocalDateTime.now().plusMinutes(1);
+        LocalDateTime inicio = LocalDateTime.now().minus(JanelaVendas.SETE_DIAS.getDuracao());
+
+        // Horas já agregadas (até a hora da marca, e não na última hora, que a janela de 1h divide em baldes menores)
+        LocalDateTime corte = marcaRepository.findById(AgregadorVendas.MARCA)
+                .map(MarcaProcessamento::getValor)
+                .map(Granularidade.HORA::inicio)
+                .filter(marca -> marca.isAfter(inicio))
+                .map(marca -> min(marca, Granularidade.HORA.inicio(LocalDateTime.now().minus(JanelaVendas.UMA_HORA.getDuracao()))))
+                .orElse(inicio);
+        int linhas = 0;
+        if (corte.isAfter(inicio)) {
+            for (var vendas : vendasProdutoPeriodoRepository.findPeriodo(Granularidade.HORA, inicio, corte)) {
+                adicionar(vendas.getInicio(), agora, vendas.getProdutoId(), vendas.getUnidades());
+                linhas++;
+            }
+        }
+
+        // Restante a partir dos itens de pedido, um dia por consulta
+        for (LocalDateTime de = corte; de.isBefore(fim); de = de.plusDays(1)) {
+            LocalDateTime ate = min(de.plusDays(1), fim);
+            for (var item : pedidoProdutoRepository.findVendasItensNoPeriodo(de, ate)) {
+                adicionar(item.getDataPedido(), agora, item.getProdutoId(), item.getQuantidade());
+                linhas++;
+            }
+        }
+        log.info("Ranking de mais vendidos carregado com {} registro(s) de venda desde {}", linhas, inicio);
+    }
+
+    private void adicionar(LocalDateTime instante, long agora, long produtoId, long quantidade) {
+        long instanteMs = instante.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        janelas.values().forEach(janela -> janela.adicionar(instanteMs, agora, produtoId, quantidade));
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,7 @@
+package com.bione.api.ecommerce.service.ranking;
+
+/**
+ * Quantidade vendida (estimada) de um produto em uma janela.
+ */
+record ProdutoContagem(long produtoId, long quantidade) {
+}
@@ -0,0 +1,53 @@
+package com.bione.api.ecommerce.service.ranking;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * As K chaves com maior estimativa vistas até agora. Uma chave nova entra no lugar da menor quando a
+ * supera; com K pequeno (dezenas a centenas), a busca linear pela menor é mais barata que manter um heap
+ * com remoções e atualizações de prioridade. Não é thread-safe.
+ */
+final class TopK {
+
+    private final int capacidade;
+    private final Map<Long, Long> estimativas;
+
+    TopK(int capacidade) {
+        this.capacidade = capacidade;
+        this.estimativas = new HashMap<>(capacidade * 2);
+    }
+
+    void oferecer(long chave, long estimativa) {
+        if (estimativas.containsKey(chave) || estimativas.size() < capacidade) {
+            estimativas.put(chave, estimativa);
+            return;
+        }
+
+        Long menorChave = null;
+        long menor = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> entrada : estimativas.entrySet()) {
+            if (entrada.getValue() < menor) {
+                menor = entrada.getValue();
+                menorChave = entrada.getKey();
+            }
+        }
+        if (estimativa > menor) {
+            estimativas.remove(menorChave);
+            estimativas.put(chave, estimativa);
+        }
+    }
+
+    Set<Long> chaves() {
+        return estimativas.keySet();
+    }
+
+    Map<Long, Long> estimativas() {
+        return estimativas;
+    }
+
+    void limpar() {
+        estimativas.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.bione.api.ecommerce.service.rastreamento;
+
+import java.util.Arrays;
+
+/**
+ * Codificação Base32 de Crockford para inteiros não negativos de 64 bits, com símbolo verificador (módulo 37).
+ * O alfabeto não tem I, L, O nem U (na leitura, I/L valem 1 e O vale 0) e está em ordem ASCII,
+ * então códigos de mesmo tamanho ordenam como texto na mesma ordem que os números.
+ */
+public final class Base32Crockford {
+
+    // Caracteres de um long não negativo codificado (13 x 5 = 65 bits para 63)
+    public static final int TAMANHO = 13;
+
+    private static final char[] SIMBOLOS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ*~$=U".toCharArray();
+    private static final int[] VALORES = new int[128];
+
+    static {
+        Arrays.fill(VALORES, -1);
+        for (int i = 0; i < SIMBOLOS.length; i++) {
+            VALORES[SIMBOLOS[i]] = i;
+            VALORES[Character.toLowerCase(SIMBOLOS[i])] = i;
+        }
+        VALORES['O'] = VALORES['o'] = 0;
+        VALORES['I'] = VALORES['i'] = VALORES['L'] = VALORES['l'] = 1;
+    }
+
+    private Base32Crockford() {
+    }
+
+    /**
+     * Codifica o valor em {@value #TAMANHO} caracteres (com zeros à esquerda) seguidos do símbolo verificador.
+     */
+    public static String codificarComVerificador(long valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("Valor negativo: " + valor);
+        }
+        char[] codigo = new char[TAMANHO + 1];
+        long resto = valor;
+        for (int i = TAMANHO - 1; i >= 0; i--) {
+            codigo[i] = SIMBOLOS[(int) (resto & 31)];
+            resto >>>= 5;
+        }
+        codigo[TAMANHO] = SIMBOLOS[verificador(valor)];
+        return new String(codigo);
+    }
+
+    /**
+     * Decodifica um código gerado por {@link #codificarComVerificador(long)}.
+     * @return o valor, ou -1 se o tamanho, algum símbolo ou o verificador não conferirem
+     */
+    public static long decodificarComVerificador(String codigo) {
+        if (codigo == null || codigo.length() != TAMANHO + 1) {
+            return -1;
+        }
+        long valor = 0;
+        for (int i = 0; i < TAMANHO; i++) {
+            int simbolo = valorDe(codigo.charAt(i));
+            // O primeiro caractere só carrega 3 bits (63 no total); os símbolos de verificação não são dígitos
+            if (simbolo < 0 || simbolo > 31 || (i == 0 && simbolo > 7)) {
+                return -1;
+            }
+            valor = (valor << 5) | simbolo;
+        }
+        return valorDe(codigo.charAt(TAMANHO)) == verificador(valor) ? valor : -1;
+    }
+
+    private static int verificador(long valor) {
+        return (int) (valor % 37);
+    }
+
+    private static int valorDe(char simbolo) {
+        return simbolo < VALORES.length ? VALORES[simbolo] : -1;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bione.api.ecommerce.service.rastreamento;
+
+/**
+ * Estratégia de geração do número de rastreamento atribuído a cada pedido criado.
+ * Selecionada pela propriedade {@code ecommerce.rastreamento.gerador} ({@code temporal} ou {@code uuid}).
+ */
+public interface GeradorCodigoRastreamento {
+
+    /**
+     * Gera um código novo; seguro para chamadas concorrentes.
+     */
+    String gerar();
+
+    /**
+     * Indica se o código tem o formato (e, quando houver, o dígito verificador) dos códigos deste gerador.
+     */
+    boolean valido(String codigo);
+}
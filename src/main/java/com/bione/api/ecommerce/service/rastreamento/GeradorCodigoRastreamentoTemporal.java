@@ -0,0 +1,95 @@
+package com.bione.api.ecommerce.service.rastreamento;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Códigos curtos e ordenados no tempo, no estilo Snowflake: 63 bits com 41 de milissegundos desde
+ * {@link #EPOCA}, 10 do nó (instância) e 12 de sequência dentro do milissegundo, escritos em Base32 de
+ * Crockford com símbolo verificador (14 caracteres, ex.: {@code 06K00NB904M000}).
+ *
+ * <p>Códigos novos são sempre maiores que os anteriores do mesmo nó, então as inserções no índice único
+ * de {@code numero_rastreamento} vão para o fim da árvore. A geração não tem lock nem {@code SecureRandom}:
+ * o par (milissegundo, sequência) avança por CAS. Quando a sequência de um milissegundo se esgota, ou o
+ * relógio volta atrás, o gerador segue do último valor emitido (adianta o milissegundo) em vez de esperar.</p>
+ *
+ * <p>Com mais de uma instância, cada uma deve ter o seu {@code ecommerce.rastreamento.no} (0 a 1023);
+ * sem ele, o nó é derivado do nome da máquina e do PID, e duas instâncias podem coincidir.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ecommerce.rastreamento.gerador", havingValue = "temporal", matchIfMissing = true)
+public class GeradorCodigoRastreamentoTemporal implements GeradorCodigoRastreamento {
+
+    public static final Instant EPOCA = Instant.parse("2025-01-01T00:00:00Z");
+
+    private static final int BITS_NO = 10;
+    private static final int BITS_SEQUENCIA = 12;
+    public static final int MAXIMO_NO = (1 << BITS_NO) - 1;
+
+    private final long no;
+    private final LongSupplier relogio;
+
+    // Último (milissegundo desde a época << BITS_SEQUENCIA | sequência) emitido
+    private final AtomicLong ultimo = new AtomicLong();
+
+    @Autowired
+    public GeradorCodigoRastreamentoTemporal(@Value("${ecommerce.rastreamento.no:-1}") int no) {
+        this(no < 0 ? noPadrao() : no, System::currentTimeMillis);
+        log.info("Gerador de códigos de rastreamento temporal no nó {}", this.no);
+    }
+
+    public GeradorCodigoRastreamentoTemporal(int no, LongSupplier relogio) {
+        if (no < 0 || no > MAXIMO_NO) {
+            throw new IllegalArgumentException("Nó do gerador de rastreamento fora de 0.." + MAXIMO_NO + ": " + no);
+        }
+        this.no = no;
+        this.relogio = relogio;
+    }
+
+    @Override
+    public String gerar() {
+        long agora = (relogio.getAsLong() - EPOCA.toEpochMilli()) << BITS_SEQUENCIA;
+        long instante = ultimo.updateAndGet(anterior -> Math.max(agora, anterior + 1));
+
+        long milissegundo = instante >>> BITS_SEQUENCIA;
+        long sequencia = instante & ((1 << BITS_SEQUENCIA) - 1);
+        return Base32Crockford.codificarComVerificador(
+                (milissegundo << (BITS_NO + BITS_SEQUENCIA)) | (no << BITS_SEQUENCIA) | sequencia);
+    }
+
+    @Override
+    public boolean valido(String codigo) {
+        return Base32Crockford.decodificarComVerificador(codigo) >= 0;
+    }
+
+    /**
+     * Momento em que um código válido foi gerado (precisão de milissegundos).
+     */
+    public static Instant instante(String codigo) {
+        long valor = Base32Crockford.decodificarComVerificador(codigo);
+        if (valor < 0) {
+            throw new IllegalArgumentException("Código de rastreamento inválido: " + codigo);
+        }
+        return EPOCA.plusMillis(valor >>> (BITS_NO + BITS_SEQUENCIA));
+    }
+
+    private static int noPadrao() {
+        String maquina;
+        try {
+            maquina = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            maquina = "";
+        }
+        return (31 * maquina.hashCode() + Long.hashCode(ProcessHandle.current().pid())) & MAXIMO_NO;
+    }
+}
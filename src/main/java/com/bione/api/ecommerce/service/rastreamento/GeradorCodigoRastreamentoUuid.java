@@ -0,0 +1,37 @@
+package com.bione.api.ecommerce.service.rastreamento;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * UUID aleatório (36 caracteres), o formato usado antes do gerador temporal.
+ * Não tem ordem: as inserções se espalham pelo índice único de {@code numero_rastreamento}.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.rastreamento.gerador", havingValue = "uuid")
+public class GeradorCodigoRastreamentoUuid implements GeradorCodigoRastreamento {
+
+    @Override
+    public String gerar() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public boolean valido(String codigo) {
+        return formatoValido(codigo);
+    }
+
+    /**
+     * Formato UUID de 36 caracteres, também aceito nas consultas quando outro gerador está em uso
+     * (pedidos criados antes dele).
+     */
+    public static boolean formatoValido(String codigo) {
+        try {
+            return codigo != null && codigo.length() == 36 && UUID.fromString(codigo) != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
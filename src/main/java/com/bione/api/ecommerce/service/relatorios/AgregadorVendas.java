@@ -0,0 +1,251 @@
+package com.bione.api.ecommerce.service.relatorios;
+
+import com.bione.api.ecommerce.dto.VendaItemDTO;
+import com.bione.api.ecommerce.dto.VendaPedidoDTO;
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.MarcaProcessamento;
+import com.bione.api.ecommerce.model.VendasPeriodo;
+import com.bione.api.ecommerce.model.VendasProdutoPeriodo;
+import com.bione.api.ecommerce.repository.MarcaProcessamentoRepository;
+import com.bione.api.ecommerce.repository.PedidoProdutoRepository;
+import com.bione.api.ecommerce.repository.PedidoRepository;
+import com.bione.api.ecommerce.repository.VendasPeriodoRepository;
+import com.bione.api.ecommerce.repository.VendasProdutoPeriodoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Mantém as tabelas de vendas agregadas por hora e por dia ({@code vendas_periodo} e
+ * {@code vendas_produto_periodo}), lidas pelos relatórios no lugar de pedidos e itens.
+ *
+ * <p>A cada execução, só as horas com pedidos criados ou com status alterado desde a última marca
+ * ({@code Pedido.dataAtualizacao}) são recalculadas por inteiro, assim como os dias que as contêm.
+ * Recalcular é idempotente, então processar uma hora duas vezes não tem efeito. A nova marca fica
+ * alguns segundos antes do início da execução, para cobrir transações que gravaram a data antes do
+ * commit. Na primeira execução (sem marca), todo o histórico é agregado, um dia por transação.</p>
+ *
+ * <p>Com várias instâncias, cada execução segura a linha da marca com {@code SELECT ... FOR UPDATE}
+ * do início ao fim: a execução de outra instância espera, lê a marca já avançada e recalcula só o que
+ * mudou depois. Os blocos são gravados em transações próprias, fora da que segura o bloqueio.</p>
+ */
+@Slf4j
+@Component
+public class AgregadorVendas {
+
+    public static final String MARCA = "agregacao_vendas";
+
+    // Valor da marca criada antes da primeira execução: nada agregado ainda
+    static final LocalDateTime SEM_MARCA = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // Horas consecutivas recalculadas em uma mesma transação
+    private static final int HORAS_POR_BLOCO = 24;
+
+    private final PedidoRepository pedidoRepository;
+    private final PedidoProdutoRepository pedidoProdutoRepository;
+    private final VendasPeriodoRepository vendasPeriodoRepository;
+    private final VendasProdutoPeriodoRepository vendasProdutoPeriodoRepository;
+    private final MarcaProcessamentoRepository marcaRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate transacaoBloco;
+    private final boolean habilitado;
+    private final Duration margem;
+    private final Timer tempoExecucao;
+
+    public AgregadorVendas(PedidoRepository pedidoRepository, PedidoProdutoRepository pedidoProdutoRepository,
+                           VendasPeriodoRepository vendasPeriodoRepository,
+                           VendasProdutoPeriodoRepository vendasProdutoPeriodoRepository,
+                           MarcaProcessamentoRepository marcaRepository, EntityManager entityManager,
+                           TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                           @Value("${ecommerce.relatorios.agregacao.habilitada:true}") boolean habilitado,
+                           @Value("${ecommerce.relatorios.agregacao.margem-segundos:120}") long margemSegundos) {
+        this.pedidoRepository = pedidoRepository;
+        this.pedidoProdutoRepository = pedidoProdutoRepository;
+        this.vendasPeriodoRepository = vendasPeriodoRepository;
+        this.vendasProdutoPeriodoRepository = vendasProdutoPeriodoRepository;
+        this.marcaRepository = marcaRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.transacaoBloco = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transacaoBloco.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.habilitado = habilitado;
+        this.margem = Duration.ofSeconds(margemSegundos);
+        this.tempoExecucao = Timer.builder("ecommerce.relatorios.agregacao")
+                .description("Duração de uma execução da agregação incremental de vendas")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${ecommerce.relatorios.agregacao.intervalo-ms:60000}",
+            fixedDelayString = "${ecommerce.relatorios.agregacao.intervalo-ms:60000}")
+    public void agendada() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            processar();
+        } catch (RuntimeException e) {
+            log.error("Falha na agregação de vendas (será repetida na próxima execução): {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recalcula as horas (e dias) afetados desde a última marca e avança a marca.
+     * Bloqueia a marca no banco durante a execução (ver a documentação da classe).
+     * @return Quantidade de horas recalculadas
+     */
+    public synchronized int processar() {
+        return tempoExecucao.record(() -> {
+            criarMarcaSeAusente();
+            return transactionTemplate.execute(status -> {
+                MarcaProcessamento bloqueada = marcaRepository.findParaAtualizar(MARCA)
+                        .orElseThrow(() -> new IllegalStateException("Marca " + MARCA + " não encontrada"));
+                // Depois do bloqueio: se outra instância estava executando, a marca lida já é a dela
+                LocalDateTime novaMarca = LocalDateTime.now().minus(margem);
+                LocalDateTime marca = SEM_MARCA.equals(bloqueada.getValor()) ? null : bloqueada.getValor();
+
+                List<LocalDateTime[]> blocos = marca == null ? blocosDoHistorico() : blocosAtualizadosApos(marca);
+                int horas = 0;
+                for (LocalDateTime[] bloco : blocos) {
+                    transacaoBloco.executeWithoutResult(bloqueio -> reagregar(bloco[0], bloco[1]));
+                    horas += (int) Duration.between(bloco[0], bloco[1]).toHours();
+                }
+
+                bloqueada.setValor(novaMarca);
+                if (horas > 0) {
+                    log.info("Agregação de vendas: {} hora(s) recalculada(s) desde {}", horas, marca);
+                }
+                return horas;
+            });
+        });
+    }
+
+    // A linha da marca precisa existir para ser bloqueada; se duas instâncias a criarem juntas, uma falha e segue
+    private void criarMarcaSeAusente() {
+        if (marcaRepository.existsById(MARCA)) {
+            return;
+        }
+        try {
+            // persist e não save: o merge de um ID atribuído sobrescreveria a marca criada por outra instância
+            transactionTemplate.executeWithoutResult(status ->
+                    entityManager.persist(new MarcaProcessamento(MARCA, SEM_MARCA)));
+        } catch (RuntimeException e) {
+            // Chave duplicada (a exceção não passa pela tradução dos repositórios): vale a linha da outra instância
+            if (!marcaRepository.existsById(MARCA)) {
+                throw e;
+            }
+            log.debug("Marca {} criada por outra instância", MARCA);
+        }
+    }
+
+    // Sem marca: do primeiro pedido até a hora atual, em blocos de um dia
+    private List<LocalDateTime[]> blocosDoHistorico() {
+        LocalDateTime primeiro = pedidoRepository.findMenorDataPedido();
+        List<LocalDateTime[]> blocos = new ArrayList<>();
+        if (primeiro == null) {
+            return blocos;
+        }
+        LocalDateTime fim = Granularidade.HORA.proximo(Granularidade.HORA.inicio(LocalDateTime.now()));
+        for (LocalDateTime de = Granularidade.DIA.inicio(primeiro); de.isBefore(fim); de = Granularidade.DIA.proximo(de)) {
+            LocalDateTime ate = Granularidade.DIA.proximo(de);
+            blocos.add(new LocalDateTime[]{de, ate.isBefore(fim) ? ate : fim});
+        }
+        return blocos;
+    }
+
+    // Horas com pedidos criados ou alterados após a marca, agrupadas em blocos de horas consecutivas
+    private List<LocalDateTime[]> blocosAtualizadosApos(LocalDateTime marca) {
+        TreeSet<LocalDateTime> horas = new TreeSet<>(pedidoRepository.findHorasPedidoAtualizadosApos(marca));
+
+        List<LocalDateTime[]> blocos = new ArrayList<>();
+        LocalDateTime[] atual = null;
+        int horasNoBloco = 0;
+        for (LocalDateTime hora : horas) {
+            if (atual != null && atual[1].equals(hora) && horasNoBloco < HORAS_POR_BLOCO) {
+                atual[1] = Granularidade.HORA.proximo(hora);
+                horasNoBloco++;
+            } else {
+                atual = new LocalDateTime[]{hora, Granularidade.HORA.proximo(hora)};
+                blocos.add(atual);
+                horasNoBloco = 1;
+            }
+        }
+        return blocos;
+    }
+
+    // Recalcula as horas de [de, ate) a partir de pedidos e itens e, em seguida, os dias que as contêm
+    private void reagregar(LocalDateTime de, LocalDateTime ate) {
+        Map<VendasPeriodo.Chave, VendasPeriodo> porHora = new HashMap<>();
+        for (VendaPedidoDTO pedido : pedidoRepository.findVendasNoPeriodo(de, ate)) {
+            somar(porHora, Granularidade.HORA, Granularidade.HORA.inicio(pedido.getDataPedido()), pedido.getStatus(),
+                    1, valor(pedido.getTotal()));
+        }
+        Map<VendasProdutoPeriodo.Chave, VendasProdutoPeriodo> produtosPorHora = new HashMap<>();
+        for (VendaItemDTO item : pedidoProdutoRepository.findVendasItensNoPeriodo(de, ate)) {
+            somarProduto(produtosPorHora, Granularidade.HORA, Granularidade.HORA.inicio(item.getDataPedido()),
+                    item.getProdutoId(), item.getStatus(), item.getQuantidade(),
+                    valor(item.getPrecoUnitario()).multiply(BigDecimal.valueOf(item.getQuantidade())));
+        }
+        substituir(Granularidade.HORA, de, ate, porHora.values(), produtosPorHora.values());
+
+        // Dias: somados a partir das horas já gravadas (no máximo 24 linhas por status e produto)
+        LocalDateTime inicioDias = Granularidade.DIA.inicio(de);
+        LocalDateTime fimDias = Granularidade.DIA.proximo(Granularidade.DIA.inicio(ate.minusNanos(1)));
+        Map<VendasPeriodo.Chave, VendasPeriodo> porDia = new HashMap<>();
+        for (VendasPeriodo hora : vendasPeriodoRepository.findPeriodo(Granularidade.HORA, inicioDias, fimDias, null)) {
+            somar(porDia, Granularidade.DIA, Granularidade.DIA.inicio(hora.getInicio()), hora.getStatus(),
+                    hora.getQuantidadePedidos(), hora.getReceita());
+        }
+        Map<VendasProdutoPeriodo.Chave, VendasProdutoPeriodo> produtosPorDia = new HashMap<>();
+        for (VendasProdutoPeriodo hora : vendasProdutoPeriodoRepository.findPeriodo(Granularidade.HORA, inicioDias, fimDias)) {
+            somarProduto(produtosPorDia, Granularidade.DIA, Granularidade.DIA.inicio(hora.getInicio()),
+                    hora.getProdutoId(), hora.getStatus(), hora.getUnidades(), hora.getReceita());
+        }
+        substituir(Granularidade.DIA, inicioDias, fimDias, porDia.values(), produtosPorDia.values());
+    }
+
+    private void substituir(Granularidade granularidade, LocalDateTime de, LocalDateTime ate,
+                            Iterable<VendasPeriodo> vendas, Iterable<VendasProdutoPeriodo> vendasProdutos) {
+        vendasPeriodoRepository.removerFaixa(granularidade, de, ate);
+        vendasProdutoPeriodoRepository.removerFaixa(granularidade, de, ate);
+        // persist e não save: com ID atribuído, o save faria um SELECT (merge) antes de cada INSERT
+        vendas.forEach(entityManager::persist);
+        vendasProdutos.forEach(entityManager::persist);
+        entityManager.flush();
+    }
+
+    private static void somar(Map<VendasPeriodo.Chave, VendasPeriodo> mapa, Granularidade granularidade,
+                              LocalDateTime inicio, StatusPedido status, long pedidos, BigDecimal receita) {
+        mapa.computeIfAbsent(new VendasPeriodo.Chave(granularidade, inicio, status),
+                        chave -> new VendasPeriodo(granularidade, inicio, status, 0, BigDecimal.ZERO))
+                .somar(pedidos, receita);
+    }
+
+    private static void somarProduto(Map<VendasProdutoPeriodo.Chave, VendasProdutoPeriodo> mapa,
+                                     Granularidade granularidade, LocalDateTime inicio, Long produtoId,
+                                     StatusPedido status, long unidades, BigDecimal receita) {
+        mapa.computeIfAbsent(new VendasProdutoPeriodo.Chave(granularidade, inicio, produtoId, status),
+                        chave -> new VendasProdutoPeriodo(granularidade, inicio, produtoId, status, 0, BigDecimal.ZERO))
+                .somar(unidades, receita);
+    }
+
+    private static BigDecimal valor(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,84 @@
+package com.bione.api.ecommerce.service.relatorios;
+
+import com.bione.api.ecommerce.dto.ProdutoDTO;
+import com.bione.api.ecommerce.dto.VendasPeriodoDTO;
+import com.bione.api.ecommerce.dto.VendasProdutoDTO;
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.repository.VendasPeriodoRepository;
+import com.bione.api.ecommerce.repository.VendasProdutoPeriodoRepository;
+import com.bione.api.ecommerce.service.cache.ProdutoCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Relatórios de vendas. Leem apenas as tabelas agregadas mantidas pelo {@link AgregadorVendas}: o custo
+ * depende do tamanho do intervalo pedido, não do volume de pedidos. Refletem os pedidos até a última
+ * execução da agregação.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RelatorioVendasService {
+
+    // Intervalo máximo, em dias, de um relatório por hora
+    public static final int MAXIMO_DIAS_POR_HORA = 31;
+    public static final int LIMITE_MAXIMO_PRODUTOS = 500;
+
+    private final VendasPeriodoRepository vendasPeriodoRepository;
+    private final VendasProdutoPeriodoRepository vendasProdutoPeriodoRepository;
+    private final ProdutoCache produtoCache;
+
+    /**
+     * Pedidos e receita por período e status, de {@code de} até {@code ate} (inclusive).
+     * @param status Filtro opcional; nulo retorna todos os status
+     */
+    @Transactional(readOnly = true)
+    public List<VendasPeriodoDTO> vendasPorPeriodo(LocalDate de, LocalDate ate, Granularidade granularidade,
+                                                   StatusPedido status) {
+        validarIntervalo(de, ate);
+        if (granularidade == Granularidade.HORA && ChronoUnit.DAYS.between(de, ate) >= MAXIMO_DIAS_POR_HORA) {
+            throw new IllegalArgumentException("O relatório por hora aceita no máximo " + MAXIMO_DIAS_POR_HORA + " dias");
+        }
+        return vendasPeriodoRepository.findPeriodo(granularidade, de.atStartOfDay(), ate.plusDays(1).atStartOfDay(), status)
+                .stream()
+                .map(VendasPeriodoDTO::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Produtos mais vendidos (unidades e receita) de {@code de} até {@code ate} (inclusive).
+     */
+    @Transactional(readOnly = true)
+    public List<VendasProdutoDTO> vendasPorProduto(LocalDate de, LocalDate ate, StatusPedido status, int limite) {
+        validarIntervalo(de, ate);
+        List<VendasProdutoDTO> vendas = vendasProdutoPeriodoRepository.somarPorProduto(Granularidade.DIA,
+                de.atStartOfDay(), ate.plusDays(1).atStartOfDay(), status,
+                Limit.of(Math.max(1, Math.min(limite, LIMITE_MAXIMO_PRODUTOS))));
+
+        // Nomes vindos do cache do catálogo (produtos removidos ficam sem nome)
+        Map<Long, ProdutoDTO> produtos = produtoCache.buscarTodos(vendas.stream()
+                .map(VendasProdutoDTO::getProdutoId)
+                .collect(Collectors.toSet()));
+        vendas.forEach(venda -> {
+            ProdutoDTO produto = produtos.get(venda.getProdutoId());
+            venda.setNome(produto != null ? produto.getNome() : null);
+        });
+        return vendas;
+    }
+
+    private void validarIntervalo(LocalDate de, LocalDate ate) {
+        if (de == null || ate == null || ate.isBefore(de)) {
+            throw new IllegalArgumentException("Intervalo inválido: de " + de + " até " + ate);
+        }
+    }
+}
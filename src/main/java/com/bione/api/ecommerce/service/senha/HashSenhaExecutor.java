@@ -0,0 +1,83 @@
+package com.bione.api.ecommerce.service.senha;
+
+import com.bione.api.ecommerce.exception.ServicoSobrecarregadoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executa a criptografia BCrypt de senhas fora das threads do Tomcat.
+ *
+ * <p>O pool tem uma thread por núcleo (o BCrypt só consome CPU) e uma fila limitada. Com a fila cheia
+ * a tarefa é recusada na hora com {@link ServicoSobrecarregadoException} (503 + Retry-After), em vez de
+ * acumular requisições e esgotar as threads que atendem os demais endpoints.</p>
+ *
+ * <p>Métricas: {@code executor.*} (tag {@code name=hash-senha}, inclui o tamanho da fila) e o timer
+ * {@code senha.hash} com o tempo de cada criptografia.</p>
+ */
+@Slf4j
+@Component
+public class HashSenhaExecutor {
+
+    private static final String NOME = "hash-senha";
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer tempoHash;
+    private final int retryAfterSegundos;
+
+    public HashSenhaExecutor(@Value("${ecommerce.senha.bcrypt.custo:10}") int custo,
+                             @Value("${ecommerce.senha.executor.threads:0}") int threads,
+                             @Value("${ecommerce.senha.executor.capacidade-fila:100}") int capacidadeFila,
+                             @Value("${ecommerce.senha.executor.retry-after-segundos:2}") int retryAfterSegundos,
+                             MeterRegistry meterRegistry) {
+        int tamanhoPool = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        this.passwordEncoder = new BCryptPasswordEncoder(custo);
+        this.retryAfterSegundos = retryAfterSegundos;
+        this.executor = new ThreadPoolExecutor(tamanhoPool, tamanhoPool, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila),
+                new CustomizableThreadFactory(NOME + "-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, NOME, Tags.empty()).bindTo(meterRegistry);
+        this.tempoHash = Timer.builder("senha.hash")
+                .description("Tempo de criptografia BCrypt de uma senha")
+                .tag("custo", String.valueOf(custo))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        log.info("Criptografia de senhas: BCrypt custo {}, {} threads, fila de {}", custo, tamanhoPool, capacidadeFila);
+    }
+
+    /**
+     * Agenda a criptografia de uma senha.
+     * @throws ServicoSobrecarregadoException se a fila estiver cheia
+     */
+    public CompletableFuture<String> criptografar(String senha) {
+        try {
+            return CompletableFuture.supplyAsync(() -> tempoHash.record(() -> passwordEncoder.encode(senha)), executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Fila de criptografia de senhas cheia ({} tarefas)", executor.getQueue().size());
+            throw new ServicoSobrecarregadoException("Muitas requisições de cadastro no momento", retryAfterSegundos);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,207 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.dto.StatusHistoryDTO;
+import com.bione.api.ecommerce.enums.Granularidade;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.Cliente;
+import com.bione.api.ecommerce.model.MarcaProcessamento;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.model.VendasPeriodo;
+import com.bione.api.ecommerce.model.VendasProdutoPeriodo;
+import com.bione.api.ecommerce.repository.MarcaProcessamentoRepository;
+import com.bione.api.ecommerce.repository.PedidoRepository;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.bione.api.ecommerce.repository.VendasPeriodoRepository;
+import com.bione.api.ecommerce.repository.VendasProdutoPeriodoRepository;
+import com.bione.api.ecommerce.service.PedidoService;
+import com.bione.api.ecommerce.service.relatorios.AgregadorVendas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agregação incremental de vendas: horas e dias recalculados, marca d'água, recálculo de pedidos antigos
+ * com status alterado e bloqueio da marca entre execuções concorrentes.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "ecommerce.relatorios.agregacao.habilitada=false",
+        "ecommerce.relatorios.agregacao.margem-segundos=0"
+})
+@Import(DadosTeste.class)
+class AgregadorVendasTest {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private AgregadorVendas agregador;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private VendasPeriodoRepository vendasPeriodoRepository;
+
+    @Autowired
+    private VendasProdutoPeriodoRepository vendasProdutoPeriodoRepository;
+
+    @Autowired
+    private MarcaProcessamentoRepository marcaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+    private Produto produto;
+
+    @BeforeEach
+    public void preparar() {
+        cliente = dados.novoCliente();
+        produto = produtoRepository.save(new Produto(null, "Produto agregado", new BigDecimal("10.00"), 1_000, null));
+        // Parte de uma marca atual: só os pedidos de cada teste ficam para a próxima execução
+        agregador.processar();
+    }
+
+    @Test
+    public void testHorasEDiasRecalculados() {
+        LocalDateTime dia = LocalDateTime.of(2024, 1, 10, 0, 0);
+        LocalDateTime marca = marca();
+        pedidoEm(dia.withHour(10).withMinute(5).withSecond(1), 1);
+        pedidoEm(dia.withHour(10).withMinute(40).withSecond(30), 2);
+        pedidoEm(dia.withHour(11).withMinute(15), 3);
+
+        // Uma linha por hora, não por data de pedido
+        assertEquals(List.of(dia.withHour(10), dia.withHour(11)),
+                pedidoRepository.findHorasPedidoAtualizadosApos(marca).stream().sorted().toList());
+
+        assertEquals(2, agregador.processar());
+
+        List<VendasPeriodo> horas = vendasPeriodoRepository.findPeriodo(Granularidade.HORA, dia, dia.plusDays(1), null);
+        assertEquals(2, horas.size());
+        assertVendas(horas.get(0), dia.withHour(10), StatusPedido.EM_ANDAMENTO, 2, "30.00");
+        assertVendas(horas.get(1), dia.withHour(11), StatusPedido.EM_ANDAMENTO, 1, "30.00");
+
+        List<VendasPeriodo> dias = vendasPeriodoRepository.findPeriodo(Granularidade.DIA, dia, dia.plusDays(1), null);
+        assertEquals(1, dias.size());
+        assertVendas(dias.get(0), dia, StatusPedido.EM_ANDAMENTO, 3, "60.00");
+
+        List<VendasProdutoPeriodo> produtos = vendasProdutoPeriodoRepository.findPeriodo(Granularidade.DIA, dia, dia.plusDays(1));
+        assertEquals(1, produtos.size());
+        assertEquals(produto.getId(), produtos.get(0).getProdutoId());
+        assertEquals(6, produtos.get(0).getUnidades());
+        assertEquals(0, new BigDecimal("60.00").compareTo(produtos.get(0).getReceita()));
+    }
+
+    @Test
+    public void testMarcaAvancaASemNovasAlteracoes() {
+        LocalDateTime antes = LocalDateTime.now();
+        pedidoEm(LocalDateTime.of(2024, 2, 10, 8, 30), 1);
+
+        assertEquals(1, agregador.processar());
+        LocalDateTime marca = marca();
+        assertFalse(marca.isBefore(antes), marca + " antes de " + antes);
+        assertFalse(marca.isAfter(LocalDateTime.now()));
+
+        // Nada mudou desde a marca: nenhuma hora recalculada
+        assertEquals(0, agregador.processar());
+        assertFalse(marca().isBefore(marca));
+    }
+
+    @Test
+    public void testPedidoAntigoComStatusAlteradoERecalculado() {
+        LocalDateTime hora = LocalDateTime.of(2024, 3, 10, 9, 0);
+        Long pedidoId = pedidoEm(hora.withMinute(30), 2);
+        pedidoEm(hora.withMinute(45), 1);
+        assertEquals(1, agregador.processar());
+
+        pedidoService.atualizarStatusPedido(pedidoId, StatusHistoryDTO.builder()
+                .pedidoId(pedidoId).status(StatusPedido.CANCELADO).dataAlteracao(LocalDateTime.now()).build());
+
+        // A hora de criação do pedido (antiga) é recalculada, junto com o dia
+        assertEquals(1, agregador.processar());
+        List<VendasPeriodo> horas = vendasPeriodoRepository.findPeriodo(Granularidade.HORA, hora, hora.plusHours(1), null);
+        assertEquals(2, horas.size());
+        assertVendas(horas.get(0), hora, StatusPedido.CANCELADO, 1, "20.00");
+        assertVendas(horas.get(1), hora, StatusPedido.EM_ANDAMENTO, 1, "10.00");
+        List<VendasPeriodo> dias = vendasPeriodoRepository.findPeriodo(Granularidade.DIA,
+                hora.toLocalDate().atStartOfDay(), hora.toLocalDate().plusDays(1).atStartOfDay(), StatusPedido.CANCELADO);
+        assertEquals(1, dias.size());
+        assertEquals(1, dias.get(0).getQuantidadePedidos());
+    }
+
+    @Test
+    public void testExecucaoEsperaAMarcaBloqueadaPorOutraInstancia() throws Exception {
+        LocalDateTime hora = LocalDateTime.of(2024, 4, 10, 15, 0);
+        CountDownLatch bloqueada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        // Outra instância no meio de uma execução: segura a linha da marca
+        CompletableFuture<Void> outraInstancia = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    MarcaProcessamento marca = marcaRepository.findParaAtualizar(AgregadorVendas.MARCA).orElseThrow();
+                    bloqueada.countDown();
+                    try {
+                        liberar.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    marca.setValor(LocalDateTime.now());
+                }));
+        assertTrue(bloqueada.await(5, TimeUnit.SECONDS));
+        pedidoEm(hora.withMinute(10), 1);
+
+        CompletableFuture<Integer> execucao = CompletableFuture.supplyAsync(agregador::processar);
+        Thread.sleep(300);
+        assertFalse(execucao.isDone(), "A execução não esperou o bloqueio da marca");
+
+        liberar.countDown();
+        outraInstancia.get(5, TimeUnit.SECONDS);
+        // Lê a marca gravada pela outra instância, posterior ao pedido: nada a recalcular
+        assertEquals(0, execucao.get(5, TimeUnit.SECONDS));
+    }
+
+    private Long pedidoEm(LocalDateTime dataPedido, int quantidade) {
+        Long pedidoId = pedidoService.criarPedido(new PedidoRequestDTO(cliente.getId(),
+                List.of(new ProdutoQuantidadeDTO(produto.getId(), quantidade)))).getId();
+        jdbcTemplate.update("UPDATE pedidos SET data_pedido = ? WHERE id = ?", dataPedido, pedidoId);
+        return pedidoId;
+    }
+
+    private LocalDateTime marca() {
+        return marcaRepository.findById(AgregadorVendas.MARCA).orElseThrow().getValor();
+    }
+
+    private static void assertVendas(VendasPeriodo vendas, LocalDateTime inicio, StatusPedido status,
+                                     long pedidos, String receita) {
+        assertEquals(inicio, vendas.getInicio());
+        assertEquals(status, vendas.getStatus());
+        assertEquals(pedidos, vendas.getQuantidadePedidos());
+        assertEquals(0, new BigDecimal(receita).compareTo(vendas.getReceita()), vendas.getReceita().toString());
+    }
+}
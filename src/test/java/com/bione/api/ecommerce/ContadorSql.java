@@ -0,0 +1,29 @@
+package com.bione.api.ecommerce;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate.
+ * Registrado via {@code hibernate.session_factory.statement_inspector} nos testes que verificam
+ * quantas consultas um endpoint executa.
+ */
+public class ContadorSql implements StatementInspector {
+
+    private static final AtomicInteger TOTAL = new AtomicInteger();
+
+    @Override
+    public String inspect(String sql) {
+        TOTAL.incrementAndGet();
+        return sql;
+    }
+
+    public static void zerar() {
+        TOTAL.set(0);
+    }
+
+    public static int total() {
+        return TOTAL.get();
+    }
+}
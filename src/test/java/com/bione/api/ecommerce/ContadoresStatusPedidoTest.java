@@ -0,0 +1,286 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.ContagemStatusDTO;
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.dto.StatusHistoryDTO;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.exception.ServicoSobrecarregadoException;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.repository.PedidoRepository;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.bione.api.ecommerce.service.PedidoService;
+import com.bione.api.ecommerce.service.contagem.ContadoresStatusPedido;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Contadores de pedidos por status em memória: incrementos após o commit, correção pela reconciliação
+ * e eventos recebidos enquanto a consulta de reconciliação está em andamento.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "ecommerce.contagem.reconciliacao-ms=3600000"
+})
+@Import(DadosTeste.class)
+class ContadoresStatusPedidoTest {
+
+    // Espião só para executar algo logo depois da consulta de reconciliação (o resultado já foi lido do banco)
+    @MockitoSpyBean
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private ContadoresStatusPedido contadores;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile Runnable depoisDaConsulta;
+    private volatile boolean falharConsulta;
+    private final ExecutorService outraThread = Executors.newSingleThreadExecutor();
+    private Long cliente;
+    private Long produto;
+
+    @BeforeEach
+    public void preparar() {
+        // O espião de uma interface não tem método real: a resposta padrão repassa ao repositório original
+        Answer<?> original = mockingDetails(pedidoRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocacao -> {
+            if (falharConsulta) {
+                throw new IllegalStateException("Banco indisponível");
+            }
+            Object resultado = original.answer(invocacao);
+            Runnable acao = depoisDaConsulta;
+            if (acao != null) {
+                acao.run();
+            }
+            return resultado;
+        }).when(pedidoRepository).contarPorStatus();
+        cliente = dados.novoCliente().getId();
+        produto = produtoRepository.save(new Produto(null, "Produto contado", new BigDecimal("12.34"), 100_000, null)).getId();
+    }
+
+    @AfterEach
+    public void encerrar() {
+        depoisDaConsulta = null;
+        falharConsulta = false;
+        outraThread.shutdownNow();
+    }
+
+    @Test
+    public void testContadoresAcompanhamCriacaoEMudancasDeStatus() {
+        Map<StatusPedido, ContagemStatusDTO> antes = memoria();
+        List<Long> pedidos = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            pedidos.add(criarPedido(i));
+        }
+        alterarStatus(pedidos.get(0), StatusPedido.FINALIZADO);
+        alterarStatus(pedidos.get(1), StatusPedido.CANCELADO);
+        alterarStatus(pedidos.get(2), StatusPedido.PENDENTE);
+        alterarStatus(pedidos.get(2), StatusPedido.PENDENTE); // repetição: sem evento
+
+        Map<StatusPedido, ContagemStatusDTO> depois = memoria();
+        assertEquals(2, depois.get(StatusPedido.EM_ANDAMENTO).getQuantidade() - antes.get(StatusPedido.EM_ANDAMENTO).getQuantidade());
+        assertEquals(1, depois.get(StatusPedido.FINALIZADO).getQuantidade() - antes.get(StatusPedido.FINALIZADO).getQuantidade());
+        assertEquals(1, depois.get(StatusPedido.CANCELADO).getQuantidade() - antes.get(StatusPedido.CANCELADO).getQuantidade());
+        assertEquals(1, depois.get(StatusPedido.PENDENTE).getQuantidade() - antes.get(StatusPedido.PENDENTE).getQuantidade());
+        // Pedido de 1 unidade (12,34) que foi para FINALIZADO
+        assertEquals(0, new BigDecimal("12.34").compareTo(depois.get(StatusPedido.FINALIZADO).getTotal()
+                .subtract(antes.get(StatusPedido.FINALIZADO).getTotal())));
+        assertIgualAoBanco();
+    }
+
+    @Test
+    public void testSoOCommitAtualizaOsContadores() {
+        Long pedidoId = criarPedido(1);
+        Map<StatusPedido, ContagemStatusDTO> antes = memoria();
+
+        // Desfeita: nada muda, nem durante nem depois da transação
+        transactionTemplate.executeWithoutResult(status -> {
+            alterarStatus(pedidoId, StatusPedido.CANCELADO);
+            assertMesmasQuantidades(antes, memoria());
+            status.setRollbackOnly();
+        });
+        assertMesmasQuantidades(antes, memoria());
+
+        // Confirmada: aplicada só depois do commit
+        transactionTemplate.executeWithoutResult(status -> {
+            alterarStatus(pedidoId, StatusPedido.FINALIZADO);
+            assertMesmasQuantidades(antes, memoria());
+        });
+        assertEquals(antes.get(StatusPedido.FINALIZADO).getQuantidade() + 1, memoria().get(StatusPedido.FINALIZADO).getQuantidade());
+        assertIgualAoBanco();
+    }
+
+    @Test
+    public void testReconciliacaoCorrigeAlteracaoFeitaForaDaAplicacao() {
+        Long pedidoId = criarPedido(3);
+        double divergencias = meterRegistry.counter("ecommerce.contagem.divergencias").count();
+
+        jdbcTemplate.update("UPDATE pedidos SET status = 'CANCELADO' WHERE id = ?", pedidoId);
+        assertNotEquals(banco(), memoriaComoBanco());
+
+        contadores.reconciliar();
+        assertIgualAoBanco();
+        assertTrue(meterRegistry.counter("ecommerce.contagem.divergencias").count() > divergencias);
+    }
+
+    @Test
+    public void testEventosDuranteAReconciliacaoNaoSePerdem() throws Exception {
+        List<Long> pedidos = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            pedidos.add(criarPedido(i));
+        }
+        contadores.reconciliar();
+
+        // Commits feitos por outra thread depois de a consulta ler o banco e antes da correção
+        depoisDaConsulta = () -> {
+            try {
+                outraThread.submit(() -> {
+                    alterarStatus(pedidos.get(0), StatusPedido.FINALIZADO);
+                    alterarStatus(pedidos.get(1), StatusPedido.CANCELADO);
+                    alterarStatus(pedidos.get(2), StatusPedido.PENDENTE);
+                    criarPedido(7);
+                }).get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        contadores.reconciliar();
+        depoisDaConsulta = null;
+
+        // A correção usou um resultado do banco sem esses commits, mas somou os eventos anotados à parte
+        assertIgualAoBanco();
+        contadores.reconciliar();
+        assertIgualAoBanco();
+    }
+
+    @Test
+    public void testMetricaDeSucessoDoCheckoutSoDepoisDoCommit() {
+        double sucessos = resultados("sucesso");
+        double erros = resultados("erro");
+
+        // Pedido criado dentro de uma transação maior que acaba desfeita: não é um sucesso
+        transactionTemplate.executeWithoutResult(status -> {
+            criarPedido(1);
+            assertEquals(sucessos, resultados("sucesso"));
+            status.setRollbackOnly();
+        });
+        assertEquals(sucessos, resultados("sucesso"));
+        assertEquals(erros + 1, resultados("erro"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            criarPedido(1);
+            assertEquals(sucessos, resultados("sucesso"));
+        });
+        assertEquals(sucessos + 1, resultados("sucesso"));
+    }
+
+    @Test
+    public void testCargaQueFalhaContinuaIndisponivelAteAReconciliacao() {
+        ContadoresStatusPedido alvo = AopTestUtils.getTargetObject(contadores);
+        ReflectionTestUtils.setField(alvo, "carregado", false);
+
+        falharConsulta = true;
+        contadores.carregar();
+        assertThrows(ServicoSobrecarregadoException.class, contadores::contagem);
+        assertFalse(contadores.reconciliar());
+        assertThrows(ServicoSobrecarregadoException.class, contadores::contagem);
+
+        // A primeira reconciliação que dá certo libera a contagem
+        falharConsulta = false;
+        assertTrue(contadores.reconciliar());
+        assertIgualAoBanco();
+    }
+
+    private double resultados(String resultado) {
+        return meterRegistry.counter("ecommerce.operacao.resultado", "operacao", "criar_pedido", "resultado", resultado).count();
+    }
+
+    private Long criarPedido(int quantidade) {
+        return pedidoService.criarPedido(new PedidoRequestDTO(cliente,
+                List.of(new ProdutoQuantidadeDTO(produto, quantidade)))).getId();
+    }
+
+    private void alterarStatus(Long pedidoId, StatusPedido status) {
+        pedidoService.atualizarStatusPedido(pedidoId, StatusHistoryDTO.builder()
+                .pedidoId(pedidoId).status(status).dataAlteracao(LocalDateTime.now()).build());
+    }
+
+    private void assertIgualAoBanco() {
+        assertEquals(banco(), memoriaComoBanco());
+    }
+
+    private static void assertMesmasQuantidades(Map<StatusPedido, ContagemStatusDTO> esperado,
+                                                Map<StatusPedido, ContagemStatusDTO> atual) {
+        esperado.forEach((status, contagem) ->
+                assertEquals(contagem.getQuantidade(), atual.get(status).getQuantidade(), status.name()));
+    }
+
+    private Map<StatusPedido, ContagemStatusDTO> memoria() {
+        Map<StatusPedido, ContagemStatusDTO> mapa = new EnumMap<>(StatusPedido.class);
+        contadores.contagem().forEach(contagem -> mapa.put(contagem.getStatus(), contagem));
+        return mapa;
+    }
+
+    // "STATUS=quantidade/total" por status, a partir dos contadores (status sem pedidos omitidos)
+    private Map<StatusPedido, String> memoriaComoBanco() {
+        Map<StatusPedido, String> mapa = new EnumMap<>(StatusPedido.class);
+        memoria().forEach((status, contagem) -> {
+            if (contagem.getQuantidade() != 0) {
+                mapa.put(status, contagem.getQuantidade() + "/" + contagem.getTotal().setScale(2));
+            }
+        });
+        return mapa;
+    }
+
+    // O mesmo, direto da tabela (sem passar pelo repositório espionado)
+    private Map<StatusPedido, String> banco() {
+        Map<StatusPedido, String> mapa = new EnumMap<>(StatusPedido.class);
+        jdbcTemplate.query("SELECT status, COUNT(*), COALESCE(SUM(total), 0) FROM pedidos GROUP BY status", linha -> {
+            mapa.put(StatusPedido.valueOf(linha.getString(1)), linha.getLong(2) + "/" + linha.getBigDecimal(3).setScale(2));
+        });
+        return mapa;
+    }
+}
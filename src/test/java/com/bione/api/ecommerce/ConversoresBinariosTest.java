@@ -0,0 +1,120 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.exception.ErroPadraoDTO;
+import com.bione.api.ecommerce.model.Cliente;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.repository.ClienteRepository;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.bione.api.ecommerce.service.PedidoService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Negociação de CBOR e Smile pelo Accept: o mesmo conteúdo do JSON, em binário, inclusive nos erros.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Import(DadosTeste.class)
+@AutoConfigureMockMvc
+class ConversoresBinariosTest {
+
+    private static final String CBOR = "application/cbor";
+    private static final String SMILE = "application/x-jackson-smile";
+
+    // BigDecimal nos três formatos, para comparar as árvores sem diferença de escala
+    private final ObjectMapper json = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory()).enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory()).enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Test
+    public void testListagensEmCborESmileTemOMesmoConteudoDoJson() throws Exception {
+        Cliente cliente = dados.novoCliente();
+        Produto produto = produtoRepository.save(new Produto(null, "Caneca", new BigDecimal("24.90"), 1000, null));
+        for (int i = 0; i < 3; i++) {
+            pedidoService.criarPedido(new PedidoRequestDTO(cliente.getId(),
+                    List.of(new ProdutoQuantidadeDTO(produto.getId(), i + 1))));
+        }
+
+        for (String url : List.of("/api/pedidos", "/api/clientes", "/api/produtos/" + produto.getId())) {
+            JsonNode esperado = json.readTree(requisitar(url, "application/json", "application/json").getContentAsByteArray());
+            assertEquals(esperado, cbor.readTree(requisitar(url, CBOR, CBOR).getContentAsByteArray()), url);
+            assertEquals(esperado, smile.readTree(requisitar(url, SMILE, SMILE).getContentAsByteArray()), url);
+        }
+
+        // Sem Accept (ou com curinga) continua JSON
+        assertTrue(requisitar("/api/clientes", "*/*", "application/json").getContentAsString().startsWith("["));
+    }
+
+    @Test
+    public void testErroEmCbor() throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/api/clientes/999999").header(HttpHeaders.ACCEPT, CBOR)).andReturn();
+        assertEquals(404, resultado.getResponse().getStatus());
+        assertTrue(resultado.getResponse().getContentType().startsWith(CBOR));
+        ErroPadraoDTO erro = cbor.readValue(resultado.getResponse().getContentAsByteArray(), ErroPadraoDTO.class);
+        assertEquals(404, erro.getStatus());
+    }
+
+    @Test
+    public void testEtagDiferentePorFormato() throws Exception {
+        dados.novoCliente();
+        Produto produto = produtoRepository.save(new Produto(null, "Prato", BigDecimal.TEN, 100, null));
+        pedidoService.criarPedido(new PedidoRequestDTO(clienteRepository.findAll().get(0).getId(),
+                List.of(new ProdutoQuantidadeDTO(produto.getId(), 1))));
+
+        String etagJson = requisitar("/api/pedidos", "application/json", "application/json").getHeader(HttpHeaders.ETAG);
+        MvcResult binario = mockMvc.perform(get("/api/pedidos").header(HttpHeaders.ACCEPT, CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, etagJson)).andReturn();
+        assertEquals(200, binario.getResponse().getStatus());
+        assertNotEquals(etagJson, binario.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(binario.getResponse().getHeader(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+
+        MvcResult naoModificado = mockMvc.perform(get("/api/pedidos").header(HttpHeaders.ACCEPT, CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, binario.getResponse().getHeader(HttpHeaders.ETAG))).andReturn();
+        assertEquals(304, naoModificado.getResponse().getStatus());
+    }
+
+    private MockHttpServletResponse requisitar(String url, String accept, String tipoEsperado)
+            throws Exception {
+        MvcResult resultado = mockMvc.perform(get(url).header(HttpHeaders.ACCEPT, accept)).andReturn();
+        assertEquals(200, resultado.getResponse().getStatus(), url + " (" + accept + ")");
+        assertTrue(resultado.getResponse().getContentType().startsWith(tipoEsperado),
+                url + ": " + resultado.getResponse().getContentType());
+        return resultado.getResponse();
+    }
+}
@@ -0,0 +1,61 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.model.Cliente;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.repository.ClienteRepository;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Dados comuns aos testes de integração: cria clientes e produtos já gravados e confere estoque e pedidos
+ * direto no banco. Importado com {@code @Import(DadosTeste.class)}.
+ */
+@TestComponent
+public class DadosTeste {
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public Cliente novoCliente() {
+        return novoCliente("Cliente Teste");
+    }
+
+    // E-mail único: vários testes compartilham o mesmo contexto (e o mesmo banco)
+    public Cliente novoCliente(String nome) {
+        Cliente cliente = new Cliente();
+        cliente.setNome(nome);
+        cliente.setEmail(UUID.randomUUID() + "@teste.com");
+        cliente.setTelefone("(11) 98765-4321");
+        cliente.setEstado("SP");
+        cliente.setCidade("São Paulo");
+        cliente.setBairro("Centro");
+        cliente.setRua("Rua das Flores");
+        cliente.setCep("01000-000");
+        cliente.setNumero("123");
+        cliente.setSenha("senha");
+        return clienteRepository.save(cliente);
+    }
+
+    public Produto novoProduto(String nome, int estoque) {
+        return produtoRepository.save(new Produto(null, nome, BigDecimal.TEN, estoque, null));
+    }
+
+    public int estoque(Long produtoId) {
+        return jdbcTemplate.queryForObject("SELECT estoque FROM produtos WHERE id = ?", Integer.class, produtoId);
+    }
+
+    public int contarPedidos(Long clienteId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedidos WHERE cliente_id = ?", Integer.class, clienteId);
+    }
+}
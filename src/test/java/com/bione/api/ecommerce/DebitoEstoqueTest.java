@@ -0,0 +1,124 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.exception.EstoqueInsuficienteException;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.bione.api.ecommerce.service.PedidoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Débito condicional de estoque ({@code UPDATE ... WHERE estoque >= ?}) com checkouts concorrentes
+ * e com parte dos produtos sem estoque.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "ecommerce.estoque.modo=banco"
+})
+@Import(DadosTeste.class)
+class DebitoEstoqueTest {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void testDebitoParcialDevolveSoOsRecusados() {
+        Long caneta = dados.novoProduto("Caneta", 10).getId();
+        Long lapis = dados.novoProduto("Lápis", 3).getId();
+        Long borracha = dados.novoProduto("Borracha", 5).getId();
+        Long inexistente = borracha + 1_000;
+
+        Map<Long, Integer> quantidades = new LinkedHashMap<>();
+        quantidades.put(inexistente, 1);
+        quantidades.put(borracha, 5);
+        quantidades.put(lapis, 4);
+        quantidades.put(caneta, 2);
+        List<Long> recusados = transactionTemplate.execute(status -> produtoRepository.debitarEstoque(quantidades));
+
+        assertEquals(List.of(lapis, inexistente), recusados);
+        assertEquals(8, dados.estoque(caneta));
+        assertEquals(3, dados.estoque(lapis));
+        assertEquals(0, dados.estoque(borracha));
+    }
+
+    @Test
+    public void testCheckoutComProdutoSemEstoqueNaoDebitaNenhum() {
+        Long cliente = dados.novoCliente().getId();
+        Long caneta = dados.novoProduto("Caneta", 10).getId();
+        Long lapis = dados.novoProduto("Lápis", 3).getId();
+
+        EstoqueInsuficienteException erro = assertThrows(EstoqueInsuficienteException.class, () ->
+                pedidoService.criarPedido(new PedidoRequestDTO(cliente, List.of(
+                        new ProdutoQuantidadeDTO(caneta, 2), new ProdutoQuantidadeDTO(lapis, 4)))));
+
+        assertEquals(List.of(lapis), erro.getProdutoIds());
+        assertEquals(10, dados.estoque(caneta));
+        assertEquals(3, dados.estoque(lapis));
+        assertEquals(0, dados.contarPedidos(cliente));
+    }
+
+    @Test
+    public void testCheckoutsConcorrentesNaoVendemAlemDoEstoque() throws Exception {
+        Long cliente = dados.novoCliente().getId();
+        Long disputado = dados.novoProduto("Último lote", 10).getId();
+        Long abundante = dados.novoProduto("Sempre disponível", 1_000).getId();
+        int checkouts = 40;
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int i = 0; i < checkouts; i++) {
+            tarefas.add(threads.submit(() -> {
+                largada.await();
+                return pedidoService.criarPedido(new PedidoRequestDTO(cliente, List.of(
+                        new ProdutoQuantidadeDTO(abundante, 1), new ProdutoQuantidadeDTO(disputado, 1))));
+            }));
+        }
+        largada.countDown();
+
+        int aceitos = 0;
+        for (Future<?> tarefa : tarefas) {
+            try {
+                tarefa.get(30, TimeUnit.SECONDS);
+                aceitos++;
+            } catch (ExecutionException e) {
+                EstoqueInsuficienteException recusa = assertInstanceOf(EstoqueInsuficienteException.class, e.getCause());
+                assertEquals(List.of(disputado), recusa.getProdutoIds());
+            }
+        }
+        threads.shutdown();
+
+        // Exatamente o estoque disputado foi vendido; os recusados não levaram o outro produto
+        assertEquals(10, aceitos);
+        assertEquals(0, dados.estoque(disputado));
+        assertEquals(1_000 - 10, dados.estoque(abundante));
+        assertEquals(10, dados.contarPedidos(cliente));
+    }
+}
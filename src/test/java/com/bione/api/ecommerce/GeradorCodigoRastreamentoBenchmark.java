@@ -0,0 +1,62 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.service.rastreamento.GeradorCodigoRastreamento;
+import com.bione.api.ecommerce.service.rastreamento.GeradorCodigoRastreamentoTemporal;
+import com.bione.api.ecommerce.service.rastreamento.GeradorCodigoRastreamentoUuid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão dos geradores de número de rastreamento com várias threads compartilhando a mesma instância,
+ * como nos checkouts concorrentes: o temporal (CAS em um {@code AtomicLong}) contra o UUID aleatório
+ * ({@code SecureRandom} compartilhado).
+ *
+ * <p>Não roda no {@code mvn test}; execute o {@link #main} como em {@link SerializacaoFormatosBenchmark}.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GeradorCodigoRastreamentoBenchmark {
+
+    @Param({"temporal", "uuid"})
+    private String gerador;
+
+    private GeradorCodigoRastreamento instancia;
+
+    @Setup
+    public void preparar() {
+        instancia = "uuid".equals(gerador)
+                ? new GeradorCodigoRastreamentoUuid()
+                : new GeradorCodigoRastreamentoTemporal(1);
+    }
+
+    @Benchmark
+    public String gerar() {
+        return instancia.gerar();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeradorCodigoRastreamentoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,125 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.service.rastreamento.GeradorCodigoRastreamentoTemporal;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unicidade, ordem e dígito verificador dos códigos de rastreamento temporais.
+ */
+class GeradorCodigoRastreamentoTest {
+
+    private static final int THREADS = 16;
+    private static final int CODIGOS_POR_THREAD = 50_000;
+
+    @Test
+    public void testCodigosUnicosEOrdenadosEntreThreads() throws Exception {
+        GeradorCodigoRastreamentoTemporal gerador = new GeradorCodigoRastreamentoTemporal(7);
+        Set<String> codigos = ConcurrentHashMap.newKeySet();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    String anterior = "";
+                    for (int i = 0; i < CODIGOS_POR_THREAD; i++) {
+                        String codigo = gerador.gerar();
+                        // Em uma mesma thread, cada código é maior (também como texto) que o anterior
+                        assertTrue(codigo.compareTo(anterior) > 0, anterior + " >= " + codigo);
+                        assertTrue(codigos.add(codigo), "Código repetido: " + codigo);
+                        anterior = codigo;
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREADS * CODIGOS_POR_THREAD, codigos.size());
+        codigos.forEach(codigo -> {
+            assertEquals(14, codigo.length());
+            assertTrue(gerador.valido(codigo), codigo);
+        });
+    }
+
+    @Test
+    public void testNosDiferentesNaoColidemNoMesmoMilissegundo() {
+        AtomicLong relogio = new AtomicLong(Instant.parse("2026-01-01T00:00:00Z").toEpochMilli());
+        GeradorCodigoRastreamentoTemporal a = new GeradorCodigoRastreamentoTemporal(1, relogio::get);
+        GeradorCodigoRastreamentoTemporal b = new GeradorCodigoRastreamentoTemporal(2, relogio::get);
+        Set<String> codigos = new java.util.HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(codigos.add(a.gerar()));
+            assertTrue(codigos.add(b.gerar()));
+        }
+    }
+
+    @Test
+    public void testRelogioVoltandoNaoRepeteNemDesordena() {
+        AtomicLong relogio = new AtomicLong(Instant.parse("2026-01-01T00:00:00Z").toEpochMilli());
+        GeradorCodigoRastreamentoTemporal gerador = new GeradorCodigoRastreamentoTemporal(3, relogio::get);
+
+        String antes = gerador.gerar();
+        relogio.addAndGet(-60_000); // Ajuste de NTP para trás
+        String depois = gerador.gerar();
+        assertTrue(depois.compareTo(antes) > 0);
+
+        // Mais de 4096 códigos no mesmo milissegundo: adianta o milissegundo em vez de repetir
+        String anterior = depois;
+        for (int i = 0; i < 10_000; i++) {
+            String codigo = gerador.gerar();
+            assertTrue(codigo.compareTo(anterior) > 0);
+            anterior = codigo;
+        }
+        assertEquals(Instant.parse("2026-01-01T00:00:00Z"), GeradorCodigoRastreamentoTemporal.instante(antes));
+    }
+
+    @Test
+    public void testDigitoVerificadorDetectaErrosDeDigitacao() {
+        GeradorCodigoRastreamentoTemporal gerador = new GeradorCodigoRastreamentoTemporal(9);
+        String codigo = gerador.gerar();
+        assertTrue(gerador.valido(codigo));
+        assertTrue(gerador.valido(codigo.toLowerCase()));
+
+        String alfabeto = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+        for (int i = 0; i < codigo.length() - 1; i++) {
+            // Troca de um caractere
+            for (char simbolo : alfabeto.toCharArray()) {
+                if (simbolo != codigo.charAt(i)) {
+                    char[] errado = codigo.toCharArray();
+                    errado[i] = simbolo;
+                    assertFalse(gerador.valido(new String(errado)), "Troca não detectada: " + new String(errado));
+                }
+            }
+            // Inversão de dois caracteres vizinhos
+            if (i < codigo.length() - 2 && codigo.charAt(i) != codigo.charAt(i + 1)) {
+                char[] invertido = codigo.toCharArray();
+                invertido[i] = codigo.charAt(i + 1);
+                invertido[i + 1] = codigo.charAt(i);
+                assertFalse(gerador.valido(new String(invertido)), "Inversão não detectada: " + new String(invertido));
+            }
+        }
+        assertFalse(gerador.valido(codigo.substring(1)));
+        assertFalse(gerador.valido("0f8fad5b-d9cb-469f-a165-70867728950e"));
+    }
+}
@@ -0,0 +1,280 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.service.historico.HistoricoStatusBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Histórico de status em write-behind: journal antes do commit, troca de segmentos, regravação na
+ * inicialização, fila cheia e lote rejeitado pelo banco.
+ */
+class HistoricoStatusBufferTest {
+
+    private static final LocalDateTime DATA = LocalDateTime.of(2025, 3, 10, 14, 30);
+
+    @TempDir
+    Path diretorio;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<HistoricoStatusBuffer> buffers = new ArrayList<>();
+
+    @BeforeEach
+    public void preparar() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:historico_" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE pedidos (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE status_history (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "pedido_id BIGINT NOT NULL REFERENCES pedidos(id), status VARCHAR(20), data_alteracao TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO pedidos (id) VALUES (1), (2)");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void encerrar() throws InterruptedException {
+        for (HistoricoStatusBuffer buffer : buffers) {
+            buffer.encerrar();
+        }
+    }
+
+    @Test
+    public void testJournalEscritoAntesDoCommit() throws Exception {
+        HistoricoStatusBuffer buffer = novoBuffer(10_000, 60_000);
+        TransactionTemplate transacao = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        List<String> journalNoCommit = new ArrayList<>();
+
+        transacao.executeWithoutResult(status -> {
+            buffer.registrar(1L, StatusPedido.FINALIZADO, DATA);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    journalNoCommit.addAll(linhasDoJournal());
+                }
+            });
+        });
+
+        assertEquals(1, journalNoCommit.size(), journalNoCommit.toString());
+        assertTrue(journalNoCommit.get(0).endsWith(";1;FINALIZADO;" + DATA), journalNoCommit.toString());
+        buffer.iniciar();
+        aguardar(() -> contarLinhas() == 1);
+    }
+
+    @Test
+    public void testTransacaoDesfeitaDepoisDoJournalNaoERegravada() throws Exception {
+        HistoricoStatusBuffer buffer = novoBuffer(10_000, 60_000);
+        TransactionTemplate transacao = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        // Falha no commit depois de o evento ir para o journal
+        assertThrows(RuntimeException.class, () -> transacao.executeWithoutResult(status -> {
+            buffer.registrar(1L, StatusPedido.CANCELADO, DATA);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("commit recusado");
+                }
+            });
+        }));
+        transacao.executeWithoutResult(status -> buffer.registrar(2L, StatusPedido.FINALIZADO, DATA));
+
+        // Queda do processo: nada foi gravado no banco e o journal é regravado por outra instância
+        assertEquals(0, contarLinhas());
+        assertTrue(linhasDoJournal().stream().anyMatch(linha -> linha.startsWith("!")), linhasDoJournal().toString());
+        buffers.remove(buffer);
+        // A queda libera a trava do diretório sem encerrar o buffer
+        ReflectionTestUtils.invokeMethod(buffer, "liberarDiretorio");
+        HistoricoStatusBuffer reiniciado = novoBuffer(10_000, 50);
+        reiniciado.iniciar();
+
+        aguardar(() -> contarLinhas() == 1);
+        assertEquals(List.of("2:FINALIZADO"), jdbcTemplate.queryForList(
+                "SELECT CONCAT(pedido_id, ':', status) FROM status_history", String.class));
+    }
+
+    @Test
+    public void testDiretorioEmUsoRecusado() throws Exception {
+        HistoricoStatusBuffer buffer = novoBuffer(10_000, 60_000);
+        buffer.registrar(1L, StatusPedido.EM_ANDAMENTO, DATA);
+        List<String> antes = segmentos();
+
+        // Uma segunda instância no mesmo diretório adotaria os segmentos ainda em uso
+        assertThrows(IllegalStateException.class, () -> novoBuffer(10_000, 50));
+        assertEquals(antes, segmentos());
+
+        buffers.remove(buffer);
+        buffer.encerrar();
+        HistoricoStatusBuffer seguinte = novoBuffer(10_000, 50);
+        seguinte.iniciar();
+        assertEquals(1, contarLinhas());
+    }
+
+    @Test
+    public void testSegmentosAnterioresRegravadosNaInicializacao() throws Exception {
+        Path anterior = diretorio.resolve(String.format("historico-status-%019d.log", 7));
+        Files.write(anterior, List.of(
+                "7.1;1;EM_ANDAMENTO;" + DATA,
+                "7.2;2;FINALIZADO;" + DATA,
+                "!7.2",
+                "7.3;1;FINALIZ"), StandardCharsets.UTF_8); // linha incompleta de uma queda durante a escrita
+
+        HistoricoStatusBuffer buffer = novoBuffer(10_000, 50);
+        buffer.iniciar();
+
+        aguardar(() -> contarLinhas() == 1 && !Files.exists(anterior));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM status_history WHERE pedido_id = 1 AND status = 'EM_ANDAMENTO'", Integer.class));
+        // A numeração continua depois da execução anterior
+        assertTrue(segmentos().stream().allMatch(segmento -> segmento.compareTo(anterior.getFileName().toString()) > 0),
+                segmentos().toString());
+    }
+
+    @Test
+    public void testSegmentoTrocadoEApagadoDepoisDaGravacao() throws Exception {
+        HistoricoStatusBuffer buffer = novoBuffer(10_000, 50);
+        buffer.registrar(1L, StatusPedido.EM_ANDAMENTO, DATA);
+        buffer.registrar(1L, StatusPedido.FINALIZADO, DATA);
+        List<String> antes = segmentos();
+        assertEquals(1, antes.size());
+
+        buffer.iniciar();
+        aguardar(() -> contarLinhas() == 2 && !segmentos().contains(antes.get(0)));
+        // Sobra só o segmento novo, ainda vazio
+        assertEquals(1, segmentos().size());
+        assertTrue(linhasDoJournal().isEmpty());
+
+        buffer.registrar(2L, StatusPedido.CANCELADO, DATA);
+        buffers.remove(buffer);
+        buffer.encerrar();
+        assertEquals(3, contarLinhas());
+        assertTrue(segmentos().isEmpty(), segmentos().toString());
+    }
+
+    @Test
+    public void testFilaCheiaGravaNaThreadDaRequisicao() throws Exception {
+        HistoricoStatusBuffer buffer = novoBuffer(1, 60_000);
+
+        buffer.registrar(1L, StatusPedido.EM_ANDAMENTO, DATA);
+        buffer.registrar(1L, StatusPedido.FINALIZADO, DATA);
+        buffer.registrar(2L, StatusPedido.CANCELADO, DATA);
+
+        // O primeiro ficou na fila; os outros dois foram gravados na hora
+        assertEquals(2, contarLinhas());
+        assertEquals(2.0, meterRegistry.counter("ecommerce.historico.status.gravados.sincronos").count());
+
+        buffers.remove(buffer);
+        buffer.encerrar();
+        assertEquals(3, contarLinhas());
+        assertTrue(segmentos().isEmpty(), segmentos().toString());
+    }
+
+    @Test
+    public void testLoteRejeitadoEGravadoEventoAEvento() throws Exception {
+        HistoricoStatusBuffer buffer = novoBuffer(10_000, 50);
+        buffer.registrar(1L, StatusPedido.EM_ANDAMENTO, DATA);
+        buffer.registrar(999L, StatusPedido.EM_ANDAMENTO, DATA); // pedido inexistente: viola a chave estrangeira
+        buffer.registrar(2L, StatusPedido.FINALIZADO, DATA);
+
+        buffer.iniciar();
+        aguardar(() -> meterRegistry.counter("ecommerce.historico.status.gravados").count() == 3);
+        assertEquals(2, contarLinhas());
+        assertEquals(1.0, meterRegistry.counter("ecommerce.historico.status.descartados").count());
+    }
+
+    @Test
+    public void testEscritasConcorrentesNoJournal() throws Exception {
+        HistoricoStatusBuffer buffer = novoBuffer(100_000, 60_000);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tarefas.add(threads.submit(() -> {
+                for (int i = 0; i < 250; i++) {
+                    buffer.registrar(1L, StatusPedido.EM_ANDAMENTO, DATA);
+                }
+            }));
+        }
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+        threads.shutdown();
+
+        // Cada evento registrado já está no arquivo, com um id único
+        List<String> linhas = linhasDoJournal();
+        assertEquals(2_000, linhas.size());
+        assertEquals(2_000, linhas.stream().map(linha -> linha.split(";")[0]).distinct().count());
+
+        buffers.remove(buffer);
+        buffer.encerrar();
+        assertEquals(2_000, contarLinhas());
+    }
+
+    private HistoricoStatusBuffer novoBuffer(int capacidadeFila, long intervaloMs) throws IOException {
+        HistoricoStatusBuffer buffer = new HistoricoStatusBuffer(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), meterRegistry,
+                capacidadeFila, 500, intervaloMs, diretorio.toString());
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private int contarLinhas() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM status_history", Integer.class);
+    }
+
+    private List<String> segmentos() {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.map(arquivo -> arquivo.getFileName().toString())
+                    .filter(nome -> nome.startsWith("historico-status-"))
+                    .sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<String> linhasDoJournal() {
+        List<String> linhas = new ArrayList<>();
+        for (String segmento : segmentos()) {
+            try {
+                linhas.addAll(Files.readAllLines(diretorio.resolve(segmento), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return linhas;
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!condicao.getAsBoolean() && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        assertTrue(condicao.getAsBoolean(), "Condição não atingida em 5 s");
+    }
+}
@@ -0,0 +1,197 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.PedidoDTO;
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.model.Cliente;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.bione.api.ecommerce.service.idempotencia.IdempotenciaPedidos;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Criação de pedidos com {@code Idempotency-Key}: chaves repetidas em paralelo, resposta gravada no banco,
+ * chave reutilizada com outro corpo e repetição enquanto a primeira ainda está em processamento.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Import(DadosTeste.class)
+@AutoConfigureMockMvc
+class IdempotenciaPedidosTest {
+
+    private static final int ESTOQUE = 100;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private IdempotenciaPedidos idempotencia;
+
+    @Test
+    public void testChaveRepetidaEmParaleloCriaUmPedido() throws Exception {
+        Cliente cliente = dados.novoCliente();
+        Produto produto = produtoRepository.save(new Produto(null, "Produto paralelo", BigDecimal.TEN, ESTOQUE, null));
+        String corpo = corpo(cliente.getId(), produto.getId(), 2);
+        String chave = UUID.randomUUID().toString();
+
+        int requisicoes = 8;
+        ExecutorService threads = Executors.newFixedThreadPool(requisicoes);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> respostas = new ArrayList<>();
+        for (int i = 0; i < requisicoes; i++) {
+            respostas.add(threads.submit(() -> {
+                largada.await();
+                return enviar(chave, corpo);
+            }));
+        }
+        largada.countDown();
+
+        List<Long> ids = new ArrayList<>();
+        int repetidas = 0;
+        for (Future<MockHttpServletResponse> resposta : respostas) {
+            MockHttpServletResponse response = resposta.get(30, TimeUnit.SECONDS);
+            assertEquals(201, response.getStatus(), response.getContentAsString());
+            ids.add(objectMapper.readValue(response.getContentAsString(), PedidoDTO.class).getId());
+            if ("true".equals(response.getHeader("Idempotent-Replayed"))) {
+                repetidas++;
+            }
+        }
+        threads.shutdown();
+
+        assertEquals(1, ids.stream().distinct().count(), ids.toString());
+        assertEquals(requisicoes - 1, repetidas);
+        assertEquals(1, dados.contarPedidos(cliente.getId()));
+        assertEquals(ESTOQUE - 2, dados.estoque(produto.getId()));
+    }
+
+    @Test
+    public void testRespostaGravadaDevolvidaForaDoCache() throws Exception {
+        Cliente cliente = dados.novoCliente();
+        Produto produto = produtoRepository.save(new Produto(null, "Produto gravado", BigDecimal.TEN, ESTOQUE, null));
+        String chave = UUID.randomUUID().toString();
+
+        MockHttpServletResponse primeira = enviar(chave, corpo(cliente.getId(), produto.getId(), 3));
+        assertEquals(201, primeira.getStatus());
+        assertEquals("false", primeira.getHeader("Idempotent-Replayed"));
+
+        // Simula o reinício (ou a retentativa em outra instância): só resta a linha de idempotencia_pedido
+        execucoes().invalidateAll();
+        MockHttpServletResponse repetida = enviar(chave, corpo(cliente.getId(), produto.getId(), 3));
+
+        assertEquals(201, repetida.getStatus());
+        assertEquals("true", repetida.getHeader("Idempotent-Replayed"));
+        assertEquals(primeira.getContentAsString(), repetida.getContentAsString());
+        assertEquals(1, dados.contarPedidos(cliente.getId()));
+        assertEquals(ESTOQUE - 3, dados.estoque(produto.getId()));
+    }
+
+    @Test
+    public void testChaveReutilizadaComOutroCorpoRecebe422() throws Exception {
+        Cliente cliente = dados.novoCliente();
+        Produto produto = produtoRepository.save(new Produto(null, "Produto reutilizado", BigDecimal.TEN, ESTOQUE, null));
+        String chave = UUID.randomUUID().toString();
+
+        assertEquals(201, enviar(chave, corpo(cliente.getId(), produto.getId(), 1)).getStatus());
+        assertEquals(422, enviar(chave, corpo(cliente.getId(), produto.getId(), 5)).getStatus());
+
+        // O mesmo vale para a chave lida do banco
+        execucoes().invalidateAll();
+        assertEquals(422, enviar(chave, corpo(cliente.getId(), produto.getId(), 5)).getStatus());
+        assertEquals(1, dados.contarPedidos(cliente.getId()));
+        assertEquals(ESTOQUE - 1, dados.estoque(produto.getId()));
+    }
+
+    @Test
+    public void testRepeticaoDuranteOProcessamentoRecebe409ComRetryAfter() throws Exception {
+        Cliente cliente = dados.novoCliente();
+        Produto produto = produtoRepository.save(new Produto(null, "Produto lento", BigDecimal.TEN, ESTOQUE, null));
+        String chave = UUID.randomUUID().toString();
+        PedidoRequestDTO requisicao = new PedidoRequestDTO(cliente.getId(),
+                List.of(new ProdutoQuantidadeDTO(produto.getId(), 1)));
+
+        IdempotenciaPedidos alvo = AopTestUtils.getTargetObject(idempotencia);
+        Object esperaOriginal = ReflectionTestUtils.getField(alvo, "espera");
+        ReflectionTestUtils.setField(alvo, "espera", Duration.ofMillis(100));
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            // Primeira execução presa até o fim do teste
+            Future<IdempotenciaPedidos.Resultado> primeira = thread.submit(() -> idempotencia.executar(chave, requisicao, () -> {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return PedidoDTO.builder().id(-1L).clienteId(cliente.getId()).build();
+            }));
+            while (execucoes().getIfPresent(chave) == null) {
+                Thread.sleep(10);
+            }
+
+            MockHttpServletResponse repetida = enviar(chave, objectMapper.writeValueAsString(requisicao));
+            assertEquals(409, repetida.getStatus());
+            assertEquals("1", repetida.getHeader("Retry-After"));
+
+            liberar.countDown();
+            assertFalse(primeira.get(10, TimeUnit.SECONDS).repetido());
+        } finally {
+            liberar.countDown();
+            thread.shutdown();
+            ReflectionTestUtils.setField(alvo, "espera", esperaOriginal);
+        }
+    }
+
+    private MockHttpServletResponse enviar(String chave, String corpo) throws Exception {
+        return mockMvc.perform(post("/api/pedidos")
+                        .header("Idempotency-Key", chave)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andReturn().getResponse();
+    }
+
+    private String corpo(Long clienteId, Long produtoId, int quantidade) throws Exception {
+        return objectMapper.writeValueAsString(new PedidoRequestDTO(clienteId,
+                List.of(new ProdutoQuantidadeDTO(produtoId, quantidade))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<String, ?> execucoes() {
+        IdempotenciaPedidos alvo = AopTestUtils.getTargetObject(idempotencia);
+        return (Cache<String, ?>) ReflectionTestUtils.getField(alvo, "execucoes");
+    }
+}
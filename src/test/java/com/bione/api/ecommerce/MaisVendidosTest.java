@@ -0,0 +1,125 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.dto.ProdutoVendidoDTO;
+import com.bione.api.ecommerce.enums.JanelaVendas;
+import com.bione.api.ecommerce.model.Cliente;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.bione.api.ecommerce.service.PedidoService;
+import com.bione.api.ecommerce.service.ranking.MaisVendidos;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara o ranking aproximado de mais vendidos (count-min sketch + top-K) com a resposta exata do SQL.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "ecommerce.mais-vendidos.largura-sketch=64",
+        "ecommerce.mais-vendidos.tamanho-topo=20"
+})
+@Import(DadosTeste.class)
+class MaisVendidosTest {
+
+    // Sketch estreito (64 contadores por linha para 80 produtos) para que haja colisões de verdade
+    private static final int LARGURA_SKETCH = 64;
+    private static final int PRODUTOS = 80;
+    private static final int PEDIDOS = 400;
+    private static final int LIMITE = 10;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private MaisVendidos maisVendidos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testRankingAproximadoRespeitaOsLimitesDoSketch() {
+        LocalDateTime inicio = LocalDateTime.now();
+        Cliente cliente = dados.novoCliente();
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < PRODUTOS; i++) {
+            produtos.add(produtoRepository.save(new Produto(null, "Produto " + i, BigDecimal.TEN, 1_000_000, null)));
+        }
+
+        // Distribuição enviesada: poucos produtos concentram a maior parte das vendas
+        Random random = new Random(42);
+        for (int i = 0; i < PEDIDOS; i++) {
+            Map<Long, Integer> itens = new LinkedHashMap<>();
+            int quantidadeItens = 1 + random.nextInt(3);
+            for (int j = 0; j < quantidadeItens; j++) {
+                int indice = (int) (PRODUTOS * Math.pow(random.nextDouble(), 3));
+                itens.merge(produtos.get(indice).getId(), 1 + random.nextInt(5), Integer::sum);
+            }
+            List<ProdutoQuantidadeDTO> produtosPedido = new ArrayList<>();
+            itens.forEach((id, quantidade) -> produtosPedido.add(new ProdutoQuantidadeDTO(id, quantidade)));
+            pedidoService.criarPedido(new PedidoRequestDTO(cliente.getId(), produtosPedido));
+        }
+
+        Map<Long, Long> exato = new HashMap<>();
+        jdbcTemplate.query("SELECT i.produto_id, SUM(i.quantidade) FROM pedido_produto i " +
+                        "JOIN pedidos p ON p.id = i.pedido_id WHERE p.data_pedido >= ? GROUP BY i.produto_id",
+                linha -> { exato.put(linha.getLong(1), linha.getLong(2)); },
+                Timestamp.valueOf(inicio.minusSeconds(1)));
+        long totalUnidades = exato.values().stream().mapToLong(Long::longValue).sum();
+
+        // Garantia do count-min sketch: estimativa >= valor real e excesso <= (e / largura) * total
+        long erroMaximo = (long) Math.ceil(Math.E / LARGURA_SKETCH * totalUnidades);
+
+        for (JanelaVendas janela : JanelaVendas.values()) {
+            List<ProdutoVendidoDTO> ranking = maisVendidos.maisVendidos(janela, LIMITE);
+            assertEquals(Math.min(LIMITE, exato.size()), ranking.size(), "Tamanho do ranking na janela " + janela.getCodigo());
+
+            for (int i = 0; i < ranking.size(); i++) {
+                ProdutoVendidoDTO item = ranking.get(i);
+                long real = exato.getOrDefault(item.getProdutoId(), 0L);
+                assertTrue(item.getQuantidade() >= real, "Estimativa abaixo do valor real: " + item.getProdutoId());
+                assertTrue(item.getQuantidade() - real <= erroMaximo, "Erro acima do limite: " + item.getProdutoId());
+                if (i > 0) {
+                    assertTrue(ranking.get(i - 1).getQuantidade() >= item.getQuantidade(), "Ranking fora de ordem");
+                }
+            }
+
+            // Nenhum produto que vendeu mais que o último do ranking (pelo valor exato) pode ter ficado de fora
+            long ultimaEstimativa = ranking.get(ranking.size() - 1).getQuantidade();
+            List<Long> idsRanking = ranking.stream().map(ProdutoVendidoDTO::getProdutoId).toList();
+            exato.forEach((produtoId, quantidade) -> {
+                if (quantidade > ultimaEstimativa) {
+                    assertTrue(idsRanking.contains(produtoId),
+                            "Produto " + produtoId + " (" + quantidade + " unidades) ausente do ranking " + janela.getCodigo());
+                }
+            });
+
+            // O mais vendido pelo SQL é o primeiro do ranking (a distribuição enviesada o separa dos demais)
+            long maisVendidoExato = exato.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+            assertEquals(maisVendidoExato, ranking.get(0).getProdutoId());
+        }
+    }
+}
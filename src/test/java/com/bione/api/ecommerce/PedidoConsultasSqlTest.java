@@ -0,0 +1,166 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.Cliente;
+import com.bione.api.ecommerce.model.Pedido;
+import com.bione.api.ecommerce.model.PedidoProduto;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.repository.PedidoProdutoRepository;
+import com.bione.api.ecommerce.repository.PedidoRepository;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Garante que as leituras de pedidos executam um número fixo de consultas,
+ * independente de quantos pedidos (ou itens) são retornados (sem N+1).
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bione.api.ecommerce.ContadorSql"
+})
+@Import(DadosTeste.class)
+@AutoConfigureMockMvc
+class PedidoConsultasSqlTest {
+
+    // Uma consulta para a página de pedidos e uma para os itens (com os produtos) da página
+    private static final int CONSULTAS_LISTAGEM = 2;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private PedidoProdutoRepository pedidoProdutoRepository;
+
+    private List<Cliente> clientes;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    public void setup() {
+        pedidoProdutoRepository.deleteAllInBatch();
+        pedidoRepository.deleteAllInBatch();
+
+        clientes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            clientes.add(dados.novoCliente());
+        }
+        produtos = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            produtos.add(produtoRepository.save(new Produto(null, "Produto " + i, BigDecimal.TEN, 100, null)));
+        }
+    }
+
+    @Test
+    public void testListagemDePedidosComConsultasFixas() throws Exception {
+        criarPedidos(5, 2);
+        int consultasCincoPedidos = contarConsultas(() -> mockMvc.perform(get("/api/pedidos").param("limit", "100"))
+                .andExpect(status().isOk()));
+
+        criarPedidos(45, 3);
+        int consultasCinquentaPedidos = contarConsultas(() -> mockMvc.perform(get("/api/pedidos").param("limit", "100"))
+                .andExpect(status().isOk()));
+
+        assertEquals(CONSULTAS_LISTAGEM, consultasCincoPedidos);
+        assertEquals(consultasCincoPedidos, consultasCinquentaPedidos,
+                "A quantidade de consultas da listagem não pode crescer com o número de pedidos");
+
+        int consultasPorStatus = contarConsultas(() -> mockMvc.perform(get("/api/pedidos/status/EM_ANDAMENTO").param("limit", "100"))
+                .andExpect(status().isOk()));
+        assertEquals(CONSULTAS_LISTAGEM, consultasPorStatus);
+    }
+
+    @Test
+    public void testAtualizacaoDeStatusComConsultasFixas() throws Exception {
+        Long pedidoUmItem = criarPedidos(1, 1).get(0);
+        Long pedidoDezItens = criarPedidos(1, 10).get(0);
+
+        int consultasUmItem = contarConsultas(() -> atualizarStatus(pedidoUmItem));
+        int consultasDezItens = contarConsultas(() -> atualizarStatus(pedidoDezItens));
+
+        assertEquals(consultasUmItem, consultasDezItens,
+                "A quantidade de consultas da atualização de status não pode crescer com o número de itens");
+    }
+
+    @Test
+    public void testRastreamentoForaDoFormatoNaoConsultaOBanco() throws Exception {
+        Long pedidoId = criarPedidos(1, 1).get(0);
+        String legado = pedidoRepository.findById(pedidoId).orElseThrow().getNumeroRastreamento();
+
+        int consultasInvalido = contarConsultas(() -> mockMvc.perform(get("/api/pedidos/rastreamento/NAO-EXISTE-123"))
+                .andExpect(status().isNotFound()));
+        assertEquals(0, consultasInvalido);
+
+        // UUID dos pedidos anteriores ao gerador temporal continua aceito
+        mockMvc.perform(get("/api/pedidos/rastreamento/" + legado))
+                .andExpect(status().isOk());
+    }
+
+    private void atualizarStatus(Long pedidoId) throws Exception {
+        mockMvc.perform(put("/api/pedidos/" + pedidoId + "/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"FINALIZADO\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("FINALIZADO"));
+    }
+
+    private int contarConsultas(Requisicao requisicao) throws Exception {
+        ContadorSql.zerar();
+        requisicao.executar();
+        return ContadorSql.total();
+    }
+
+    private List<Long> criarPedidos(int quantidade, int itensPorPedido) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Cliente cliente = clientes.get(i % clientes.size());
+
+            Pedido pedido = new Pedido();
+            pedido.setCliente(cliente);
+            pedido.setTotal(BigDecimal.TEN.multiply(BigDecimal.valueOf(itensPorPedido)));
+            pedido.setDataPedido(LocalDateTime.now());
+            pedido.setStatus(StatusPedido.EM_ANDAMENTO);
+            pedido.setEnderecoEntrega(cliente.getEnderecoCompleto());
+            pedido.setNumeroRastreamento(UUID.randomUUID().toString());
+            pedido = pedidoRepository.save(pedido);
+
+            List<PedidoProduto> itens = new ArrayList<>();
+            for (int j = 0; j < itensPorPedido; j++) {
+                itens.add(new PedidoProduto(pedido, produtos.get(j % produtos.size()), 1));
+            }
+            pedidoProdutoRepository.saveAll(itens);
+            ids.add(pedido.getId());
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface Requisicao {
+        void executar() throws Exception;
+    }
+}
@@ -0,0 +1,153 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.dto.ResultadoPedidoLoteDTO;
+import com.bione.api.ecommerce.model.Cliente;
+import com.bione.api.ecommerce.model.Produto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Criação de pedidos em lote ({@code POST /api/pedidos/lote}): limite do lote, reserva de estoque em grupo
+ * com volta à reserva pedido a pedido e recusa individual sem desfazer os pedidos aceitos.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Import(DadosTeste.class)
+@AutoConfigureMockMvc
+class PedidoLoteTest {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testLoteVazioOuAcimaDoLimiteRecusado() throws Exception {
+        Long cliente = dados.novoCliente().getId();
+        Long produto = dados.novoProduto("Produto limite", 5_000).getId();
+
+        List<PedidoRequestDTO> acimaDoLimite = new ArrayList<>(
+                Collections.nCopies(1_001, pedido(cliente, produto, 1)));
+        assertEquals(400, enviar(acimaDoLimite).getStatus());
+        assertEquals(400, enviar(List.of()).getStatus());
+
+        assertEquals(0, dados.contarPedidos(cliente));
+        assertEquals(5_000, dados.estoque(produto));
+    }
+
+    @Test
+    public void testLoteQueCabeNoEstoqueDebitaOTotal() throws Exception {
+        Long cliente = dados.novoCliente().getId();
+        Long caneta = dados.novoProduto("Caneta", 10).getId();
+        Long caderno = dados.novoProduto("Caderno", 10).getId();
+
+        List<ResultadoPedidoLoteDTO> resultados = resultados(enviar(List.of(
+                pedido(cliente, caneta, 3),
+                new PedidoRequestDTO(cliente, List.of(new ProdutoQuantidadeDTO(caneta, 2), new ProdutoQuantidadeDTO(caderno, 4))),
+                pedido(cliente, caderno, 6))));
+
+        assertTrue(resultados.stream().allMatch(ResultadoPedidoLoteDTO::isSucesso));
+        assertEquals(5, dados.estoque(caneta));
+        assertEquals(0, dados.estoque(caderno));
+        assertEquals(3, dados.contarPedidos(cliente));
+    }
+
+    @Test
+    public void testTotalSemEstoqueReservaPedidoAPedido() throws Exception {
+        Long cliente = dados.novoCliente().getId();
+        Long disputado = dados.novoProduto("Disputado", 5).getId();
+        Long outro = dados.novoProduto("Outro", 100).getId();
+
+        // 2 + 2 + 2 não cabe em 5: o grupo falha e cada pedido é reservado na ordem recebida
+        List<ResultadoPedidoLoteDTO> resultados = resultados(enviar(List.of(
+                pedido(cliente, disputado, 2),
+                pedido(cliente, disputado, 2),
+                new PedidoRequestDTO(cliente, List.of(new ProdutoQuantidadeDTO(outro, 7), new ProdutoQuantidadeDTO(disputado, 2))),
+                pedido(cliente, outro, 1))));
+
+        assertEquals(List.of(true, true, false, true),
+                resultados.stream().map(ResultadoPedidoLoteDTO::isSucesso).toList());
+        assertTrue(resultados.get(2).getErro().contains("Disputado"), resultados.get(2).getErro());
+        assertNull(resultados.get(2).getPedido());
+        // Nada sobra do débito do grupo nem do pedido recusado (inclusive do produto que tinha estoque)
+        assertEquals(1, dados.estoque(disputado));
+        assertEquals(99, dados.estoque(outro));
+        assertEquals(3, dados.contarPedidos(cliente));
+    }
+
+    @Test
+    public void testPedidosInvalidosRecusadosSemDesfazerOsAceitos() throws Exception {
+        Long cliente = dados.novoCliente().getId();
+        Long produto = dados.novoProduto("Produto válido", 50).getId();
+
+        List<ResultadoPedidoLoteDTO> resultados = resultados(enviar(List.of(
+                pedido(cliente, produto, 1),
+                pedido(cliente + 1_000, produto, 1),
+                pedido(cliente, produto + 1_000, 1),
+                pedido(cliente, produto, 0),
+                new PedidoRequestDTO(cliente, List.of()),
+                pedido(cliente, produto, 2))));
+
+        assertEquals(6, resultados.size());
+        for (int i = 0; i < resultados.size(); i++) {
+            assertEquals(i, resultados.get(i).getIndice());
+        }
+        assertTrue(resultados.get(0).isSucesso());
+        assertEquals("Cliente não encontrado", resultados.get(1).getErro());
+        assertEquals("Um ou mais produtos não foram encontrados", resultados.get(2).getErro());
+        assertEquals("A quantidade deve ser no mínimo 1", resultados.get(3).getErro());
+        assertEquals("A lista de produtos e quantidades não pode estar vazia", resultados.get(4).getErro());
+        assertTrue(resultados.get(5).isSucesso());
+
+        // Os aceitos foram gravados e continuam lá
+        for (int i : new int[]{0, 5}) {
+            Long pedidoId = resultados.get(i).getPedido().getId();
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedidos WHERE id = ?", Integer.class, pedidoId));
+        }
+        assertEquals(2, dados.contarPedidos(cliente));
+        assertEquals(47, dados.estoque(produto));
+    }
+
+    private MockHttpServletResponse enviar(List<PedidoRequestDTO> pedidos) throws Exception {
+        return mockMvc.perform(post("/api/pedidos/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(pedidos)))
+                .andReturn().getResponse();
+    }
+
+    private List<ResultadoPedidoLoteDTO> resultados(MockHttpServletResponse response) throws Exception {
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return objectMapper.readValue(response.getContentAsString(), new TypeReference<>() {
+        });
+    }
+
+    private static PedidoRequestDTO pedido(Long clienteId, Long produtoId, int quantidade) {
+        return new PedidoRequestDTO(clienteId, List.of(new ProdutoQuantidadeDTO(produtoId, quantidade)));
+    }
+}
@@ -0,0 +1,166 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.PedidoRequestDTO;
+import com.bione.api.ecommerce.dto.ProdutoQuantidadeDTO;
+import com.bione.api.ecommerce.dto.StatusHistoryDTO;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.model.Cliente;
+import com.bione.api.ecommerce.model.PedidoResumo;
+import com.bione.api.ecommerce.model.Produto;
+import com.bione.api.ecommerce.repository.PedidoResumoRepository;
+import com.bione.api.ecommerce.repository.ProdutoRepository;
+import com.bione.api.ecommerce.service.PedidoResumoService;
+import com.bione.api.ecommerce.service.PedidoService;
+import com.bione.api.ecommerce.service.rastreamento.GeradorCodigoRastreamento;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tabela {@code pedido_resumo}: mantida pelas escritas em pedidos e reconstruída a partir deles,
+ * inclusive com uma mudança de status concorrente à reconstrução.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Import(DadosTeste.class)
+class PedidoResumoServiceTest {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoResumoService pedidoResumoService;
+
+    @Autowired
+    private GeradorCodigoRastreamento geradorRastreamento;
+
+    @Autowired
+    private PedidoResumoRepository pedidoResumoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testResumoMantidoPelasEscritas() {
+        Cliente cliente = dados.novoCliente("Maria Resumo");
+        Produto caneta = produtoRepository.save(new Produto(null, "Caneta", new BigDecimal("2.50"), 100, null));
+        Produto caderno = produtoRepository.save(new Produto(null, "Caderno", new BigDecimal("15.00"), 100, null));
+
+        Long pedidoId = pedidoService.criarPedido(new PedidoRequestDTO(cliente.getId(), List.of(
+                new ProdutoQuantidadeDTO(caneta.getId(), 4), new ProdutoQuantidadeDTO(caderno.getId(), 1)))).getId();
+        PedidoResumo resumo = pedidoResumoRepository.findById(pedidoId).orElseThrow();
+        assertEquals(cliente.getId(), resumo.getClienteId());
+        assertEquals("Maria Resumo", resumo.getClienteNome());
+        assertEquals(StatusPedido.EM_ANDAMENTO, resumo.getStatus());
+        assertEquals(5, resumo.getQuantidadeItens());
+        assertEquals("Caneta, Caderno", resumo.getPrimeirosItens());
+        assertEquals(0, new BigDecimal("25.00").compareTo(resumo.getTotal()));
+
+        pedidoService.atualizarStatusPedido(pedidoId, status(pedidoId, StatusPedido.FINALIZADO));
+        String rastreamento = geradorRastreamento.gerar();
+        pedidoService.atualizarRastreamentoPedido(pedidoId, rastreamento);
+
+        resumo = pedidoResumoRepository.findById(pedidoId).orElseThrow();
+        assertEquals(StatusPedido.FINALIZADO, resumo.getStatus());
+        assertEquals(rastreamento, resumo.getNumeroRastreamento());
+
+        // Código que a consulta por rastreamento não aceitaria: recusado, o resumo não muda
+        assertThrows(IllegalArgumentException.class, () -> pedidoService.atualizarRastreamentoPedido(pedidoId, "BR123RESUMO"));
+        assertEquals(rastreamento, pedidoResumoRepository.findById(pedidoId).orElseThrow().getNumeroRastreamento());
+    }
+
+    @Test
+    public void testReconstrucaoCorrigeResumos() {
+        Cliente cliente = dados.novoCliente("Cliente Reconstrução");
+        Produto produto = produtoRepository.save(new Produto(null, "Produto reconstruído", BigDecimal.TEN, 100, null));
+        Long apagado = criarPedido(cliente, produto, 1);
+        Long divergente = criarPedido(cliente, produto, 2);
+        Long removido = criarPedido(cliente, produto, 3);
+        criarPedido(cliente, produto, 4);
+
+        // Resumo ausente, resumo desatualizado e resumo de um pedido que não existe mais
+        jdbcTemplate.update("DELETE FROM pedido_resumo WHERE pedido_id = ?", apagado);
+        jdbcTemplate.update("UPDATE pedido_resumo SET status = 'CANCELADO', quantidade_itens = 99 WHERE pedido_id = ?", divergente);
+        jdbcTemplate.update("DELETE FROM pedido_produto WHERE pedido_id = ?", removido);
+        jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", removido);
+
+        long gravados = pedidoResumoService.reconstruir();
+
+        assertEquals(contar("SELECT COUNT(*) FROM pedidos"), gravados);
+        assertEquals(gravados, contar("SELECT COUNT(*) FROM pedido_resumo"));
+        assertEquals(0, contar("SELECT COUNT(*) FROM pedido_resumo r LEFT JOIN pedidos p ON p.id = r.pedido_id " +
+                "WHERE p.id IS NULL OR p.status <> r.status"));
+        assertTrue(pedidoResumoRepository.findById(removido).isEmpty());
+        assertEquals(1, pedidoResumoRepository.findById(apagado).orElseThrow().getQuantidadeItens());
+        PedidoResumo corrigido = pedidoResumoRepository.findById(divergente).orElseThrow();
+        assertEquals(StatusPedido.EM_ANDAMENTO, corrigido.getStatus());
+        assertEquals(2, corrigido.getQuantidadeItens());
+        assertEquals("Produto reconstruído", corrigido.getPrimeirosItens());
+    }
+
+    @Test
+    public void testMudancaDeStatusDuranteAReconstrucaoNaoESobrescrita() throws Exception {
+        Cliente cliente = dados.novoCliente("Cliente Concorrente");
+        Produto produto = produtoRepository.save(new Produto(null, "Produto concorrente", BigDecimal.TEN, 100, null));
+        Long pedidoId = criarPedido(cliente, produto, 1);
+
+        // Mudança de status gravada, mas ainda sem commit, quando a reconstrução começa
+        CountDownLatch gravada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<Void> mudanca = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            pedidoService.atualizarStatusPedido(pedidoId, status(pedidoId, StatusPedido.CANCELADO));
+            gravada.countDown();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(gravada.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Long> reconstrucao = CompletableFuture.supplyAsync(pedidoResumoService::reconstruir);
+        Thread.sleep(300);
+        assertFalse(reconstrucao.isDone(), "A reconstrução não esperou o pedido bloqueado");
+
+        liberar.countDown();
+        mudanca.get(5, TimeUnit.SECONDS);
+        reconstrucao.get(5, TimeUnit.SECONDS);
+
+        assertEquals(StatusPedido.CANCELADO, pedidoResumoRepository.findById(pedidoId).orElseThrow().getStatus());
+    }
+
+    private Long criarPedido(Cliente cliente, Produto produto, int quantidade) {
+        return pedidoService.criarPedido(new PedidoRequestDTO(cliente.getId(),
+                List.of(new ProdutoQuantidadeDTO(produto.getId(), quantidade)))).getId();
+    }
+
+    private static StatusHistoryDTO status(Long pedidoId, StatusPedido status) {
+        return StatusHistoryDTO.builder().pedidoId(pedidoId).status(status).dataAlteracao(LocalDateTime.now()).build();
+    }
+
+    private long contar(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,136 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.dto.PaginaCursorDTO;
+import com.bione.api.ecommerce.dto.PedidoDTO;
+import com.bione.api.ecommerce.dto.ProdutoDTO;
+import com.bione.api.ecommerce.enums.FormatoResposta;
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara JSON, CBOR e Smile na serialização e leitura de uma página de pedidos como a de
+ * {@code GET /api/pedidos} (pedidos com endereço e 1 a 5 itens). O tamanho do payload de cada
+ * formato é impresso no início de cada fork.
+ *
+ * <p>Não roda no {@code mvn test}. Para executar: {@code mvn -B test-compile} e, em seguida, o
+ * {@link #main} desta classe pela IDE ou com o classpath de teste
+ * ({@code mvn -B dependency:build-classpath -Dmdep.includeScope=test}).</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializacaoFormatosBenchmark {
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    private FormatoResposta formato;
+
+    @Param({"50", "500"})
+    private int pedidos;
+
+    private ObjectMapper mapper;
+    private JavaType tipoPagina;
+    private PaginaCursorDTO<PedidoDTO> pagina;
+    private byte[] serializado;
+
+    @Setup
+    public void preparar() throws IOException {
+        // Mesma configuração dos conversores da aplicação (builder do Spring, datas ISO-8601)
+        JsonFactory fabrica = switch (formato) {
+            case JSON -> new JsonFactory();
+            case CBOR -> new CBORFactory();
+            case SMILE -> new SmileFactory();
+        };
+        mapper = Jackson2ObjectMapperBuilder.json().factory(fabrica).build();
+        tipoPagina = mapper.getTypeFactory().constructParametricType(PaginaCursorDTO.class, PedidoDTO.class);
+        pagina = gerarPagina(pedidos);
+        serializado = mapper.writeValueAsBytes(pagina);
+        System.out.printf("%n%s, %d pedidos: %d bytes%n", formato, pedidos, serializado.length);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws IOException {
+        return mapper.writeValueAsBytes(pagina);
+    }
+
+    @Benchmark
+    public PaginaCursorDTO<PedidoDTO> desserializar() throws IOException {
+        return mapper.readValue(serializado, tipoPagina);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SerializacaoFormatosBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    // Pedidos com valores variados (semente fixa), para que nenhum formato ganhe com repetição artificial
+    private static PaginaCursorDTO<PedidoDTO> gerarPagina(int quantidade) {
+        Random random = new Random(42);
+        String[] produtos = {"Camiseta Básica Algodão", "Caneca Térmica 350ml", "Fone de Ouvido Bluetooth",
+                "Livro de Receitas", "Mochila Executiva", "Garrafa Inox 1L", "Cabo USB-C 2m", "Luminária de Mesa"};
+        String[] cidades = {"São Paulo", "Rio de Janeiro", "Belo Horizonte", "Curitiba", "Recife", "Porto Alegre"};
+        StatusPedido[] status = StatusPedido.values();
+        LocalDateTime inicio = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        List<PedidoDTO> itens = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            List<ProdutoDTO> produtosPedido = new ArrayList<>();
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0, itensPedido = 1 + random.nextInt(5); j < itensPedido; j++) {
+                BigDecimal preco = BigDecimal.valueOf(500 + random.nextInt(50_000), 2);
+                produtosPedido.add(new ProdutoDTO((long) random.nextInt(10_000),
+                        produtos[random.nextInt(produtos.length)], preco, random.nextInt(1_000)));
+                total = total.add(preco);
+            }
+            String cidade = cidades[random.nextInt(cidades.length)];
+            String rua = "Rua " + (char) ('A' + random.nextInt(26)) + " de Souza";
+            String numero = String.valueOf(1 + random.nextInt(3_000));
+            itens.add(PedidoDTO.builder()
+                    .id(100_000L + i)
+                    .clienteId((long) random.nextInt(50_000))
+                    .produtos(produtosPedido)
+                    .total(total)
+                    .dataPedido(inicio.plusSeconds(random.nextInt(30_000_000)))
+                    .status(status[random.nextInt(status.length)])
+                    .enderecoEntrega(rua + ", " + numero + " - Centro, " + cidade + " - SP, 01000-000")
+                    .rua(rua)
+                    .numero(numero)
+                    .bairro("Centro")
+                    .cidade(cidade)
+                    .estado("SP")
+                    .cep(String.format("%05d-%03d", random.nextInt(100_000), random.nextInt(1_000)))
+                    .build());
+        }
+        return new PaginaCursorDTO<>(itens, 100_000L + quantidade - 1, quantidade);
+    }
+}
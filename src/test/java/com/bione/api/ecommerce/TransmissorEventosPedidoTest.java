@@ -0,0 +1,125 @@
+package com.bione.api.ecommerce;
+
+import com.bione.api.ecommerce.enums.StatusPedido;
+import com.bione.api.ecommerce.service.eventos.StatusPedidoAlteradoEvent;
+import com.bione.api.ecommerce.service.eventos.TransmissorEventosPedido;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Stream SSE de pedidos: filtro por status nas mudanças de status e reconexão com {@code Last-Event-ID}.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Import(DadosTeste.class)
+@AutoConfigureMockMvc
+class TransmissorEventosPedidoTest {
+
+    private static final Pattern ID_EVENTO = Pattern.compile("id:(\\S+)");
+
+    // Pedidos distintos por teste: os eventos do anel são compartilhados pelo contexto
+    private static final AtomicLong PEDIDOS = new AtomicLong(1_000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransmissorEventosPedido transmissor;
+
+    @Test
+    public void testFiltroDeStatusRecebeOPedidoQueSaiDoStatus() throws Exception {
+        MockHttpServletResponse pendentes = assinar("/api/pedidos/eventos?status=PENDENTE", null);
+
+        long saiuDePendente = alterarStatus(StatusPedido.PENDENTE, StatusPedido.EM_ANDAMENTO);
+        long semRelacao = alterarStatus(StatusPedido.EM_ANDAMENTO, StatusPedido.FINALIZADO);
+        long entrouEmPendente = alterarStatus(StatusPedido.EM_ANDAMENTO, StatusPedido.PENDENTE);
+
+        String conteudo = aguardarConteudo(pendentes, pedido(entrouEmPendente));
+        assertTrue(conteudo.contains(pedido(saiuDePendente)), conteudo);
+        assertTrue(conteudo.contains("\"statusAnterior\":\"PENDENTE\""), conteudo);
+        assertFalse(conteudo.contains(pedido(semRelacao)), conteudo);
+    }
+
+    @Test
+    public void testReconexaoReenviaSoOsEventosPerdidos() throws Exception {
+        MockHttpServletResponse todos = assinar("/api/pedidos/eventos", null);
+        long primeiro = alterarStatus(StatusPedido.EM_ANDAMENTO, StatusPedido.FINALIZADO);
+        String conteudo = aguardarConteudo(todos, pedido(primeiro));
+        Matcher id = ID_EVENTO.matcher(conteudo.substring(0, conteudo.indexOf(pedido(primeiro))));
+        String ultimoId = null;
+        while (id.find()) {
+            ultimoId = id.group(1);
+        }
+        assertNotNull(ultimoId);
+        assertTrue(ultimoId.matches("[0-9a-z]+-\\d+"), ultimoId);
+
+        long perdido = alterarStatus(StatusPedido.EM_ANDAMENTO, StatusPedido.CANCELADO);
+        MockHttpServletResponse reconectado = assinar("/api/pedidos/eventos", ultimoId);
+        String reenviado = aguardarConteudo(reconectado, pedido(perdido));
+        assertFalse(reenviado.contains(pedido(primeiro)), reenviado);
+        assertFalse(reenviado.contains(TransmissorEventosPedido.RESSINCRONIZAR), reenviado);
+    }
+
+    @Test
+    public void testIdDeOutraExecucaoPedeRessincronizacao() throws Exception {
+        alterarStatus(StatusPedido.EM_ANDAMENTO, StatusPedido.FINALIZADO);
+
+        // Mesma sequência, época de uma inicialização anterior: nada é reenviado
+        MockHttpServletResponse outraEpoca = assinar("/api/pedidos/eventos", "0-1");
+        String conteudo = aguardarConteudo(outraEpoca, "event:" + TransmissorEventosPedido.RESSINCRONIZAR);
+        assertFalse(conteudo.contains("pedidoId"), conteudo);
+
+        // Formato antigo (só a sequência)
+        MockHttpServletResponse semEpoca = assinar("/api/pedidos/eventos", "1");
+        aguardarConteudo(semEpoca, "event:" + TransmissorEventosPedido.RESSINCRONIZAR);
+    }
+
+    private static String pedido(long pedidoId) {
+        return "\"pedidoId\":" + pedidoId + ",";
+    }
+
+    private MockHttpServletResponse assinar(String url, String ultimoEventoId) throws Exception {
+        var requisicao = get(url);
+        if (ultimoEventoId != null) {
+            requisicao.header("Last-Event-ID", ultimoEventoId);
+        }
+        MvcResult resultado = mockMvc.perform(requisicao).andReturn();
+        assertTrue(resultado.getRequest().isAsyncStarted());
+        return resultado.getResponse();
+    }
+
+    private long alterarStatus(StatusPedido anterior, StatusPedido novo) {
+        long pedidoId = PEDIDOS.incrementAndGet();
+        transmissor.aoAlterarStatus(new StatusPedidoAlteradoEvent(pedidoId, 1L, anterior, novo,
+                BigDecimal.TEN, LocalDateTime.now()));
+        return pedidoId;
+    }
+
+    // O envio é feito por outra thread: espera o trecho aparecer na resposta
+    private String aguardarConteudo(MockHttpServletResponse response, String trecho) throws Exception {
+        long limite = System.currentTimeMillis() + 5_000;
+        String conteudo = response.getContentAsString();
+        while (!conteudo.contains(trecho) && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            conteudo = response.getContentAsString();
+        }
+        assertTrue(conteudo.contains(trecho), "Esperado '" + trecho + "' em: " + conteudo);
+        return conteudo;
+    }
+}